@@ -0,0 +1,51 @@
+package xyz.zhenliang.rabbitmq.codec;
+
+import java.lang.reflect.Type;
+
+/**
+ * 消息体编解码器接口
+ * 负责消息信封（RabbitmqMsgDTO）与消息体字节之间的转换，编码格式通过AMQP的content-type属性标识
+ * 自定义实现注册为bean后即可通过mq.codec配置按交换机选用
+ */
+public interface IRabbitmqCodec {
+    /**
+     * 编解码器名称，用于配置，如json、smile、cbor
+     *
+     * @return 名称
+     */
+    String getName();
+
+    /**
+     * 编码格式对应的content-type，发送时写入AMQP消息属性
+     *
+     * @return content-type
+     */
+    String getContentType();
+
+    /**
+     * 根据消息体开头的字节判断是否为该编码格式
+     * 用于没有content-type的场景，如从消息表中读取的消息体、旧版本发送的消息
+     *
+     * @param body 消息体
+     * @return 是否为该编码格式
+     */
+    boolean matches(byte[] body);
+
+    /**
+     * 将对象编码为字节数组
+     *
+     * @param obj 对象
+     * @return 字节数组
+     */
+    byte[] encode(Object obj);
+
+    /**
+     * 将字节数组解码为指定类型的对象
+     *
+     * @param body 字节数组
+     * @param type 目标类型，可为Class或泛型类型
+     * @param <T>  目标类型
+     * @return 解码后的对象
+     */
+    <T> T decode(byte[] body, Type type);
+}
@@ -0,0 +1,46 @@
+package xyz.zhenliang.rabbitmq.codec;
+
+/**
+ * 消息体压缩器接口
+ * 编码后的消息体超过阈值时压缩，压缩算法通过AMQP的content-encoding属性标识，消息表中保存压缩后的字节
+ */
+public interface IRabbitmqCompressor {
+    /**
+     * 压缩算法名称，用于配置，如gzip、deflate、lz4
+     *
+     * @return 名称
+     */
+    String getName();
+
+    /**
+     * 压缩算法对应的content-encoding，发送时写入AMQP消息属性
+     *
+     * @return content-encoding
+     */
+    String getContentEncoding();
+
+    /**
+     * 根据消息体开头的字节判断是否为该算法压缩的数据
+     * 用于没有content-encoding的场景，如从消息表中读取的消息体
+     *
+     * @param body 消息体
+     * @return 是否为该算法压缩的数据
+     */
+    boolean matches(byte[] body);
+
+    /**
+     * 压缩
+     *
+     * @param body 原始字节
+     * @return 压缩后的字节
+     */
+    byte[] compress(byte[] body);
+
+    /**
+     * 解压
+     *
+     * @param body 压缩后的字节
+     * @return 原始字节
+     */
+    byte[] decompress(byte[] body);
+}
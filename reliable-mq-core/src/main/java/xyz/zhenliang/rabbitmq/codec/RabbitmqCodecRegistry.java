@@ -0,0 +1,225 @@
+package xyz.zhenliang.rabbitmq.codec;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.codec.impl.JsonRabbitmqCodec;
+import xyz.zhenliang.rabbitmq.utils.JsonUtils;
+import xyz.zhenliang.rabbitmq.utils.RabbitmqUtils;
+
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 编解码器注册表
+ * 发送时按交换机选择编解码器（mq.codec.exchanges.交换机名称=编解码器名称，未配置的使用mq.codec.default），
+ * 接收时按AMQP的content-type选择，没有content-type时根据消息体开头的字节识别，都无法识别时按JSON处理
+ * 编码后的消息体达到阈值（mq.compression.threshold-bytes）时使用mq.compression.algorithm压缩，
+ * 接收时按content-encoding解压，没有content-encoding时同样根据开头的字节识别
+ */
+@Component
+public class RabbitmqCodecRegistry {
+    private static final String EXCHANGE_PROPERTY_PREFIX = "mq.codec.exchanges.";
+
+    @Autowired
+    private List<IRabbitmqCodec> codecs;
+
+    @Autowired
+    private List<IRabbitmqCompressor> compressors;
+
+    @Autowired
+    private Environment environment;
+
+    /**
+     * 默认编解码器名称，默认json
+     * 可通过配置项mq.codec.default进行自定义
+     */
+    @Value("${mq.codec.default:json}")
+    private String defaultCodecName = JsonRabbitmqCodec.NAME;
+
+    /**
+     * 压缩算法名称：gzip、deflate、lz4（需引入lz4-java），默认为空表示不压缩
+     * 可通过配置项mq.compression.algorithm进行自定义
+     */
+    @Value("${mq.compression.algorithm:}")
+    private String compressionName = "";
+
+    /**
+     * 编码后的消息体达到该字节数才压缩，默认4096
+     * 可通过配置项mq.compression.threshold-bytes进行自定义
+     */
+    @Value("${mq.compression.threshold-bytes:4096}")
+    private int compressionThreshold = 4096;
+
+    private final Map<String, IRabbitmqCodec> codecsByName = new LinkedHashMap<>();
+    private final Map<String, IRabbitmqCodec> codecsByContentType = new LinkedHashMap<>();
+    private final Map<String, IRabbitmqCodec> codecsByExchange = new ConcurrentHashMap<>();
+    private IRabbitmqCodec defaultCodec;
+    private IRabbitmqCodec jsonCodec;
+    private final Map<String, IRabbitmqCompressor> compressorsByEncoding = new LinkedHashMap<>();
+    private IRabbitmqCompressor compressor;
+
+    @PostConstruct
+    public void init() {
+        for (IRabbitmqCodec codec : codecs) {
+            codecsByName.put(codec.getName(), codec);
+            codecsByContentType.put(codec.getContentType(), codec);
+        }
+        jsonCodec = getByName(JsonRabbitmqCodec.NAME);
+        defaultCodec = getByName(defaultCodecName);
+        for (IRabbitmqCompressor c : compressors) {
+            compressorsByEncoding.put(c.getContentEncoding(), c);
+            if (c.getName().equals(compressionName)) compressor = c;
+        }
+        if (!compressionName.isEmpty() && compressor == null) {
+            throw new IllegalStateException("未找到消息压缩算法: " + compressionName + "，可用的压缩算法: " + compressorsByEncoding.keySet()
+                    + "，lz4需引入org.lz4:lz4-java依赖");
+        }
+    }
+
+    /**
+     * 根据名称获取编解码器
+     *
+     * @param name 编解码器名称
+     * @return 编解码器
+     */
+    public IRabbitmqCodec getByName(String name) {
+        IRabbitmqCodec codec = codecsByName.get(name);
+        if (codec == null) {
+            throw new IllegalStateException("未找到消息编解码器: " + name + "，可用的编解码器: " + codecsByName.keySet()
+                    + "，smile/cbor需引入对应的jackson-dataformat依赖");
+        }
+        return codec;
+    }
+
+    /**
+     * 获取发送到指定交换机时使用的编解码器
+     *
+     * @param exchange 交换机名称
+     * @return 编解码器
+     */
+    public IRabbitmqCodec forExchange(String exchange) {
+        if (exchange == null) return defaultCodec;
+        return codecsByExchange.computeIfAbsent(exchange, key -> {
+            String name = environment.getProperty(EXCHANGE_PROPERTY_PREFIX + key);
+            return name == null ? defaultCodec : getByName(name);
+        });
+    }
+
+    /**
+     * 获取解码消息体使用的编解码器
+     * 优先按content-type选择，其次根据消息体开头的字节识别，都无法识别时按JSON处理
+     *
+     * @param contentType content-type，可为null
+     * @param body        消息体
+     * @return 编解码器
+     */
+    public IRabbitmqCodec resolve(String contentType, byte[] body) {
+        if (contentType != null) {
+            IRabbitmqCodec codec = codecsByContentType.get(contentType);
+            if (codec != null) return codec;
+        }
+        for (IRabbitmqCodec codec : codecsByName.values()) {
+            if (codec.matches(body)) return codec;
+        }
+        return jsonCodec;
+    }
+
+    /**
+     * 获取编码后的消息体使用的压缩器
+     *
+     * @param body 编码后的消息体
+     * @return 压缩器，未开启压缩或消息体小于阈值时返回null
+     */
+    public IRabbitmqCompressor compressorFor(byte[] body) {
+        if (compressor == null || body.length < compressionThreshold) return null;
+        return compressor;
+    }
+
+    /**
+     * 根据消息体开头的字节识别压缩算法
+     *
+     * @param body 消息体
+     * @return 压缩器，未压缩时返回null
+     */
+    public IRabbitmqCompressor detectCompressor(byte[] body) {
+        for (IRabbitmqCompressor c : compressorsByEncoding.values()) {
+            if (c.matches(body)) return c;
+        }
+        return null;
+    }
+
+    /**
+     * 解压消息体
+     * 优先按content-encoding选择压缩器，没有content-encoding时根据消息体开头的字节识别，未压缩时原样返回
+     *
+     * @param contentEncoding content-encoding，可为null
+     * @param body            消息体
+     * @return 解压后的消息体
+     */
+    public byte[] decompress(String contentEncoding, byte[] body) {
+        if (body == null) return null;
+        IRabbitmqCompressor c = contentEncoding == null ? null : compressorsByEncoding.get(contentEncoding);
+        if (c == null) c = detectCompressor(body);
+        return c == null ? body : c.decompress(body);
+    }
+
+    /**
+     * 将消息体解压并解码为指定类型
+     *
+     * @param contentType     content-type，可为null
+     * @param contentEncoding content-encoding，可为null
+     * @param body            消息体
+     * @param type            目标类型
+     * @param <T>             目标类型
+     * @return 解码后的对象
+     */
+    public <T> T decode(String contentType, String contentEncoding, byte[] body, Type type) {
+        byte[] raw = decompress(contentEncoding, body);
+        return resolve(contentType, raw).decode(raw, type);
+    }
+
+    /**
+     * 将RabbitMQ消息的消息体解码为指定类型
+     *
+     * @param message RabbitMQ消息对象
+     * @param type    目标类型
+     * @param <T>     目标类型
+     * @return 解码后的对象，消息为空时返回null
+     */
+    public <T> T decode(Message message, Type type) {
+        if (Objects.isNull(message) || Objects.isNull(message.getBody()) || message.getBody().length == 0) {
+            return null;
+        }
+        MessageProperties properties = message.getMessageProperties();
+        return decode(properties.getContentType(), properties.getContentEncoding(), message.getBody(), type);
+    }
+
+    /**
+     * 将消息体转为可读的字符串，用于日志和提醒
+     * 压缩的消息体先解压，二进制格式先解码再转为JSON字符串，解码失败时按UTF-8原样输出
+     *
+     * @param contentType content-type，可为null
+     * @param body        消息体
+     * @return 可读的字符串
+     */
+    public String toReadableString(String contentType, byte[] body) {
+        if (body == null) return null;
+        try {
+            byte[] raw = decompress(null, body);
+            IRabbitmqCodec codec = resolve(contentType, raw);
+            if (codec == jsonCodec) return RabbitmqUtils.toString(raw);
+            return JsonUtils.toJson(codec.decode(raw, Object.class));
+        } catch (Exception e) {
+            return RabbitmqUtils.toString(body);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package xyz.zhenliang.rabbitmq.codec.impl;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.utils.RabbitmqUtils;
+
+/**
+ * CBOR编解码器
+ * 需引入com.fasterxml.jackson.dataformat:jackson-dataformat-cbor
+ */
+@Component
+@ConditionalOnClass(name = "com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper")
+public class CborRabbitmqCodec extends JacksonRabbitmqCodec {
+    public static final String NAME = "cbor";
+
+    /**
+     * CBOR自描述标签（55799），编码时写入，用于从消息表中的字节识别格式
+     */
+    private static final byte[] HEADER = {(byte) 0xD9, (byte) 0xD9, (byte) 0xF7};
+
+    public CborRabbitmqCodec() {
+        super(CBORMapper.builder().enable(CBORGenerator.Feature.WRITE_TYPE_HEADER).build());
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/cbor";
+    }
+
+    @Override
+    public boolean matches(byte[] body) {
+        return RabbitmqUtils.startsWith(body, HEADER);
+    }
+}
@@ -0,0 +1,45 @@
+package xyz.zhenliang.rabbitmq.codec.impl;
+
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Deflate（zlib格式）压缩器
+ */
+@Component
+public class DeflateRabbitmqCompressor extends StreamRabbitmqCompressor {
+    public static final String NAME = "deflate";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return NAME;
+    }
+
+    /**
+     * zlib头：第一个字节为0x78（32K窗口的deflate），且前两个字节组成的整数能被31整除
+     */
+    @Override
+    public boolean matches(byte[] body) {
+        if (body == null || body.length < 2 || body[0] != 0x78) return false;
+        return (((body[0] & 0xFF) << 8) | (body[1] & 0xFF)) % 31 == 0;
+    }
+
+    @Override
+    protected OutputStream compressStream(OutputStream out) {
+        return new DeflaterOutputStream(out);
+    }
+
+    @Override
+    protected InputStream decompressStream(InputStream in) {
+        return new InflaterInputStream(in);
+    }
+}
@@ -0,0 +1,48 @@
+package xyz.zhenliang.rabbitmq.codec.impl;
+
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.utils.RabbitmqUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * GZIP压缩器
+ */
+@Component
+public class GzipRabbitmqCompressor extends StreamRabbitmqCompressor {
+    public static final String NAME = "gzip";
+
+    /**
+     * GZIP魔数
+     */
+    private static final byte[] MAGIC = {0x1F, (byte) 0x8B};
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return NAME;
+    }
+
+    @Override
+    public boolean matches(byte[] body) {
+        return RabbitmqUtils.startsWith(body, MAGIC);
+    }
+
+    @Override
+    protected OutputStream compressStream(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, 8192);
+    }
+
+    @Override
+    protected InputStream decompressStream(InputStream in) throws IOException {
+        return new GZIPInputStream(in, 8192);
+    }
+}
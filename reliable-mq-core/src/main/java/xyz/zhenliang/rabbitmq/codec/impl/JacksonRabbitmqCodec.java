@@ -0,0 +1,44 @@
+package xyz.zhenliang.rabbitmq.codec.impl;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import xyz.zhenliang.rabbitmq.codec.IRabbitmqCodec;
+import xyz.zhenliang.rabbitmq.exception.TechException;
+
+import java.lang.reflect.Type;
+import java.text.SimpleDateFormat;
+
+/**
+ * 基于Jackson的编解码器基类
+ * 与JsonUtils使用相同的ObjectMapper配置，不同编码格式只是底层的JsonFactory不同
+ */
+public abstract class JacksonRabbitmqCodec implements IRabbitmqCodec {
+    protected final ObjectMapper objectMapper;
+
+    protected JacksonRabbitmqCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        objectMapper.findAndRegisterModules();
+        // 配置日期格式
+        objectMapper.setDateFormat(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"));
+        // 忽略未知属性
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    @Override
+    public byte[] encode(Object obj) {
+        try {
+            return objectMapper.writeValueAsBytes(obj);
+        } catch (Exception e) {
+            throw new TechException(getName() + " 编码失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> T decode(byte[] body, Type type) {
+        try {
+            return objectMapper.readValue(body, objectMapper.constructType(type));
+        } catch (Exception e) {
+            throw new TechException(getName() + " 解码失败: " + e.getMessage(), e);
+        }
+    }
+}
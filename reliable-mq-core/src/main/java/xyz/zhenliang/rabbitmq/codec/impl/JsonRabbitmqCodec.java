@@ -0,0 +1,40 @@
+package xyz.zhenliang.rabbitmq.codec.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * JSON编解码器（默认）
+ */
+@Component
+public class JsonRabbitmqCodec extends JacksonRabbitmqCodec {
+    public static final String NAME = "json";
+
+    public JsonRabbitmqCodec() {
+        super(new ObjectMapper());
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getContentType() {
+        return MessageProperties.CONTENT_TYPE_JSON;
+    }
+
+    /**
+     * 消息信封为JSON对象，以'{'开头（忽略前导空白）
+     */
+    @Override
+    public boolean matches(byte[] body) {
+        if (body == null) return false;
+        for (byte b : body) {
+            if (b == ' ' || b == '\t' || b == '\r' || b == '\n') continue;
+            return b == '{' || b == '[';
+        }
+        return false;
+    }
+}
@@ -0,0 +1,40 @@
+package xyz.zhenliang.rabbitmq.codec.impl;
+
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.utils.RabbitmqUtils;
+
+/**
+ * Smile（二进制JSON）编解码器
+ * 需引入com.fasterxml.jackson.dataformat:jackson-dataformat-smile
+ */
+@Component
+@ConditionalOnClass(name = "com.fasterxml.jackson.dataformat.smile.databind.SmileMapper")
+public class SmileRabbitmqCodec extends JacksonRabbitmqCodec {
+    public static final String NAME = "smile";
+
+    /**
+     * Smile默认写入的文件头 ":)\n"
+     */
+    private static final byte[] HEADER = {0x3A, 0x29, 0x0A};
+
+    public SmileRabbitmqCodec() {
+        super(new SmileMapper());
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/x-jackson-smile";
+    }
+
+    @Override
+    public boolean matches(byte[] body) {
+        return RabbitmqUtils.startsWith(body, HEADER);
+    }
+}
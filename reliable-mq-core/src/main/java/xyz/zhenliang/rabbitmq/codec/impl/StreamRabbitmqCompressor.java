@@ -0,0 +1,54 @@
+package xyz.zhenliang.rabbitmq.codec.impl;
+
+import xyz.zhenliang.rabbitmq.codec.IRabbitmqCompressor;
+import xyz.zhenliang.rabbitmq.exception.TechException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 基于输入输出流的压缩器基类
+ */
+public abstract class StreamRabbitmqCompressor implements IRabbitmqCompressor {
+
+    @Override
+    public byte[] compress(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2 + 64);
+        try (OutputStream os = compressStream(out)) {
+            os.write(body);
+        } catch (IOException e) {
+            throw new TechException(getName() + " 压缩失败: " + e.getMessage(), e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] body) {
+        try (InputStream is = decompressStream(new ByteArrayInputStream(body))) {
+            return is.readAllBytes();
+        } catch (IOException e) {
+            throw new TechException(getName() + " 解压失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 创建压缩输出流
+     *
+     * @param out 目标输出流
+     * @return 压缩输出流
+     * @throws IOException IO异常
+     */
+    protected abstract OutputStream compressStream(OutputStream out) throws IOException;
+
+    /**
+     * 创建解压输入流
+     *
+     * @param in 压缩数据输入流
+     * @return 解压输入流
+     * @throws IOException IO异常
+     */
+    protected abstract InputStream decompressStream(InputStream in) throws IOException;
+}
@@ -1,11 +1,14 @@
 package xyz.zhenliang.rabbitmq.config;
 
 import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.boot.autoconfigure.amqp.RabbitRetryTemplateCustomizer;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import xyz.zhenliang.rabbitmq.consumer.RabbitmqConsumerRetryListener;
+import xyz.zhenliang.rabbitmq.rescue.retry.RabbitmqDelayRetry;
 import xyz.zhenliang.rabbitmq.sender.impl.RabbitmqSenderRetryListener;
 
 @MapperScan("xyz.zhenliang.rabbitmq.mapper")
@@ -37,4 +40,16 @@ public class RabbitMqConfiguration {
             }
         };
     }
+
+    /**
+     * 延迟重试模式下声明各延迟档位的重试交换机和重试队列
+     *
+     * @param rabbitmqDelayRetry 延迟重试
+     * @return 待声明的交换机、队列及绑定关系
+     */
+    @Bean
+    @ConditionalOnProperty(name = "mq.retry.mode", havingValue = RabbitmqDelayRetry.MODE_DELAY)
+    public Declarables rabbitmqDelayRetryDeclarables(RabbitmqDelayRetry rabbitmqDelayRetry) {
+        return new Declarables(rabbitmqDelayRetry.declarables());
+    }
 }
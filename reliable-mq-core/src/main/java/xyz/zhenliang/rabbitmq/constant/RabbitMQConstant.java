@@ -12,4 +12,24 @@ public class RabbitMQConstant {
      */
     public static final String BUSINESS_ID = "businessId";
 
+    /**
+     * 原始交换机键名，消费端据此认领消息而无需解析消息体（死信转发后收到的交换机会变化）
+     */
+    public static final String EXCHANGE = "exchange";
+
+    /**
+     * 原始路由键键名，消费端据此认领消息而无需解析消息体
+     */
+    public static final String ROUTING_KEY = "routingKey";
+
+    /**
+     * 人工重发标识键名，重发的消息需要重新消费，不使用消费端的已消费缓存
+     */
+    public static final String RESEND = "resend";
+
+    /**
+     * 已重试次数键名，延迟重试模式下每次投递到重试队列时写入
+     */
+    public static final String RETRY_COUNT = "retryCount";
+
 }
\ No newline at end of file
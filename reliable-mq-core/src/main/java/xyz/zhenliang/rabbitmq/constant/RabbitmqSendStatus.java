@@ -3,6 +3,15 @@ package xyz.zhenliang.rabbitmq.constant;
 /**
  * RabbitMQ消息发送状态枚举类
  * 用于标识消息在RabbitMQ中的发送状态
+ * <p>
+ * 状态迁移（每次迁移都是带状态条件的单条UPDATE）：
+ * <ul>
+ *     <li>落库：发送者保存的消息直接以SENDING新增</li>
+ *     <li>SENDING -&gt; SUCCESS：Broker确认成功，同时写入发送次数和确认时间</li>
+ *     <li>SENDING -&gt; FAILED：发送重试全部失败、Broker确认失败或无法路由</li>
+ *     <li>FAILED -&gt; SUCCESS：之前某次发送的确认迟到，以Broker确认为准</li>
+ *     <li>SUCCESS/FAILED -&gt; SENDING：重发消息</li>
+ * </ul>
  */
 public enum RabbitmqSendStatus {
     INIT(1, "初始"),
@@ -0,0 +1,244 @@
+package xyz.zhenliang.rabbitmq.consumer;
+
+import com.rabbitmq.client.Channel;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import xyz.zhenliang.rabbitmq.codec.RabbitmqCodecRegistry;
+import xyz.zhenliang.rabbitmq.constant.RabbitMQConstant;
+import xyz.zhenliang.rabbitmq.dto.ConsumeClaim;
+import xyz.zhenliang.rabbitmq.dto.RabbitmqMsgDTO;
+import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
+import xyz.zhenliang.rabbitmq.exception.ConsumeLeaseLostException;
+import xyz.zhenliang.rabbitmq.exception.TechException;
+import xyz.zhenliang.rabbitmq.rescue.retry.RabbitmqDelayRetry;
+import xyz.zhenliang.rabbitmq.rescue.retry.RabbitmqRetryManager;
+import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
+import xyz.zhenliang.rabbitmq.utils.MqSpringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RabbitMQ批量消息监听器抽象类
+ * 一次处理一批消息：整批消息用一条 WHERE id IN (...) 语句和一条多行INSERT认领消费权，
+ * 调用handleBatch处理认领成功的消息，批量更新消费状态，最后用 basicAck(lastTag, true) 一次确认整批消息
+ * 需配合批量监听容器使用（SimpleRabbitListenerContainerFactory的batchListener=true、consumerBatchEnabled=true、batchSize）
+ *
+ * @param <T> 消息数据的泛型类型
+ */
+public abstract class AbstractRabbitmqBatchListener<T> extends AbstractRabbitmqListener<T> {
+
+    /**
+     * 批量消息消费方法
+     * 处理一批RabbitMQ消息，包括消息解析、批量重复检查、批量业务处理、批量状态更新和批量确认
+     *
+     * @param messages RabbitMQ消息列表
+     * @param channel  RabbitMQ通道对象，用于手动确认消息
+     */
+    public void consumeBatch(List<Message> messages, Channel channel) {
+        if (messages == null || messages.isEmpty()) return;
+
+        // 获取重试管理器实例
+        RabbitmqRetryManager retryManager = MqSpringUtils.getBean(RabbitmqRetryManager.class);
+        // 获取消息服务实例
+        IRabbitmqMessageService rabbitmqMessageService = MqSpringUtils.getBean(IRabbitmqMessageService.class);
+        // 获取编解码器注册表实例
+        RabbitmqCodecRegistry codecRegistry = MqSpringUtils.getBean(RabbitmqCodecRegistry.class);
+        // 获取已消费缓存实例
+        RabbitmqConsumedCache consumedCache = MqSpringUtils.getBean(RabbitmqConsumedCache.class);
+        // 获取消费耗时统计实例
+        RabbitmqConsumeStats consumeStats = MqSpringUtils.getBean(RabbitmqConsumeStats.class);
+        // 获取消费租约心跳实例
+        RabbitmqConsumeLease consumeLease = MqSpringUtils.getBean(RabbitmqConsumeLease.class);
+        String queue = messages.get(0).getMessageProperties().getConsumerQueue();
+
+        // 获取延迟重试实例，延迟重试模式下逐条判断是否最后一次消费
+        RabbitmqDelayRetry delayRetry = MqSpringUtils.getBean(RabbitmqDelayRetry.class);
+
+        // 判断是否为最后一次重试
+        boolean retryLastFlag = retryManager.isLastConsume();
+
+        // 批量确认使用本批最大的deliveryTag
+        long lastTag = 0;
+        for (Message message : messages) {
+            lastTag = Math.max(lastTag, message.getMessageProperties().getDeliveryTag());
+        }
+
+        Map<String, RabbitmqMsgDTO<T>> msgDTOs = new LinkedHashMap<>();
+        Map<String, Message> amqpMessages = new LinkedHashMap<>();
+        List<RabbitmqMessage> claimMessages = new ArrayList<>(messages.size());
+        ConsumeClaim claim;
+        try {
+            for (Message message : messages) {
+                // 优先使用消息头认领，无需解析消息体；旧版本发送的消息没有这些消息头，先解析消息体
+                RabbitmqMsgDTO<T> msgDTO = null;
+                RabbitmqMessage claimMessage = toClaimMessage(message);
+                if (claimMessage == null) {
+                    msgDTO = codecRegistry.decode(message, this.getTypeReference().getType());
+                    claimMessage = toClaimMessage(message, msgDTO);
+                }
+                String messageId = claimMessage.getId();
+                // 本节点最近已消费成功的重复消息不查询数据库，随整批一起确认；人工重发的消息需重新消费
+                boolean resend = Boolean.TRUE.equals(message.getMessageProperties().getHeader(RabbitMQConstant.RESEND));
+                if (!resend && consumedCache.contains(messageId)) continue;
+                // 同一批中的重复消息只处理一次
+                if (amqpMessages.putIfAbsent(messageId, message) != null) continue;
+                msgDTOs.put(messageId, msgDTO);
+                claimMessages.add(claimMessage);
+            }
+            log.debug("Starting to process message batch, size: {}, to claim: {}", messages.size(), claimMessages.size());
+
+            // 批量检查消息是否已消费，避免重复处理
+            long claimStart = System.nanoTime();
+            claim = rabbitmqMessageService.claimMessageConsumeBatch(claimMessages);
+            consumeStats.getClaimRecorder(queue).recordSince(claimStart);
+        } catch (Exception e) {
+            // 解析失败或数据库异常，导致消息没有被保存到数据库中
+            log.error("Failed to save consume info of message batch, size: {}", messages.size(), e);
+            // 延迟重试模式下逐条处理：最后一次消费的放死信队列，其余投递到延迟重试队列
+            if (delayRetry.isEnabled()) {
+                for (Message message : messages) {
+                    MessageProperties properties = message.getMessageProperties();
+                    if (delayRetry.isLastAttempt(message)) {
+                        this.reject(channel, properties.getDeliveryTag(), properties.getMessageId());
+                        this.consumeFailedReminder(properties.getMessageId(),
+                                codecRegistry.toReadableString(properties.getContentType(), message.getBody()), e);
+                    } else {
+                        this.retryLater(channel, message, properties.getDeliveryTag(), properties.getMessageId(), e);
+                    }
+                }
+                return;
+            }
+            // 如果是最后一次重试，则整批放死信队列
+            if (retryLastFlag) {
+                this.rejectBatch(channel, lastTag);
+                for (Message message : messages) {
+                    this.consumeFailedReminder(message.getMessageProperties().getMessageId(),
+                            codecRegistry.toReadableString(message.getMessageProperties().getContentType(), message.getBody()), e);
+                }
+                return;
+            } else {
+                throw new TechException(e.getMessage(), e);
+            }
+        }
+
+        Set<String> claimedIds = claim.getMessageIds();
+        String owner = claim.getOwner();
+        List<RabbitmqMsgDTO<T>> batch = new ArrayList<>(claimedIds.size());
+        // 处理期间由心跳线程续约
+        consumeLease.holdAll(claimedIds, owner);
+        try {
+            // 认领成功后才解析消息体，按content-type选择编解码器
+            for (Map.Entry<String, RabbitmqMsgDTO<T>> entry : msgDTOs.entrySet()) {
+                if (!claimedIds.contains(entry.getKey())) continue;
+                RabbitmqMsgDTO<T> msgDTO = entry.getValue();
+                if (msgDTO == null) msgDTO = codecRegistry.decode(amqpMessages.get(entry.getKey()), this.getTypeReference().getType());
+                batch.add(msgDTO);
+            }
+            if (!batch.isEmpty()) {
+                // 调用消息处理器处理整批消息
+                long handleStart = System.nanoTime();
+                if (this.isTransactional()) {
+                    // 事务消费模式：整批业务写入与消费成功状态在同一事务中提交
+                    Set<String> ids = claimedIds;
+                    MqSpringUtils.getBean(RabbitmqConsumeTransaction.class).execute(() -> {
+                        this.handleBatch(batch);
+                        int updated = rabbitmqMessageService.updateOwnedConsumeSuccessByIds(ids, owner);
+                        if (updated < ids.size()) {
+                            throw new ConsumeLeaseLostException("Consume lease lost for " + (ids.size() - updated) + " of " + ids.size() + " messages");
+                        }
+                    });
+                    consumeStats.getHandleRecorder(queue).recordSince(handleStart);
+                } else {
+                    this.handleBatch(batch);
+                    consumeStats.getHandleRecorder(queue).recordSince(handleStart);
+
+                    // 批量更新消息消费状态为成功，租约已被其他消费者接管的消息由接管的消费者更新
+                    int updated = rabbitmqMessageService.updateConsumeSuccessByIds(claimedIds, owner);
+                    if (updated < claimedIds.size()) {
+                        log.warn("Consume lease lost for {} of {} messages before success was recorded", claimedIds.size() - updated, claimedIds.size());
+                    }
+                }
+                for (String messageId : claimedIds) consumedCache.put(messageId);
+                log.debug("Message batch processed successfully, size: {}", batch.size());
+            }
+            ackBatch(channel, lastTag);
+        } catch (Exception e) {
+            log.error("Failed to process message batch, size: {}", batch.size(), e);
+            // 批量更新消息消费状态为失败，只更新仍归本次认领的消息（租约被接管的消息由接管的消费者处理）
+            rabbitmqMessageService.updateConsumeFailByIds(claimedIds, owner, e.getMessage());
+            // 延迟重试模式下逐条处理：最后一次消费的发送提醒，其余投递到延迟重试队列，然后整批确认
+            if (delayRetry.isEnabled()) {
+                for (String messageId : claimedIds) {
+                    Message message = amqpMessages.get(messageId);
+                    if (delayRetry.isLastAttempt(message)) {
+                        this.consumeFailedReminder(messageId,
+                                codecRegistry.toReadableString(message.getMessageProperties().getContentType(), message.getBody()), e);
+                    } else {
+                        try {
+                            delayRetry.publish(channel, message);
+                        } catch (Exception ex) {
+                            log.error("Failed to schedule delayed retry, messageId: {}", messageId, ex);
+                            throw new TechException(ex.getMessage(), ex);
+                        }
+                    }
+                }
+                ackBatch(channel, lastTag);
+            } else if (retryLastFlag) {
+                for (String messageId : claimedIds) {
+                    Message message = amqpMessages.get(messageId);
+                    this.consumeFailedReminder(messageId,
+                            codecRegistry.toReadableString(message.getMessageProperties().getContentType(), message.getBody()), e);
+                }
+                ackBatch(channel, lastTag);
+            } else {
+                throw new TechException(e.getMessage(), e);
+            }
+        } finally {
+            consumeLease.releaseAll(claimedIds, owner);
+        }
+    }
+
+    /**
+     * 确认deliveryTag及之前的全部消息
+     *
+     * @param channel RabbitMQ通道对象
+     * @param lastTag 本批最大的deliveryTag
+     */
+    public void ackBatch(Channel channel, long lastTag) {
+        try {
+            channel.basicAck(lastTag, true);
+        } catch (Exception e) {
+            log.error("Failed to ack message batch, lastTag: {}", lastTag, e);
+        }
+    }
+
+    /**
+     * 拒绝deliveryTag及之前的全部消息，不重新入队
+     *
+     * @param channel RabbitMQ通道对象
+     * @param lastTag 本批最大的deliveryTag
+     */
+    public void rejectBatch(Channel channel, long lastTag) {
+        try {
+            channel.basicNack(lastTag, true, false);
+        } catch (Exception e) {
+            log.error("Failed to reject message batch, lastTag: {}", lastTag, e);
+        }
+    }
+
+    /**
+     * 处理一批消息DTO数据的钩子方法
+     * 子类重写此方法实现批量业务逻辑，抛出异常时整批消息按消费失败处理
+     *
+     * @param msgDTOs 认领成功的消息DTO列表，顺序与投递顺序一致
+     */
+    public void handleBatch(List<RabbitmqMsgDTO<T>> msgDTOs) {
+        for (RabbitmqMsgDTO<T> msgDTO : msgDTOs) {
+            this.handleData(msgDTO);
+        }
+    }
+}
@@ -5,14 +5,19 @@ import com.rabbitmq.client.Channel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import xyz.zhenliang.rabbitmq.codec.RabbitmqCodecRegistry;
+import xyz.zhenliang.rabbitmq.constant.RabbitMQConstant;
+import xyz.zhenliang.rabbitmq.dto.ConsumeClaim;
 import xyz.zhenliang.rabbitmq.dto.RabbitmqMsgDTO;
+import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
+import xyz.zhenliang.rabbitmq.exception.ConsumeLeaseLostException;
 import xyz.zhenliang.rabbitmq.exception.TechException;
+import xyz.zhenliang.rabbitmq.rescue.retry.RabbitmqDelayRetry;
 import xyz.zhenliang.rabbitmq.rescue.retry.RabbitmqRetryManager;
 import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
 import xyz.zhenliang.rabbitmq.service.impl.RabbitmqReminderService;
-import xyz.zhenliang.rabbitmq.utils.JsonUtils;
 import xyz.zhenliang.rabbitmq.utils.MqSpringUtils;
-import xyz.zhenliang.rabbitmq.utils.RabbitmqUtils;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
@@ -111,62 +116,211 @@ public abstract class AbstractRabbitmqListener<T> {
         long deliveryTag = message.getMessageProperties().getDeliveryTag();
 
         String messageId = null;
+        // 本次认领的认领标识，续约和消费状态更新都以此为条件
+        String owner = null;
         // 获取消息服务实例
         IRabbitmqMessageService rabbitmqMessageService = MqSpringUtils.getBean(IRabbitmqMessageService.class);
+        // 获取编解码器注册表实例
+        RabbitmqCodecRegistry codecRegistry = MqSpringUtils.getBean(RabbitmqCodecRegistry.class);
+        // 获取已消费缓存实例
+        RabbitmqConsumedCache consumedCache = MqSpringUtils.getBean(RabbitmqConsumedCache.class);
+        // 获取消费耗时统计实例
+        RabbitmqConsumeStats consumeStats = MqSpringUtils.getBean(RabbitmqConsumeStats.class);
+        // 获取消费租约心跳实例
+        RabbitmqConsumeLease consumeLease = MqSpringUtils.getBean(RabbitmqConsumeLease.class);
+        String queue = message.getMessageProperties().getConsumerQueue();
         RabbitmqMsgDTO<T> msgDTO = null;
-        String messageBody = null;
 
         // 判断是否为最后一次重试
-        boolean retryLastFlag = retryManager.isLastConsume();
+        boolean retryLastFlag = retryManager.isLastConsume(message);
 
         try {
-            // 解析消息内容为RabbitmqMsgDTO对象
-            msgDTO = RabbitmqUtils.getMessageData(message, this.getTypeReference());
-            messageId = msgDTO.getMessageId();
-            messageBody = JsonUtils.toJson(msgDTO);
+            // 优先使用消息头认领，无需解析消息体；旧版本发送的消息没有这些消息头，先解析消息体
+            RabbitmqMessage claimMessage = toClaimMessage(message);
+            if (claimMessage == null) {
+                msgDTO = codecRegistry.decode(message, this.getTypeReference().getType());
+                claimMessage = toClaimMessage(message, msgDTO);
+            }
+            messageId = claimMessage.getId();
             log.debug("Starting to process message, messageId: {}", messageId);
 
-            // 检查消息是否已消费，避免重复处理
-            if (rabbitmqMessageService.checkAndLockMessageConsume(msgDTO)) {
+            // 本节点最近已消费成功的重复消息直接确认，不查询数据库；人工重发的消息需重新消费
+            boolean resend = Boolean.TRUE.equals(message.getMessageProperties().getHeader(RabbitMQConstant.RESEND));
+            if (!resend && consumedCache.contains(messageId)) {
+                log.debug("Message already consumed (local cache), directly confirm, messageId: {}", messageId);
+                channel.basicAck(deliveryTag, false);
+                return;
+            }
+
+            // 检查消息是否已消费，避免重复处理；消息不存在时保存原始消息体
+            long claimStart = System.nanoTime();
+            ConsumeClaim claim = rabbitmqMessageService.claimMessageConsume(claimMessage);
+            consumeStats.getClaimRecorder(queue).recordSince(claimStart);
+            if (claim.getMessageIds().isEmpty()) {
                 log.debug("Message already consumed, directly confirm, messageId: {}", messageId);
                 channel.basicAck(deliveryTag, false);
                 return;
             }
+            // 处理期间由心跳线程续约，处理时间超过租约时长也不会被其他消费者认领
+            owner = claim.getOwner();
+            consumeLease.hold(messageId, owner);
         } catch (Exception e) {
             // 数据库异常，导致消息没有被保存到数据库中，则直接拒绝消息
             log.error("Failed to save consume info, messageId: {}", messageId, e);
             // 如果是最后一次重试，则放死信队列
             if (retryLastFlag) {
                 this.reject(channel, deliveryTag, messageId);
-                this.consumeFailedReminder(messageId, messageBody, e);
+                this.consumeFailedReminder(messageId, codecRegistry.toReadableString(message.getMessageProperties().getContentType(), message.getBody()), e);
+                return;
             } else {
-                throw new TechException(e.getMessage(), e);
+                // 延迟重试模式下已投递到重试队列并确认，不再继续处理；否则抛出异常由拦截器重试
+                this.retryLater(channel, message, deliveryTag, messageId, e);
+                return;
             }
         }
 
         try {
-            // 调用消息处理器处理消息
-            this.handleData(msgDTO);
+            // 认领成功后才解析消息体，按content-type选择编解码器
+            if (msgDTO == null) msgDTO = codecRegistry.decode(message, this.getTypeReference().getType());
+            long handleStart = System.nanoTime();
+            if (this.isTransactional()) {
+                // 事务消费模式：业务写入与消费成功状态在同一事务中提交
+                RabbitmqMsgDTO<T> data = msgDTO;
+                String id = messageId;
+                String claimOwner = owner;
+                MqSpringUtils.getBean(RabbitmqConsumeTransaction.class).execute(() -> {
+                    this.handleData(data);
+                    if (!rabbitmqMessageService.updateOwnedConsumeSuccessById(id, claimOwner)) {
+                        throw new ConsumeLeaseLostException("Consume lease lost, messageId: " + id);
+                    }
+                });
+                consumeStats.getHandleRecorder(queue).recordSince(handleStart);
+            } else {
+                // 调用消息处理器处理消息
+                this.handleData(msgDTO);
+                consumeStats.getHandleRecorder(queue).recordSince(handleStart);
 
-            // 更新消息消费状态为成功
-            rabbitmqMessageService.updateConsumeSuccessById(messageId);
+                // 更新消息消费状态为成功，租约已被其他消费者接管的消息由接管的消费者更新
+                if (!rabbitmqMessageService.updateConsumeSuccessById(messageId, owner)) {
+                    log.warn("Consume lease lost before success was recorded, messageId: {}", messageId);
+                }
+            }
+            consumedCache.put(messageId);
             log.debug("Message processed successfully, messageId: {}", messageId);
+            // 手动确认消息已消费，消费成功时无论第几次消费都确认
+            ack(channel, deliveryTag, messageId);
 
+        } catch (ConsumeLeaseLostException e) {
+            // 消息已被其他消费者接管，本次业务写入已回滚，由接管的消费者处理，不标记失败
+            log.warn("Consume lease lost, rolled back, messageId: {}", messageId);
+            ack(channel, deliveryTag, messageId);
         } catch (Exception e) {
             log.error("Failed to process message, messageId: {}", messageId, e);
             // 更新消息消费状态为失败
-            if (messageId != null) rabbitmqMessageService.updateConsumeFailById(messageId, e.getMessage());
+            if (messageId != null) rabbitmqMessageService.updateConsumeFailById(messageId, owner, e.getMessage());
+            // 是否最后一次消费只决定失败后的处理：最后一次发送提醒并确认，否则安排重试
             if (retryLastFlag) {
-                this.consumeFailedReminder(messageId, messageBody, e);
+                try {
+                    this.consumeFailedReminder(messageId, codecRegistry.toReadableString(message.getMessageProperties().getContentType(), message.getBody()), e);
+                } finally {
+                    ack(channel, deliveryTag, messageId);
+                }
             } else {
-                throw new TechException(e.getMessage(), e);
+                this.retryLater(channel, message, deliveryTag, messageId, e);
             }
         } finally {
-            // 手动确认消息已消费
-            if (retryLastFlag) ack(channel, deliveryTag, messageId);
+            consumeLease.release(messageId, owner);
         }
     }
 
+    /**
+     * 按业务ID有序的并行消费方法
+     * 按消息头中的业务ID将消息分发到对应的单线程通道执行consume，同一业务ID的消息按投递顺序处理，不同业务ID并行处理；
+     * 监听方法立即返回，消费线程继续接收下一条消息。消费重试在通道内按spring.rabbitmq.listener.simple.retry配置执行，
+     * 重试期间同通道的后续消息等待，保证同一业务ID不乱序。队列只能有一个消费者（concurrency=1），并行度由mq.ordered.lanes和prefetch决定
+     *
+     * @param message RabbitMQ消息对象
+     * @param channel RabbitMQ通道对象，用于手动确认消息
+     */
+    public void consumeOrdered(Message message, Channel channel) {
+        RabbitmqOrderedDispatcher dispatcher = MqSpringUtils.getBean(RabbitmqOrderedDispatcher.class);
+        RabbitmqRetryManager retryManager = MqSpringUtils.getBean(RabbitmqRetryManager.class);
+        MessageProperties properties = message.getMessageProperties();
+        Object businessId = properties.getHeader(RabbitMQConstant.BUSINESS_ID);
+        String key = businessId != null ? businessId.toString() : properties.getMessageId();
+        dispatcher.markOrderedQueue(properties.getConsumerQueue());
+        // 通道线程经由跟踪器串行使用Channel，确认按通道内的投递顺序发出
+        RabbitmqOrderedAckTracker tracker = dispatcher.trackerOf(channel);
+        long deliveryTag = properties.getDeliveryTag();
+        tracker.dispatched(dispatcher.laneOf(key), deliveryTag);
+        dispatcher.dispatch(key, () -> {
+            try {
+                retryManager.getConsumeRetryTemplate().execute(context -> {
+                    this.consume(message, tracker.getChannel());
+                    return null;
+                });
+            } catch (Exception e) {
+                // 最后一次消费失败已在consume中确认或拒绝，这里只会是确认本身失败，消息未确认会被重新投递
+                log.error("Failed to consume message in ordered lane, messageId: {}", properties.getMessageId(), e);
+            } finally {
+                try {
+                    tracker.completed(deliveryTag);
+                } catch (Exception e) {
+                    log.error("Failed to ack messages in ordered lane, messageId: {}", properties.getMessageId(), e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 是否使用事务消费模式：业务处理与标记消费成功在同一个本地事务中提交
+     * 默认取mq.consume.transactional配置，子类可重写单独开启或关闭
+     *
+     * @return boolean 是否使用事务消费模式
+     */
+    protected boolean isTransactional() {
+        return MqSpringUtils.getBean(RabbitmqConsumeTransaction.class).isEnabled();
+    }
+
+    /**
+     * 根据消息头构造认领消费权使用的消息实体，消息体为原始字节，不解析
+     *
+     * @param message RabbitMQ消息对象
+     * @return 消息实体，消息头不完整（如旧版本发送的消息）时返回null
+     */
+    protected RabbitmqMessage toClaimMessage(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        Object exchange = properties.getHeader(RabbitMQConstant.EXCHANGE);
+        Object routingKey = properties.getHeader(RabbitMQConstant.ROUTING_KEY);
+        if (properties.getMessageId() == null || exchange == null || routingKey == null) return null;
+        Object businessId = properties.getHeader(RabbitMQConstant.BUSINESS_ID);
+
+        RabbitmqMessage claimMessage = new RabbitmqMessage();
+        claimMessage.setId(properties.getMessageId());
+        claimMessage.setBusinessId(businessId == null ? null : businessId.toString());
+        claimMessage.setExchange(exchange.toString());
+        claimMessage.setRoutingKey(routingKey.toString());
+        claimMessage.setMessageBody(message.getBody());
+        return claimMessage;
+    }
+
+    /**
+     * 根据已解析的消息DTO构造认领消费权使用的消息实体，消息体为原始字节
+     *
+     * @param message RabbitMQ消息对象
+     * @param msgDTO  消息DTO对象
+     * @return 消息实体
+     */
+    protected RabbitmqMessage toClaimMessage(Message message, RabbitmqMsgDTO<T> msgDTO) {
+        RabbitmqMessage claimMessage = new RabbitmqMessage();
+        claimMessage.setId(msgDTO.getMessageId());
+        claimMessage.setBusinessId(msgDTO.getBusinessId());
+        claimMessage.setExchange(msgDTO.getExchange());
+        claimMessage.setRoutingKey(msgDTO.getRoutingKey());
+        claimMessage.setMessageBody(message.getBody());
+        return claimMessage;
+    }
+
     /**
      * 确认消息已消费
      *
@@ -202,6 +356,28 @@ public abstract class AbstractRabbitmqListener<T> {
         }
     }
 
+    /**
+     * 非最后一次消费失败后安排重试
+     * 延迟重试模式下投递到延迟重试队列并确认原消息，消费线程立即释放；否则抛出异常，由重试拦截器在消费线程内退避重试
+     *
+     * @param channel     RabbitMQ通道
+     * @param message     RabbitMQ消息对象
+     * @param deliveryTag 消息投递标签
+     * @param messageId   消息ID
+     * @param e           消费失败的异常
+     */
+    public void retryLater(Channel channel, Message message, long deliveryTag, String messageId, Exception e) {
+        RabbitmqDelayRetry delayRetry = MqSpringUtils.getBean(RabbitmqDelayRetry.class);
+        if (!delayRetry.isEnabled()) throw new TechException(e.getMessage(), e);
+        try {
+            delayRetry.publish(channel, message);
+            channel.basicAck(deliveryTag, false);
+        } catch (Exception ex) {
+            log.error("Failed to schedule delayed retry, messageId: {}", messageId, ex);
+            throw new TechException(ex.getMessage(), ex);
+        }
+    }
+
     /**
      * 处理消息DTO数据的钩子方法
      * 子类可以重写此方法来实现具体的业务逻辑
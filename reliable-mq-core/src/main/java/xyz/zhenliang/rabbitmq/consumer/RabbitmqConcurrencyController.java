@@ -0,0 +1,287 @@
+package xyz.zhenliang.rabbitmq.consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.metrics.LatencyRecorder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消费并发与预取自适应控制器
+ * 定时观察每个监听容器的队列积压、数据库认领耗时和业务处理耗时，按AIMD（加性增、乘性减）策略在配置范围内调整消费者数和prefetch：
+ * <ul>
+ *     <li>认领或处理平均耗时超过阈值（数据库或下游过载）：消费者数和prefetch减半</li>
+ *     <li>队列积压超过当前在途容量（消费者数×prefetch）：消费者数加1，prefetch加固定步长</li>
+ *     <li>队列为空且本周期没有消费：消费者数减1，空闲时逐步回落，减少数据库连接占用</li>
+ * </ul>
+ * 控制器接管容器的消费者数（同时设置concurrency和max-concurrency，不再使用容器自身的扩缩容）；
+ * prefetch只对之后新启动的消费者生效，已运行的消费者保持原值。
+ * 只管理mq.adaptive.queues中列出的队列的SimpleMessageListenerContainer，未配置时不调整任何容器；
+ * 使用consumeOrdered的队列必须保持单消费者，收到有序消费的消息后即使列在mq.adaptive.queues中也不再调整，已调整过的恢复为单消费者。
+ * 调整在框架自己的调度线程中执行，不依赖也不开启应用的@EnableScheduling。
+ * 通过 mq.adaptive.enabled=true 开启
+ */
+@Component
+@ConditionalOnProperty(name = "mq.adaptive.enabled", havingValue = "true")
+public class RabbitmqConcurrencyController implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(RabbitmqConcurrencyController.class);
+
+    /**
+     * 受控的队列，为空时不控制任何监听容器
+     */
+    @Value("${mq.adaptive.queues:}")
+    private String[] queues = new String[0];
+
+    /**
+     * 调整间隔（毫秒），默认5000ms
+     */
+    @Value("${mq.adaptive.interval-millis:5000}")
+    private long intervalMillis = 5000;
+
+    /**
+     * 最小消费者数，默认1
+     */
+    @Value("${mq.adaptive.min-consumers:1}")
+    private int minConsumers = 1;
+
+    /**
+     * 最大消费者数，默认10
+     */
+    @Value("${mq.adaptive.max-consumers:10}")
+    private int maxConsumers = 10;
+
+    /**
+     * 最小prefetch，默认10
+     */
+    @Value("${mq.adaptive.min-prefetch:10}")
+    private int minPrefetch = 10;
+
+    /**
+     * 最大prefetch，默认250
+     */
+    @Value("${mq.adaptive.max-prefetch:250}")
+    private int maxPrefetch = 250;
+
+    /**
+     * prefetch每次增加的步长，默认10
+     */
+    @Value("${mq.adaptive.prefetch-step:10}")
+    private int prefetchStep = 10;
+
+    /**
+     * 数据库认领平均耗时阈值（毫秒），超过视为数据库过载，默认50ms，0为不检查
+     */
+    @Value("${mq.adaptive.max-claim-millis:50}")
+    private long maxClaimMillis = 50;
+
+    /**
+     * 业务处理平均耗时阈值（毫秒），超过视为下游过载，默认0，即不检查
+     */
+    @Value("${mq.adaptive.max-handle-millis:0}")
+    private long maxHandleMillis = 0;
+
+    @Autowired
+    private RabbitListenerEndpointRegistry endpointRegistry;
+
+    @Autowired
+    private AmqpAdmin amqpAdmin;
+
+    @Autowired
+    private RabbitProperties rabbitProperties;
+
+    @Autowired
+    private RabbitmqConsumeStats consumeStats;
+
+    @Autowired
+    private RabbitmqOrderedDispatcher orderedDispatcher;
+
+    /**
+     * 各容器当前的控制状态，只在调度线程中访问
+     */
+    private final Map<SimpleMessageListenerContainer, State> states = new HashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean running = false;
+
+    /**
+     * 调整消费者数和prefetch，由调度线程按mq.adaptive.interval-millis间隔调用
+     */
+    public void adjust() {
+        List<String> managed = Arrays.asList(queues);
+        for (MessageListenerContainer container : endpointRegistry.getListenerContainers()) {
+            if (!(container instanceof SimpleMessageListenerContainer simple) || !container.isRunning()) continue;
+            String[] queueNames = simple.getQueueNames();
+            if (Arrays.stream(queueNames).noneMatch(managed::contains)) continue;
+            if (Arrays.stream(queueNames).anyMatch(orderedDispatcher::isOrderedQueue)) {
+                release(simple, queueNames);
+                continue;
+            }
+            try {
+                adjust(simple, queueNames);
+            } catch (Exception e) {
+                log.error("Failed to adjust listener concurrency, queues: {}", Arrays.toString(queueNames), e);
+            }
+        }
+    }
+
+    /**
+     * 停止调整有序消费的容器，已调整过的恢复为单消费者
+     *
+     * @param container  监听容器
+     * @param queueNames 容器监听的队列
+     */
+    private void release(SimpleMessageListenerContainer container, String[] queueNames) {
+        State state = states.remove(container);
+        if (state == null) return;
+        log.warn("Listener {} consumes ordered messages, stop adjusting and restore to a single consumer", Arrays.toString(queueNames));
+        apply(container, state.consumers, 1, state.prefetch);
+    }
+
+    /**
+     * 调整一个容器的消费者数和prefetch
+     *
+     * @param container  监听容器
+     * @param queueNames 容器监听的队列
+     */
+    private void adjust(SimpleMessageListenerContainer container, String[] queueNames) {
+        State state = states.get(container);
+        if (state == null) {
+            Integer prefetch = rabbitProperties.getListener().getSimple().getPrefetch();
+            state = new State();
+            state.consumers = clamp(container.getActiveConsumerCount(), minConsumers, maxConsumers);
+            state.prefetch = clamp(prefetch != null ? prefetch : SimpleMessageListenerContainer.DEFAULT_PREFETCH_COUNT, minPrefetch, maxPrefetch);
+            states.put(container, state);
+            apply(container, container.getActiveConsumerCount(), state.consumers, state.prefetch);
+        }
+
+        long depth = 0;
+        long claimCount = 0, claimNanos = 0, handleCount = 0, handleNanos = 0;
+        for (String queue : queueNames) {
+            QueueInformation info = amqpAdmin.getQueueInfo(queue);
+            if (info != null) depth += info.getMessageCount();
+            LatencyRecorder claim = consumeStats.getClaimRecorder(queue);
+            LatencyRecorder handle = consumeStats.getHandleRecorder(queue);
+            claimCount += claim.getCount();
+            claimNanos += claim.getTotalNanos();
+            handleCount += handle.getCount();
+            handleNanos += handle.getTotalNanos();
+        }
+        // 按本周期的增量计算平均耗时
+        long windowClaims = claimCount - state.claimCount;
+        double claimMillis = windowClaims > 0 ? (double) (claimNanos - state.claimNanos) / windowClaims / TimeUnit.MILLISECONDS.toNanos(1) : 0;
+        long windowHandles = handleCount - state.handleCount;
+        double handleMillis = windowHandles > 0 ? (double) (handleNanos - state.handleNanos) / windowHandles / TimeUnit.MILLISECONDS.toNanos(1) : 0;
+        state.claimCount = claimCount;
+        state.claimNanos = claimNanos;
+        state.handleCount = handleCount;
+        state.handleNanos = handleNanos;
+
+        int consumers = state.consumers;
+        int prefetch = state.prefetch;
+        boolean overloaded = (maxClaimMillis > 0 && claimMillis > maxClaimMillis)
+                || (maxHandleMillis > 0 && handleMillis > maxHandleMillis);
+        if (overloaded) {
+            consumers = Math.max(minConsumers, consumers / 2);
+            prefetch = Math.max(minPrefetch, prefetch / 2);
+        } else if (depth > (long) consumers * prefetch) {
+            consumers = Math.min(maxConsumers, consumers + 1);
+            prefetch = Math.min(maxPrefetch, prefetch + prefetchStep);
+        } else if (depth == 0 && windowClaims == 0) {
+            consumers = Math.max(minConsumers, consumers - 1);
+        }
+        if (consumers == state.consumers && prefetch == state.prefetch) return;
+
+        log.info("Adjust listener {}: consumers {} -> {}, prefetch {} -> {} (depth: {}, claim: {}ms, handle: {}ms)",
+                Arrays.toString(queueNames), state.consumers, consumers, state.prefetch, prefetch,
+                depth, String.format("%.1f", claimMillis), String.format("%.1f", handleMillis));
+        apply(container, state.consumers, consumers, prefetch);
+        state.consumers = consumers;
+        state.prefetch = prefetch;
+    }
+
+    /**
+     * 设置容器的消费者数和prefetch
+     * 容器要求concurrency不大于max-concurrency，增加时先调max-concurrency，减少时先调concurrency
+     *
+     * @param container 监听容器
+     * @param current   当前消费者数
+     * @param consumers 目标消费者数
+     * @param prefetch  目标prefetch
+     */
+    private void apply(SimpleMessageListenerContainer container, int current, int consumers, int prefetch) {
+        container.setPrefetchCount(prefetch);
+        if (consumers > current) {
+            container.setMaxConcurrentConsumers(consumers);
+            container.setConcurrentConsumers(consumers);
+        } else {
+            container.setConcurrentConsumers(consumers);
+            container.setMaxConcurrentConsumers(consumers);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (queues.length == 0) {
+            log.warn("Adaptive concurrency is enabled but mq.adaptive.queues is empty, no listener will be adjusted");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rabbitmq-adaptive-concurrency");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                adjust();
+            } catch (Exception e) {
+                // 异常会终止后续调度，这里只记录
+                log.error("Failed to adjust listener concurrency", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * 容器的控制状态及上一周期的耗时累计值
+     */
+    private static class State {
+        private int consumers;
+        private int prefetch;
+        private long claimCount;
+        private long claimNanos;
+        private long handleCount;
+        private long handleNanos;
+    }
+}
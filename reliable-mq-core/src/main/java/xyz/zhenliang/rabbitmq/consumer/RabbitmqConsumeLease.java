@@ -0,0 +1,215 @@
+package xyz.zhenliang.rabbitmq.consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.dto.ConsumeClaim;
+import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消费租约心跳
+ * 认领消费权时数据库记录本节点标识和租约到期时间（当前时间加mq.maxConsumeTimeoutMillis），租约到期前其他消费者不可认领；
+ * 本节点正在处理的消息按（消息ID，认领标识）登记在这里，心跳线程定时找出租约剩余不足一半的消息，按批用一条 WHERE (id, consume_owner) IN (...) 语句续约。
+ * 处理时间短的消息在第一次心跳前就已完成，不产生额外的数据库访问；处理时间长的消息持续续约，不会被其他消费者重复处理；
+ * 消费者宕机后不再续约，消息在租约到期后即可被重新认领，因此租约时长可以设置得较短。
+ */
+@Component
+public class RabbitmqConsumeLease implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(RabbitmqConsumeLease.class);
+
+    @Autowired
+    private IRabbitmqMessageService rabbitmqMessageService;
+
+    /**
+     * 是否开启心跳续约，默认true
+     */
+    @Value("${mq.consume.heartbeat-enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 租约时长（毫秒），与认领时设置的租约一致，默认3000ms
+     */
+    @Value("${mq.maxConsumeTimeoutMillis:3000}")
+    private long leaseMillis = 3000;
+
+    /**
+     * 心跳间隔（毫秒），应小于租约时长的一半，默认1000ms
+     */
+    @Value("${mq.consume.heartbeat-millis:1000}")
+    private long heartbeatMillis = 1000;
+
+    /**
+     * 每条续约语句最多包含的消息数，默认500
+     */
+    @Value("${mq.consume.renew-batch-size:500}")
+    private int renewBatchSize = 500;
+
+    /**
+     * 本节点正在处理的消息认领及其租约到期时间（毫秒时间戳）
+     * 同一条消息可能被本节点的两个消费线程先后认领（前一次租约已到期），按认领标识区分，结束时只移除自己的登记
+     */
+    private final Map<Claim, Long> held = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean running = false;
+
+    /**
+     * 登记认领成功、开始处理的消息
+     *
+     * @param messageId 消息ID
+     * @param owner     认领标识
+     */
+    public void hold(String messageId, String owner) {
+        if (!enabled || messageId == null) return;
+        held.put(new Claim(messageId, owner), System.currentTimeMillis() + leaseMillis);
+    }
+
+    /**
+     * 批量登记认领成功、开始处理的消息
+     *
+     * @param messageIds 消息ID集合
+     * @param owner      认领标识
+     */
+    public void holdAll(Collection<String> messageIds, String owner) {
+        if (!enabled || messageIds == null) return;
+        long leaseUntil = System.currentTimeMillis() + leaseMillis;
+        for (String messageId : messageIds) held.put(new Claim(messageId, owner), leaseUntil);
+    }
+
+    /**
+     * 消息处理结束（成功或失败），不再续约
+     *
+     * @param messageId 消息ID
+     * @param owner     认领标识
+     */
+    public void release(String messageId, String owner) {
+        if (messageId != null) held.remove(new Claim(messageId, owner));
+    }
+
+    /**
+     * 批量结束消息处理，不再续约
+     *
+     * @param messageIds 消息ID集合
+     * @param owner      认领标识
+     */
+    public void releaseAll(Collection<String> messageIds, String owner) {
+        if (messageIds == null) return;
+        for (String messageId : messageIds) held.remove(new Claim(messageId, owner));
+    }
+
+    /**
+     * 获取本节点正在处理的消息数
+     *
+     * @return 消息数
+     */
+    public int getHeldCount() {
+        return held.size();
+    }
+
+    /**
+     * 续约租约剩余不足一半的消息
+     */
+    private void renew() {
+        long now = System.currentTimeMillis();
+        List<Claim> due = new ArrayList<>();
+        for (Map.Entry<Claim, Long> entry : held.entrySet()) {
+            if (entry.getValue() - now <= leaseMillis / 2) due.add(entry.getKey());
+        }
+        for (int from = 0; from < due.size(); from += renewBatchSize) {
+            List<Claim> batch = due.subList(from, Math.min(from + renewBatchSize, due.size()));
+            Map<String, Set<String>> byOwner = new LinkedHashMap<>();
+            for (Claim claim : batch) {
+                byOwner.computeIfAbsent(claim.owner, k -> new LinkedHashSet<>()).add(claim.messageId);
+            }
+            List<ConsumeClaim> claims = new ArrayList<>();
+            byOwner.forEach((owner, messageIds) -> claims.add(new ConsumeClaim(owner, messageIds)));
+            long leaseUntil = System.currentTimeMillis() + leaseMillis;
+            try {
+                int renewed = rabbitmqMessageService.renewConsumeLease(claims);
+                if (renewed < batch.size()) {
+                    log.warn("Consume lease lost for {} of {} messages, they may be consumed by another node", batch.size() - renewed, batch.size());
+                }
+            } catch (Exception e) {
+                log.error("Failed to renew consume lease, size: {}", batch.size(), e);
+                continue;
+            }
+            // 只更新仍在处理中的消息，避免把刚结束的消息重新放回
+            for (Claim claim : batch) held.computeIfPresent(claim, (k, v) -> leaseUntil);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "rabbitmq-consume-lease");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::renew, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 在有序分发器（阶段200）之后停止，通道中仍在处理的消息停机期间继续续约
+     */
+    @Override
+    public int getPhase() {
+        return 150;
+    }
+
+    /**
+     * 一次认领中的一条消息
+     */
+    private static final class Claim {
+        private final String messageId;
+        private final String owner;
+
+        private Claim(String messageId, String owner) {
+            this.messageId = messageId;
+            this.owner = owner;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Claim)) return false;
+            Claim claim = (Claim) o;
+            return messageId.equals(claim.messageId) && Objects.equals(owner, claim.owner);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * messageId.hashCode() + Objects.hashCode(owner);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package xyz.zhenliang.rabbitmq.consumer;
+
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.metrics.LatencyRecorder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 消费耗时统计
+ * 按消费队列分别累计数据库认领耗时和业务处理耗时，供并发自适应控制器按时间窗口计算平均值
+ */
+@Component
+public class RabbitmqConsumeStats {
+    private final Map<String, LatencyRecorder> claimRecorders = new ConcurrentHashMap<>();
+    private final Map<String, LatencyRecorder> handleRecorders = new ConcurrentHashMap<>();
+
+    /**
+     * 获取队列的数据库认领耗时统计器
+     *
+     * @param queue 消费队列名
+     * @return 耗时统计器
+     */
+    public LatencyRecorder getClaimRecorder(String queue) {
+        return claimRecorders.computeIfAbsent(queue == null ? "" : queue, k -> new LatencyRecorder());
+    }
+
+    /**
+     * 获取队列的业务处理耗时统计器
+     *
+     * @param queue 消费队列名
+     * @return 耗时统计器
+     */
+    public LatencyRecorder getHandleRecorder(String queue) {
+        return handleRecorders.computeIfAbsent(queue == null ? "" : queue, k -> new LatencyRecorder());
+    }
+}
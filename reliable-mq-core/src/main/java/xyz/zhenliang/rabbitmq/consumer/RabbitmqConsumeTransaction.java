@@ -0,0 +1,46 @@
+package xyz.zhenliang.rabbitmq.consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 事务消费模式
+ * 业务处理与标记消费成功在同一个本地事务中提交：业务表与rabbitmq_message在同一数据库时，业务写入和消费成功状态要么都提交、要么都回滚，
+ * 每条消息少一次单独的状态更新提交，重复投递时数据库中的消费成功状态与业务写入始终一致（effectively-once）。
+ * 通过 mq.consume.transactional=true 开启，也可在监听器中重写isTransactional单独开启
+ */
+@Component
+public class RabbitmqConsumeTransaction {
+    /**
+     * 是否开启事务消费模式，默认false
+     */
+    @Value("${mq.consume.transactional:false}")
+    private boolean enabled = false;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile TransactionTemplate transactionTemplate;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 在一个新的本地事务中执行，任务抛出异常时回滚
+     *
+     * @param task 任务
+     */
+    public void execute(Runnable task) {
+        TransactionTemplate template = transactionTemplate;
+        if (template == null) {
+            template = new TransactionTemplate(transactionManager);
+            template.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+            transactionTemplate = template;
+        }
+        template.executeWithoutResult(status -> task.run());
+    }
+}
@@ -0,0 +1,127 @@
+package xyz.zhenliang.rabbitmq.consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本节点最近消费成功的消息ID缓存
+ * 重复投递（如Broker故障切换后的大量重投）在查询数据库之前先查本地缓存，命中则直接确认，未命中再由数据库判断，
+ * 缓存只用来减少数据库访问，数据库仍是消费状态的依据
+ * 按容量和存活时间淘汰：分段的插入顺序LinkedHashMap，超出每段容量时淘汰最早的条目，过期条目在访问时清理
+ * 通过 mq.consumed-cache.enabled=true 开启
+ */
+@Component
+public class RabbitmqConsumedCache {
+    private static final int SEGMENTS = 16;
+
+    /**
+     * 是否开启，默认false
+     */
+    @Value("${mq.consumed-cache.enabled:false}")
+    private boolean enabled = false;
+
+    /**
+     * 最大缓存条数，默认100000
+     */
+    @Value("${mq.consumed-cache.max-size:100000}")
+    private int maxSize = 100000;
+
+    /**
+     * 缓存存活时间（毫秒），默认600000ms
+     */
+    @Value("${mq.consumed-cache.ttl-millis:600000}")
+    private long ttlMillis = 600000;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public RabbitmqConsumedCache() {
+        for (int i = 0; i < SEGMENTS; i++) segments[i] = new Segment();
+    }
+
+    /**
+     * 判断消息是否最近在本节点消费成功
+     *
+     * @param messageId 消息ID
+     * @return true-缓存命中，消息已消费成功；false-未命中，需由数据库判断
+     */
+    public boolean contains(String messageId) {
+        if (!enabled || messageId == null) return false;
+        boolean hit = segmentFor(messageId).contains(messageId, System.currentTimeMillis());
+        if (hit) hits.increment();
+        else misses.increment();
+        return hit;
+    }
+
+    /**
+     * 记录消费成功的消息ID
+     *
+     * @param messageId 消息ID
+     */
+    public void put(String messageId) {
+        if (!enabled || messageId == null) return;
+        segmentFor(messageId).put(messageId, System.currentTimeMillis() + ttlMillis, Math.max(1, maxSize / SEGMENTS));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int getSize() {
+        int size = 0;
+        for (Segment segment : segments) size += segment.size();
+        return size;
+    }
+
+    private Segment segmentFor(String messageId) {
+        int h = messageId.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * 缓存分段，条目按插入顺序排列，最早插入的最先过期
+     */
+    private static final class Segment {
+        private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>();
+
+        synchronized boolean contains(String messageId, long now) {
+            expire(now);
+            return entries.containsKey(messageId);
+        }
+
+        synchronized void put(String messageId, long expireAt, int capacity) {
+            entries.remove(messageId);
+            entries.put(messageId, expireAt);
+            if (entries.size() > capacity) {
+                Iterator<String> it = entries.keySet().iterator();
+                it.next();
+                it.remove();
+            }
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private void expire(long now) {
+            Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+            while (it.hasNext() && it.next().getValue() <= now) {
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package xyz.zhenliang.rabbitmq.consumer;
+
+import com.rabbitmq.client.Channel;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 有序消费的确认跟踪器，每个监听容器通道（Channel）一个
+ * 各通道（lane）线程不直接使用容器的Channel，而是使用本跟踪器提供的串行化Channel：确认、拒绝和延迟重试的发布等所有调用
+ * 在同一把锁内执行，多个lane线程不会并发写同一个Channel。
+ * 分发时按lane登记deliveryTag，lane线程确认或拒绝消息时只记录结果，按lane内的投递顺序发出：
+ * 一条消息只有在同lane中比它早投递的消息都已处理完成（确认、拒绝，或处理结束未确认）后才会被确认。
+ * 处理结束仍未确认的消息（如确认本身失败）不再阻塞同lane的后续消息，由Broker在通道关闭后重新投递。
+ */
+public class RabbitmqOrderedAckTracker {
+
+    private final Channel channel;
+
+    private final Channel serialized;
+
+    private final Object lock = new Object();
+
+    /**
+     * 各lane已分发、尚未发出确认的消息，按投递顺序排列，只在持有lock时访问
+     */
+    private final Map<Integer, ArrayDeque<Pending>> lanes = new HashMap<>();
+
+    /**
+     * deliveryTag到待确认消息的索引，只在持有lock时访问
+     */
+    private final Map<Long, Pending> pending = new HashMap<>();
+
+    public RabbitmqOrderedAckTracker(Channel channel) {
+        this.channel = channel;
+        this.serialized = (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class},
+                (proxy, method, args) -> invoke(method, args));
+    }
+
+    /**
+     * 登记分发到lane的消息，由监听容器线程在分发前调用
+     *
+     * @param lane        lane下标
+     * @param deliveryTag 消息的deliveryTag
+     */
+    public void dispatched(int lane, long deliveryTag) {
+        synchronized (lock) {
+            Pending entry = new Pending(lane, deliveryTag);
+            lanes.computeIfAbsent(lane, k -> new ArrayDeque<>()).addLast(entry);
+            pending.put(deliveryTag, entry);
+        }
+    }
+
+    /**
+     * lane处理完一条消息，按顺序发出同lane中已可发出的确认
+     *
+     * @param deliveryTag 消息的deliveryTag
+     * @throws Exception 发出确认失败
+     */
+    public void completed(long deliveryTag) throws Exception {
+        synchronized (lock) {
+            Pending entry = pending.get(deliveryTag);
+            if (entry == null) return;
+            entry.completed = true;
+            flush(entry.lane);
+        }
+    }
+
+    /**
+     * 获取串行化的Channel，lane线程通过它确认消息和发布延迟重试消息
+     *
+     * @return 串行化的Channel
+     */
+    public Channel getChannel() {
+        return serialized;
+    }
+
+    /**
+     * 获取已分发、尚未发出确认的消息数
+     *
+     * @return 消息数
+     */
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    private Object invoke(Method method, Object[] args) throws Throwable {
+        synchronized (lock) {
+            Pending entry = settlement(method, args);
+            if (entry != null) {
+                entry.method = method;
+                entry.args = args;
+                flush(entry.lane);
+                return null;
+            }
+            try {
+                return method.invoke(channel, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * 判断调用是否为对已登记消息的单条确认或拒绝
+     *
+     * @return 对应的待确认消息，其他调用（包括multiple确认）返回null，直接执行
+     */
+    private Pending settlement(Method method, Object[] args) {
+        String name = method.getName();
+        boolean single = switch (name) {
+            case "basicAck" -> args.length == 2 && !(Boolean) args[1];
+            case "basicNack" -> args.length == 3 && !(Boolean) args[1];
+            case "basicReject" -> args.length == 2;
+            default -> false;
+        };
+        if (!single) return null;
+        Pending entry = pending.get((Long) args[0]);
+        return entry != null && entry.method == null ? entry : null;
+    }
+
+    /**
+     * 从lane头部开始依次发出已确认或已处理完成的消息，遇到仍在处理中的消息停止
+     */
+    private void flush(int lane) throws Exception {
+        ArrayDeque<Pending> queue = lanes.get(lane);
+        while (queue != null && !queue.isEmpty()) {
+            Pending head = queue.peekFirst();
+            if (head.method == null && !head.completed) return;
+            queue.pollFirst();
+            pending.remove(head.deliveryTag);
+            if (head.method != null) {
+                try {
+                    head.method.invoke(channel, head.args);
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof Exception cause) throw cause;
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 已分发、尚未发出确认的消息
+     */
+    private static final class Pending {
+        private final int lane;
+        private final long deliveryTag;
+        /**
+         * 记录的确认或拒绝调用，未确认时为null
+         */
+        private Method method;
+        private Object[] args;
+        private boolean completed;
+
+        private Pending(int lane, long deliveryTag) {
+            this.lane = lane;
+            this.deliveryTag = deliveryTag;
+        }
+    }
+}
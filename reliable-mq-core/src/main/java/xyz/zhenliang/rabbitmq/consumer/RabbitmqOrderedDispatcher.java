@@ -0,0 +1,198 @@
+package xyz.zhenliang.rabbitmq.consumer;
+
+import com.rabbitmq.client.Channel;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按业务键有序的并行消费分发器
+ * 按业务键哈希到固定数量的单线程通道（lane），同一业务键的消息总在同一通道内按投递顺序串行处理，不同业务键在多个通道间并行处理。
+ * 每个通道串行执行，消息处理完（含确认）后才处理通道内的下一条，因此一条消息被确认时，同通道中比它早投递的消息都已处理完成。
+ * 通道队列不设上限，积压由监听容器的prefetch限制（最多prefetch×消费者数条未确认消息）。
+ * 通道线程通过监听容器Channel对应的RabbitmqOrderedAckTracker确认消息和发布延迟重试消息，不并发使用同一个Channel。
+ * 队列的消费者必须只有一个（concurrency=1），多个消费者会把同一业务键的消息分给不同消费者，无法保证顺序；并行度通过通道数和prefetch提升。
+ */
+@Component
+public class RabbitmqOrderedDispatcher implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(RabbitmqOrderedDispatcher.class);
+
+    /**
+     * 通道数，默认0，即CPU核数
+     */
+    @Value("${mq.ordered.lanes:0}")
+    private int lanes = 0;
+
+    /**
+     * 停机时等待通道内消息处理完成的最长时间（毫秒），默认30000ms
+     */
+    @Value("${mq.ordered.shutdown-timeout-millis:30000}")
+    private long shutdownTimeoutMillis = 30000;
+
+    private ThreadPoolExecutor[] executors;
+
+    /**
+     * 收到过有序消费消息的队列，这些队列必须保持单消费者
+     */
+    private final Set<String> orderedQueues = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 各监听容器Channel的确认跟踪器，Channel关闭时移除
+     */
+    private final Map<Channel, RabbitmqOrderedAckTracker> trackers = new ConcurrentHashMap<>();
+
+    private volatile boolean running = false;
+
+    @PostConstruct
+    public void init() {
+        int size = lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors();
+        executors = new ThreadPoolExecutor[size];
+        for (int i = 0; i < size; i++) {
+            String name = "rabbitmq-lane-" + i;
+            executors[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    r -> {
+                        Thread thread = new Thread(r, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    // 通道关闭后由调用线程执行，消息不会丢失也不会滞留未确认
+                    (r, executor) -> r.run());
+        }
+        log.info("Ordered dispatcher started with {} lanes", size);
+    }
+
+    /**
+     * 将任务分发到业务键对应的通道执行
+     *
+     * @param key  业务键，为空时分发到第一个通道
+     * @param task 任务
+     */
+    public void dispatch(String key, Runnable task) {
+        executors[laneOf(key)].execute(task);
+    }
+
+    /**
+     * 获取监听容器Channel对应的确认跟踪器，不存在时创建
+     *
+     * @param channel 监听容器的Channel
+     * @return 确认跟踪器
+     */
+    public RabbitmqOrderedAckTracker trackerOf(Channel channel) {
+        RabbitmqOrderedAckTracker tracker = trackers.get(channel);
+        if (tracker != null) return tracker;
+        return trackers.computeIfAbsent(channel, c -> {
+            // 通道关闭后未确认的消息由Broker重新投递，跟踪器不再需要
+            c.addShutdownListener(cause -> trackers.remove(c));
+            return new RabbitmqOrderedAckTracker(c);
+        });
+    }
+
+    /**
+     * 记录使用有序消费的队列，供消费者数自适应控制器跳过
+     *
+     * @param queue 队列名称，为空时忽略
+     */
+    public void markOrderedQueue(String queue) {
+        if (queue != null) orderedQueues.add(queue);
+    }
+
+    /**
+     * 队列是否使用有序消费
+     *
+     * @param queue 队列名称
+     * @return 收到过有序消费的消息时返回true
+     */
+    public boolean isOrderedQueue(String queue) {
+        return orderedQueues.contains(queue);
+    }
+
+    /**
+     * 计算业务键对应的通道
+     *
+     * @param key 业务键
+     * @return 通道下标
+     */
+    public int laneOf(String key) {
+        if (key == null) return 0;
+        int h = key.hashCode();
+        // 高位参与运算，避免哈希值低位相同的业务键集中在少数通道
+        h ^= (h >>> 16);
+        return Math.floorMod(h, executors.length);
+    }
+
+    /**
+     * 获取所有通道中等待处理的消息数
+     *
+     * @return 积压消息数
+     */
+    public int getBacklog() {
+        int backlog = 0;
+        for (ThreadPoolExecutor executor : executors) backlog += executor.getQueue().size();
+        return backlog;
+    }
+
+    /**
+     * 获取正在处理消息的通道数
+     *
+     * @return 活动通道数
+     */
+    public int getActiveCount() {
+        int active = 0;
+        for (ThreadPoolExecutor executor : executors) active += executor.getActiveCount();
+        return active;
+    }
+
+    public int getLaneCount() {
+        return executors.length;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * 停机时等待通道内已分发的消息处理完成，监听容器先于分发器停止，不会再有新消息分发进来
+     */
+    @Override
+    public void stop() {
+        running = false;
+        for (ThreadPoolExecutor executor : executors) executor.shutdown();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
+        try {
+            for (ThreadPoolExecutor executor : executors) {
+                long remaining = deadline - System.nanoTime();
+                if (!executor.awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                    log.warn("Ordered dispatcher did not finish in time, pending: {}", getBacklog());
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 在监听容器之后、消息发布线程池（阶段100）之前停止，通道内处理消息时发送的消息仍能发出
+     */
+    @Override
+    public int getPhase() {
+        return 200;
+    }
+}
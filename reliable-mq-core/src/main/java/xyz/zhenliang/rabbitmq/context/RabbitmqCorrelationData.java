@@ -0,0 +1,39 @@
+package xyz.zhenliang.rabbitmq.context;
+
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+
+/**
+ * 携带发送次数的关联数据
+ * 同一个对象贯穿一次发送的所有重试并随Broker确认返回，确认时即可知道本次共尝试发送了几次，
+ * 不需要在重试结束时单独更新数据库
+ */
+public class RabbitmqCorrelationData extends CorrelationData {
+    /**
+     * 发送失败（抛出异常）的次数
+     */
+    private volatile int failedAttempts = 0;
+
+    public RabbitmqCorrelationData(String id) {
+        super(id);
+    }
+
+    /**
+     * 记录一次发送失败
+     */
+    public void incrementFailedAttempts() {
+        failedAttempts++;
+    }
+
+    public int getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    /**
+     * 获取发送次数，即失败次数加上最终被Broker接收的一次
+     *
+     * @return 发送次数
+     */
+    public int getSendCount() {
+        return failedAttempts + 1;
+    }
+}
@@ -0,0 +1,33 @@
+package xyz.zhenliang.rabbitmq.dto;
+
+import java.util.Set;
+
+/**
+ * 一次消费认领的结果
+ * 每次认领生成唯一的认领标识（节点标识#序号）写入消息的consume_owner，
+ * 后续的续约、消费成功和消费失败都以认领标识为条件，同一节点上的不同消费线程也能区分各自认领的消息
+ */
+public class ConsumeClaim {
+    /**
+     * 认领标识
+     */
+    private final String owner;
+
+    /**
+     * 认领成功、可被消费的消息ID集合
+     */
+    private final Set<String> messageIds;
+
+    public ConsumeClaim(String owner, Set<String> messageIds) {
+        this.owner = owner;
+        this.messageIds = messageIds;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public Set<String> getMessageIds() {
+        return messageIds;
+    }
+}
@@ -1,33 +1,59 @@
 package xyz.zhenliang.rabbitmq.dto;
 
 import java.util.Set;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 
 /**
  * 队列处理结果封装类
  * 用于统计和记录消息队列处理的相关数据
+ * 处理过程中计数持续更新，可在处理进度回调中读取
  */
 public class QueueProcessResult {
     /**
      * 已处理的消息总数
      */
-    int processedCount = 0;
+    volatile int processedCount = 0;
 
     /**
      * 处理成功的消息数量
      */
-    int successCount = 0;
+    volatile int successCount = 0;
 
     /**
      * 处理失败的消息数量
      */
-    int failureCount = 0;
+    volatile int failureCount = 0;
+
+    /**
+     * 成功处理的消息中新增到消息表的数量，其余为消息表中已存在
+     */
+    volatile int insertedCount = 0;
+
+    /**
+     * 是否已处理完成
+     */
+    volatile boolean finished = false;
+
+    /**
+     * 处理中断的原因（如数据库异常），正常完成时为null
+     */
+    private volatile String errorMessage;
 
     /**
      * 无法处理的消息ID集合
-     * 这些消息可能由于格式错误或其他原因无法被正常处理
+     * 这些消息可能由于格式错误或其他原因无法被正常处理，最多记录maxUnprocessableIds条，超出部分只计入失败数量
+     */
+    private Set<String> unprocessableMessageIds = new LinkedHashSet<>();
+
+    /**
+     * 记录一个无法处理的消息ID
+     *
+     * @param messageId 消息ID
+     * @param maxIds    最多记录的ID数
      */
-    private Set<String> unprocessableMessageIds = new HashSet<>();
+    public synchronized void addUnprocessableMessageId(String messageId, int maxIds) {
+        if (messageId != null && unprocessableMessageIds.size() < maxIds) unprocessableMessageIds.add(messageId);
+    }
 
     public int getProcessedCount() {
         return processedCount;
@@ -53,11 +79,36 @@ public class QueueProcessResult {
         this.failureCount = failureCount;
     }
 
-    public Set<String> getUnprocessableMessageIds() {
-        return unprocessableMessageIds;
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+
+    public void setInsertedCount(int insertedCount) {
+        this.insertedCount = insertedCount;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public synchronized Set<String> getUnprocessableMessageIds() {
+        // 返回副本，处理过程中读取进度不受并发修改影响
+        return new LinkedHashSet<>(unprocessableMessageIds);
     }
 
-    public void setUnprocessableMessageIds(Set<String> unprocessableMessageIds) {
+    public synchronized void setUnprocessableMessageIds(Set<String> unprocessableMessageIds) {
         this.unprocessableMessageIds = unprocessableMessageIds;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+package xyz.zhenliang.rabbitmq.dto;
+
+/**
+ * 待发布到RabbitMQ的消息
+ * 保存发布所需的全部信息，在事务提交后交给发送器发送
+ */
+public class RabbitmqPublishMsg {
+    private String exchange;
+    private String routingKey;
+    private String messageId;
+    private String businessId; //业务id
+    private byte[] messageBody; //序列化后的消息体，与写入消息表的为同一个字节数组
+    private String contentType; //消息体编码格式，为空时根据消息体识别
+    private String contentEncoding; //消息体压缩算法，为空时根据消息体识别
+    private boolean resend; //是否人工重发
+
+    public RabbitmqPublishMsg() {
+    }
+
+    public RabbitmqPublishMsg(String exchange, String routingKey, String messageId, String businessId, byte[] messageBody) {
+        this.exchange = exchange;
+        this.routingKey = routingKey;
+        this.messageId = messageId;
+        this.businessId = businessId;
+        this.messageBody = messageBody;
+    }
+
+    public RabbitmqPublishMsg(String exchange, String routingKey, String messageId, String businessId, byte[] messageBody, String contentType, String contentEncoding) {
+        this(exchange, routingKey, messageId, businessId, messageBody);
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+    }
+
+    public String getExchange() {
+        return exchange;
+    }
+
+    public void setExchange(String exchange) {
+        this.exchange = exchange;
+    }
+
+    public String getRoutingKey() {
+        return routingKey;
+    }
+
+    public void setRoutingKey(String routingKey) {
+        this.routingKey = routingKey;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+
+    public String getBusinessId() {
+        return businessId;
+    }
+
+    public void setBusinessId(String businessId) {
+        this.businessId = businessId;
+    }
+
+    public byte[] getMessageBody() {
+        return messageBody;
+    }
+
+    public void setMessageBody(byte[] messageBody) {
+        this.messageBody = messageBody;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public void setContentEncoding(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    public boolean isResend() {
+        return resend;
+    }
+
+    public void setResend(boolean resend) {
+        this.resend = resend;
+    }
+}
@@ -0,0 +1,152 @@
+package xyz.zhenliang.rabbitmq.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 死信队列救援任务状态
+ * 一个任务并行处理多个死信队列，每个队列一个处理结果，处理过程中持续更新，可轮询查询进度
+ */
+public class RescueJobStatus {
+    /**
+     * 任务状态：运行中
+     */
+    public static final String RUNNING = "RUNNING";
+
+    /**
+     * 任务状态：已完成
+     */
+    public static final String FINISHED = "FINISHED";
+
+    /**
+     * 任务状态：已取消
+     */
+    public static final String CANCELLED = "CANCELLED";
+
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 任务状态：RUNNING、FINISHED、CANCELLED
+     */
+    private volatile String status = RUNNING;
+
+    /**
+     * 限速（每秒处理的消息数），小于等于0表示不限速
+     */
+    private double ratePerSecond;
+
+    /**
+     * 是否已请求取消
+     */
+    private volatile boolean cancelRequested = false;
+
+    /**
+     * 任务创建时间
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * 任务结束时间
+     */
+    private volatile LocalDateTime finishedAt;
+
+    /**
+     * 各队列的处理结果，键为队列名称
+     */
+    private final Map<String, QueueProcessResult> queueResults = new LinkedHashMap<>();
+
+    /**
+     * 获取全部队列已处理的消息总数
+     *
+     * @return 已处理的消息总数
+     */
+    public long getProcessedCount() {
+        long count = 0;
+        for (QueueProcessResult result : queueResults.values()) count += result.getProcessedCount();
+        return count;
+    }
+
+    /**
+     * 获取全部队列处理成功的消息数量
+     *
+     * @return 处理成功的消息数量
+     */
+    public long getSuccessCount() {
+        long count = 0;
+        for (QueueProcessResult result : queueResults.values()) count += result.getSuccessCount();
+        return count;
+    }
+
+    /**
+     * 获取全部队列处理失败的消息数量
+     *
+     * @return 处理失败的消息数量
+     */
+    public long getFailureCount() {
+        long count = 0;
+        for (QueueProcessResult result : queueResults.values()) count += result.getFailureCount();
+        return count;
+    }
+
+    public List<String> getQueueNames() {
+        return new ArrayList<>(queueResults.keySet());
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public void setRatePerSecond(double ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void setCancelRequested(boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public Map<String, QueueProcessResult> getQueueResults() {
+        return queueResults;
+    }
+}
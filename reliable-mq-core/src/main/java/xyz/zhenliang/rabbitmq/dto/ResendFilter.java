@@ -0,0 +1,100 @@
+package xyz.zhenliang.rabbitmq.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批量重发消息的筛选条件
+ * 各条件之间为“且”的关系，为空的条件不参与筛选
+ */
+public class ResendFilter {
+    /**
+     * 创建时间不早于该时间
+     */
+    private LocalDateTime createdFrom;
+
+    /**
+     * 创建时间早于该时间
+     */
+    private LocalDateTime createdTo;
+
+    /**
+     * 发送状态，见RabbitmqSendStatus
+     */
+    private Integer sendStatus;
+
+    /**
+     * 消费状态，见RabbitmqConsumeStatus
+     */
+    private Integer consumeStatus;
+
+    /**
+     * 交换机名称
+     */
+    private String exchange;
+
+    /**
+     * 业务ID前缀
+     */
+    private String businessIdPrefix;
+
+    /**
+     * 最多重发的消息数，为空表示不限制
+     */
+    private Integer maxCount;
+
+    public LocalDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public void setCreatedFrom(LocalDateTime createdFrom) {
+        this.createdFrom = createdFrom;
+    }
+
+    public LocalDateTime getCreatedTo() {
+        return createdTo;
+    }
+
+    public void setCreatedTo(LocalDateTime createdTo) {
+        this.createdTo = createdTo;
+    }
+
+    public Integer getSendStatus() {
+        return sendStatus;
+    }
+
+    public void setSendStatus(Integer sendStatus) {
+        this.sendStatus = sendStatus;
+    }
+
+    public Integer getConsumeStatus() {
+        return consumeStatus;
+    }
+
+    public void setConsumeStatus(Integer consumeStatus) {
+        this.consumeStatus = consumeStatus;
+    }
+
+    public String getExchange() {
+        return exchange;
+    }
+
+    public void setExchange(String exchange) {
+        this.exchange = exchange;
+    }
+
+    public String getBusinessIdPrefix() {
+        return businessIdPrefix;
+    }
+
+    public void setBusinessIdPrefix(String businessIdPrefix) {
+        this.businessIdPrefix = businessIdPrefix;
+    }
+
+    public Integer getMaxCount() {
+        return maxCount;
+    }
+
+    public void setMaxCount(Integer maxCount) {
+        this.maxCount = maxCount;
+    }
+}
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 
 /**
@@ -42,9 +43,9 @@ public class RabbitmqMessage implements Serializable {
     private String routingKey;
 
     /**
-     * 消息内容（JSON格式）
+     * 消息内容（序列化后的消息体字节，与AMQP消息体一致）
      */
-    private String messageBody;
+    private byte[] messageBody;
 
     /**
      * 消息发送状态：0-初始, 1-发送中, 2-发送确认成功, 3-发送失败
@@ -71,6 +72,11 @@ public class RabbitmqMessage implements Serializable {
      */
     private String sendErrorMessage;
 
+    /**
+     * 下次自动重发时间，发送失败的消息到该时间后由失败重发调度器重新发送
+     */
+    private LocalDateTime sendNextTime;
+
     /**
      * 消息消费状态:1-未消费,2-消费中,3-消费成功,4-消费失败
      */
@@ -96,6 +102,16 @@ public class RabbitmqMessage implements Serializable {
      */
     private String consumeErrorMessage;
 
+    /**
+     * 消费者节点标识（认领消费权的节点）
+     */
+    private String consumeOwner;
+
+    /**
+     * 消费租约到期时间，消费中且未到期的消息不可被其他消费者认领
+     */
+    private LocalDateTime consumeLeaseUntil;
+
     /**
      * 消息保存方式:1-发送者保存,2-消费者保存
      */
@@ -139,11 +155,11 @@ public class RabbitmqMessage implements Serializable {
         this.routingKey = routingKey;
     }
 
-    public String getMessageBody() {
+    public byte[] getMessageBody() {
         return messageBody;
     }
 
-    public void setMessageBody(String messageBody) {
+    public void setMessageBody(byte[] messageBody) {
         this.messageBody = messageBody;
     }
 
@@ -187,6 +203,14 @@ public class RabbitmqMessage implements Serializable {
         this.sendErrorMessage = sendErrorMessage;
     }
 
+    public LocalDateTime getSendNextTime() {
+        return sendNextTime;
+    }
+
+    public void setSendNextTime(LocalDateTime sendNextTime) {
+        this.sendNextTime = sendNextTime;
+    }
+
     public Integer getConsumeStatus() {
         return consumeStatus;
     }
@@ -227,6 +251,22 @@ public class RabbitmqMessage implements Serializable {
         this.consumeErrorMessage = consumeErrorMessage;
     }
 
+    public String getConsumeOwner() {
+        return consumeOwner;
+    }
+
+    public void setConsumeOwner(String consumeOwner) {
+        this.consumeOwner = consumeOwner;
+    }
+
+    public LocalDateTime getConsumeLeaseUntil() {
+        return consumeLeaseUntil;
+    }
+
+    public void setConsumeLeaseUntil(LocalDateTime consumeLeaseUntil) {
+        this.consumeLeaseUntil = consumeLeaseUntil;
+    }
+
     public Integer getSavedBy() {
         return savedBy;
     }
@@ -250,17 +290,20 @@ public class RabbitmqMessage implements Serializable {
         ", businessId = " + businessId +
         ", exchange = " + exchange +
         ", routingKey = " + routingKey +
-        ", messageBody = " + messageBody +
+        ", messageBody = " + (messageBody == null ? null : new String(messageBody, StandardCharsets.UTF_8)) +
         ", sendStatus = " + sendStatus +
         ", confirmLastTime = " + confirmLastTime +
         ", sendCount = " + sendCount +
         ", sendLastTime = " + sendLastTime +
         ", sendErrorMessage = " + sendErrorMessage +
+        ", sendNextTime = " + sendNextTime +
         ", consumeStatus = " + consumeStatus +
         ", consumeSuccessTime = " + consumeSuccessTime +
         ", consumeCount = " + consumeCount +
         ", consumeLastTime = " + consumeLastTime +
         ", consumeErrorMessage = " + consumeErrorMessage +
+        ", consumeOwner = " + consumeOwner +
+        ", consumeLeaseUntil = " + consumeLeaseUntil +
         ", savedBy = " + savedBy +
         ", createdAt = " + createdAt +
         "}";
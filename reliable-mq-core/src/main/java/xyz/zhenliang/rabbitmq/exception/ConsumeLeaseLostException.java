@@ -0,0 +1,11 @@
+package xyz.zhenliang.rabbitmq.exception;
+
+/**
+ * 消费租约丢失异常
+ * 事务消费模式下标记消费成功时消息已不归本节点消费（租约到期后被其他消费者认领），本次事务回滚
+ */
+public class ConsumeLeaseLostException extends TechException {
+    public ConsumeLeaseLostException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package xyz.zhenliang.rabbitmq.id;
+
+/**
+ * 消息ID生成器接口
+ * 生成的ID拼接在mq.id-prefix之后作为消息表主键，按时间有序的ID使插入集中在聚簇索引末尾，避免随机ID造成的页分裂
+ * 通过mq.id.generator选择内置实现：uuid7（默认）、ulid、snowflake、uuid（随机UUID，旧版本行为）；
+ * 也可自行实现并注册为@Primary的bean
+ */
+public interface IRabbitmqIdGenerator {
+    /**
+     * 生成消息ID（不含前缀）
+     *
+     * @return 消息ID
+     */
+    String generate();
+}
@@ -0,0 +1,19 @@
+package xyz.zhenliang.rabbitmq.id.impl;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.id.IRabbitmqIdGenerator;
+import xyz.zhenliang.rabbitmq.utils.UUIDUtils;
+
+/**
+ * 随机UUID消息ID生成器（旧版本行为），ID无序，插入分散在整个主键索引上
+ */
+@Component
+@ConditionalOnProperty(name = "mq.id.generator", havingValue = "uuid")
+public class RandomUuidIdGenerator implements IRabbitmqIdGenerator {
+
+    @Override
+    public String generate() {
+        return UUIDUtils.generate32UUID();
+    }
+}
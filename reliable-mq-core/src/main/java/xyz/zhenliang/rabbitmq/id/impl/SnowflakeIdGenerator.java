@@ -0,0 +1,41 @@
+package xyz.zhenliang.rabbitmq.id.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.utils.UUIDUtils;
+
+/**
+ * Snowflake消息ID生成器
+ * 41位毫秒时间（起始于2024-01-01）+ 10位节点号 + 12位毫秒内序号，输出16位十六进制字符串（定长，字符串顺序与数值顺序一致）
+ * 节点号必须通过mq.id.node-id（0-1023）为每个节点单独配置，未配置或超出范围时启动失败；
+ * 不由前缀哈希或随机数得到，两个节点的节点号相同会生成重复的主键
+ */
+@Component
+@ConditionalOnProperty(name = "mq.id.generator", havingValue = "snowflake")
+public class SnowflakeIdGenerator extends TimeOrderedIdGenerator {
+    private static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+
+    private final long node;
+
+    public SnowflakeIdGenerator(@Value("${mq.id.node-id:-1}") long nodeId) {
+        super(12);
+        if (nodeId < 0 || nodeId > MAX_NODE) {
+            throw new IllegalStateException("mq.id.generator=snowflake 需要为每个节点配置不同的 mq.id.node-id（0-" + MAX_NODE + "），当前值: " + nodeId);
+        }
+        this.node = nodeId;
+    }
+
+    @Override
+    protected long epochMillis() {
+        return EPOCH;
+    }
+
+    @Override
+    public String generate() {
+        long tick = nextTick();
+        return UUIDUtils.toHexString(((tick >>> 12) << (NODE_BITS + 12)) | (node << 12) | (tick & 0xFFFL));
+    }
+}
@@ -0,0 +1,42 @@
+package xyz.zhenliang.rabbitmq.id.impl;
+
+import xyz.zhenliang.rabbitmq.id.IRabbitmqIdGenerator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按时间有序的ID生成器基类
+ * 维护一个单调递增的时间戳：高位为毫秒时间，低sequenceBits位为同一毫秒内的序号，
+ * 序号用尽时借用下一毫秒，系统时钟回拨时沿用上一个时间戳继续递增，保证本节点生成的ID严格递增
+ */
+public abstract class TimeOrderedIdGenerator implements IRabbitmqIdGenerator {
+    private final AtomicLong lastTick = new AtomicLong();
+    private final int sequenceBits;
+
+    protected TimeOrderedIdGenerator(int sequenceBits) {
+        this.sequenceBits = sequenceBits;
+    }
+
+    /**
+     * 获取下一个时间戳
+     *
+     * @return (毫秒时间 - epoch) << sequenceBits | 序号
+     */
+    protected long nextTick() {
+        long now = (currentTimeMillis() - epochMillis()) << sequenceBits;
+        return lastTick.accumulateAndGet(now, (last, current) -> Math.max(last + 1, current));
+    }
+
+    /**
+     * 时间戳的起始时间，默认1970-01-01
+     *
+     * @return 起始时间毫秒数
+     */
+    protected long epochMillis() {
+        return 0L;
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,41 @@
+package xyz.zhenliang.rabbitmq.id.impl;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ULID消息ID生成器
+ * 48位毫秒时间 + 80位随机部分（其中高16位为毫秒内序号，保证单调），输出26位Crockford Base32字符串
+ */
+@Component
+@ConditionalOnProperty(name = "mq.id.generator", havingValue = "ulid")
+public class UlidIdGenerator extends TimeOrderedIdGenerator {
+    private static final char[] ENCODING = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    public UlidIdGenerator() {
+        super(16);
+    }
+
+    @Override
+    public String generate() {
+        long hi = nextTick();
+        long lo = ThreadLocalRandom.current().nextLong();
+        // 128位按每5位一个字符编码，共26个字符，首字符只有3位有效
+        char[] buf = new char[26];
+        for (int i = 0; i < 26; i++) {
+            int shift = 125 - 5 * i;
+            long bits;
+            if (shift >= 64) {
+                bits = hi >>> (shift - 64);
+            } else if (shift > 59) {
+                bits = (lo >>> shift) | (hi << (64 - shift));
+            } else {
+                bits = lo >>> shift;
+            }
+            buf[i] = ENCODING[(int) (bits & 0x1F)];
+        }
+        return new String(buf);
+    }
+}
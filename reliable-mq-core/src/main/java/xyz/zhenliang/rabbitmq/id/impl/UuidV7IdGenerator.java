@@ -0,0 +1,29 @@
+package xyz.zhenliang.rabbitmq.id.impl;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.utils.UUIDUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * UUIDv7消息ID生成器（默认）
+ * 48位毫秒时间 + 版本号 + 12位毫秒内序号（RFC 9562 方法1）+ 变体 + 62位随机数，输出32位十六进制字符串，
+ * 与旧版本的32位UUID长度一致
+ */
+@Component
+@ConditionalOnProperty(name = "mq.id.generator", havingValue = "uuid7", matchIfMissing = true)
+public class UuidV7IdGenerator extends TimeOrderedIdGenerator {
+
+    public UuidV7IdGenerator() {
+        super(12);
+    }
+
+    @Override
+    public String generate() {
+        long tick = nextTick();
+        long msb = ((tick >>> 12) << 16) | 0x7000L | (tick & 0xFFFL);
+        long lsb = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return UUIDUtils.toHexString(msb, lsb);
+    }
+}
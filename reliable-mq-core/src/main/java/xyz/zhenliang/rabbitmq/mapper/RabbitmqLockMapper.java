@@ -0,0 +1,45 @@
+package xyz.zhenliang.rabbitmq.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * <p>
+ * rabbitmq调度任务锁表 Mapper 接口
+ * 以数据库行作为带租约的锁，多个节点中只有一个节点执行定时扫描
+ * </p>
+ */
+public interface RabbitmqLockMapper {
+
+    /**
+     * 新增锁记录，已存在时忽略
+     *
+     * @param name 锁名称
+     * @return 新增的记录数
+     */
+    int insertIgnore(@Param("name") String name);
+
+    /**
+     * 获取或续约锁：锁空闲、租约已到期或本节点已持有时更新持有者和租约到期时间
+     *
+     * @param name       锁名称
+     * @param owner      节点标识
+     * @param now        当前时间
+     * @param leaseUntil 租约到期时间
+     * @return 更新的记录数，1表示获取成功
+     */
+    int tryAcquire(@Param("name") String name,
+                   @Param("owner") String owner,
+                   @Param("now") LocalDateTime now,
+                   @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * 释放本节点持有的锁
+     *
+     * @param name  锁名称
+     * @param owner 节点标识
+     * @return 更新的记录数
+     */
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
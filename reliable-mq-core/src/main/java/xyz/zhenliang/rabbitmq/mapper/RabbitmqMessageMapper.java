@@ -1,8 +1,12 @@
 package xyz.zhenliang.rabbitmq.mapper;
 
+import org.apache.ibatis.annotations.Param;
 import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * <p>
  * rabbitmq消息表 Mapper 接口
@@ -13,4 +17,57 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  */
 public interface RabbitmqMessageMapper extends BaseMapper<RabbitmqMessage> {
 
+    /**
+     * 多行INSERT批量新增消息
+     *
+     * @param list 消息实体列表
+     * @return 新增的记录数
+     */
+    int insertBatch(@Param("list") List<RabbitmqMessage> list);
+
+    /**
+     * 多行INSERT IGNORE新增消费端保存的消息，主键已存在的消息忽略
+     *
+     * @param list 消息实体列表
+     * @return 实际新增的记录数
+     */
+    int insertIgnoreBatch(@Param("list") List<RabbitmqMessage> list);
+
+    /**
+     * 按主键顺序（keyset）锁定一批发送状态停滞的消息
+     * 使用 SELECT ... FOR UPDATE [SKIP LOCKED]，多个节点同时扫描时互不重复、互不阻塞
+     *
+     * @param sendStatus   发送状态
+     * @param before       最后发送时间早于该时间的消息视为停滞
+     * @param afterId      上一批最后一条消息的ID，只查询大于该ID的消息
+     * @param maxSendCount 发送次数上限，达到上限的消息不再处理
+     * @param limit        最大条数
+     * @param skipLocked   是否跳过已被其他事务锁定的行（需MySQL 8.0及以上）
+     * @return 锁定的消息列表
+     */
+    List<RabbitmqMessage> selectStaleSendForUpdate(@Param("sendStatus") int sendStatus,
+                                                   @Param("before") LocalDateTime before,
+                                                   @Param("afterId") String afterId,
+                                                   @Param("maxSendCount") int maxSendCount,
+                                                   @Param("limit") int limit,
+                                                   @Param("skipLocked") boolean skipLocked);
+
+    /**
+     * 锁定一批到达下次重发时间的发送失败消息
+     * 未设置下次重发时间的消息（首次失败）以最后发送时间早于firstBefore为准
+     *
+     * @param sendStatus   发送状态
+     * @param now          当前时间，下次重发时间不晚于该时间的消息到期
+     * @param firstBefore  未设置下次重发时间的消息，最后发送时间早于该时间视为到期
+     * @param maxSendCount 发送次数上限，达到上限的消息不再处理
+     * @param limit        最大条数
+     * @param skipLocked   是否跳过已被其他事务锁定的行（需MySQL 8.0及以上）
+     * @return 锁定的消息列表
+     */
+    List<RabbitmqMessage> selectDueFailedSendForUpdate(@Param("sendStatus") int sendStatus,
+                                                       @Param("now") LocalDateTime now,
+                                                       @Param("firstBefore") LocalDateTime firstBefore,
+                                                       @Param("maxSendCount") int maxSendCount,
+                                                       @Param("limit") int limit,
+                                                       @Param("skipLocked") boolean skipLocked);
 }
@@ -0,0 +1,74 @@
+package xyz.zhenliang.rabbitmq.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时统计器
+ * 无锁累计次数、总耗时与最大耗时，不依赖Micrometer，由RabbitmqMeterBinder按需注册为指标
+ */
+public class LatencyRecorder {
+    /**
+     * 记录次数
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * 累计耗时（纳秒）
+     */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * 最大耗时（纳秒）
+     */
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        count.increment();
+        totalNanos.add(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+            // 竞争失败时重试
+        }
+    }
+
+    /**
+     * 记录从startNanos（System.nanoTime()）到当前的耗时
+     *
+     * @param startNanos 开始时间（纳秒）
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * 获取平均耗时
+     *
+     * @param unit 时间单位
+     * @return 平均耗时，没有记录时返回0
+     */
+    public double getMean(TimeUnit unit) {
+        long c = getCount();
+        if (c == 0) return 0;
+        return (double) getTotalNanos() / c / unit.toNanos(1);
+    }
+}
@@ -0,0 +1,120 @@
+package xyz.zhenliang.rabbitmq.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.consumer.RabbitmqConsumeLease;
+import xyz.zhenliang.rabbitmq.consumer.RabbitmqConsumedCache;
+import xyz.zhenliang.rabbitmq.consumer.RabbitmqOrderedDispatcher;
+import xyz.zhenliang.rabbitmq.rescue.retry.RabbitmqDelayRetry;
+import xyz.zhenliang.rabbitmq.sender.impl.RabbitmqConfirmProcessor;
+import xyz.zhenliang.rabbitmq.sender.impl.RabbitmqConfirmWriter;
+import xyz.zhenliang.rabbitmq.sender.impl.RabbitmqPublishExecutor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 可靠消息框架指标注册器
+ * 存在Micrometer时生效，Spring Boot Actuator会自动将其绑定到MeterRegistry
+ */
+@Component
+@ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+public class RabbitmqMeterBinder implements MeterBinder {
+    /**
+     * 指标名称前缀
+     */
+    public static final String PREFIX = "rabbitmq.reliable.";
+
+    @Autowired
+    private RabbitmqConfirmProcessor confirmProcessor;
+
+    @Autowired
+    private RabbitmqConfirmWriter confirmWriter;
+
+    @Autowired
+    private RabbitmqPublishExecutor publishExecutor;
+
+    @Autowired
+    private RabbitmqConsumedCache consumedCache;
+
+    @Autowired
+    private RabbitmqDelayRetry delayRetry;
+
+    @Autowired
+    private RabbitmqOrderedDispatcher orderedDispatcher;
+
+    @Autowired
+    private RabbitmqConsumeLease consumeLease;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(PREFIX + "publish.queue.depth", publishExecutor, RabbitmqPublishExecutor::getQueueDepth)
+                .description("Publish tasks waiting for a publisher thread")
+                .register(registry);
+        Gauge.builder(PREFIX + "publish.active", publishExecutor, RabbitmqPublishExecutor::getActiveCount)
+                .description("Publish tasks currently running")
+                .register(registry);
+        bindLatency(registry, PREFIX + "publish.queue.wait", "Time a publish task waited before running",
+                publishExecutor.getQueueWaitRecorder());
+        bindLatency(registry, PREFIX + "publish.latency", "Time spent publishing one afterCommit batch",
+                publishExecutor.getPublishRecorder());
+        Gauge.builder(PREFIX + "confirm.queue.depth", confirmProcessor, RabbitmqConfirmProcessor::getQueueDepth)
+                .description("Pending publisher confirm/return events waiting to be processed")
+                .register(registry);
+        bindLatency(registry, PREFIX + "confirm.lag", "Time between a confirm/return callback and its processing",
+                confirmProcessor.getLagRecorder());
+        Gauge.builder(PREFIX + "confirm.writer.queue.depth", confirmWriter, RabbitmqConfirmWriter::getQueueDepth)
+                .description("Confirmed message ids waiting for the batched status update")
+                .register(registry);
+        bindLatency(registry, PREFIX + "confirm.writer.flush", "Time spent writing one batch of confirm statuses",
+                confirmWriter.getFlushRecorder());
+        if (consumedCache.isEnabled()) {
+            FunctionCounter.builder(PREFIX + "consumed.cache.hits", consumedCache, RabbitmqConsumedCache::getHitCount)
+                    .description("Duplicate deliveries answered from the local consumed-id cache")
+                    .register(registry);
+            FunctionCounter.builder(PREFIX + "consumed.cache.misses", consumedCache, RabbitmqConsumedCache::getMissCount)
+                    .description("Deliveries not found in the local consumed-id cache")
+                    .register(registry);
+            Gauge.builder(PREFIX + "consumed.cache.size", consumedCache, RabbitmqConsumedCache::getSize)
+                    .description("Message ids held in the local consumed-id cache")
+                    .register(registry);
+        }
+        Gauge.builder(PREFIX + "ordered.backlog", orderedDispatcher, RabbitmqOrderedDispatcher::getBacklog)
+                .description("Deliveries waiting in key-ordered lanes")
+                .register(registry);
+        Gauge.builder(PREFIX + "ordered.active", orderedDispatcher, RabbitmqOrderedDispatcher::getActiveCount)
+                .description("Key-ordered lanes currently processing a delivery")
+                .register(registry);
+        Gauge.builder(PREFIX + "consume.lease.held", consumeLease, RabbitmqConsumeLease::getHeldCount)
+                .description("Deliveries being handled on this node under a renewable consume lease")
+                .register(registry);
+        if (delayRetry.isEnabled()) {
+            FunctionCounter.builder(PREFIX + "consume.retry.scheduled", delayRetry, RabbitmqDelayRetry::getScheduledCount)
+                    .description("Failed deliveries republished to a delayed retry queue")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * 将耗时统计器注册为FunctionTimer及最大值Gauge
+     *
+     * @param registry    指标注册表
+     * @param name        指标名称
+     * @param description 指标描述
+     * @param recorder    耗时统计器
+     */
+    private void bindLatency(MeterRegistry registry, String name, String description, LatencyRecorder recorder) {
+        FunctionTimer.builder(name, recorder, LatencyRecorder::getCount, LatencyRecorder::getTotalNanos, TimeUnit.NANOSECONDS)
+                .description(description)
+                .register(registry);
+        Gauge.builder(name + ".max", recorder, r -> r.getMaxNanos() / 1_000_000.0)
+                .description(description + " (max, milliseconds)")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+}
@@ -2,10 +2,13 @@ package xyz.zhenliang.rabbitmq.rescue;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import xyz.zhenliang.rabbitmq.dto.QueueProcessResult;
+import xyz.zhenliang.rabbitmq.dto.RescueJobStatus;
+import xyz.zhenliang.rabbitmq.dto.ResendFilter;
 import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface IRabbitmqRescue {
 
@@ -18,6 +21,17 @@ public interface IRabbitmqRescue {
      */
     void resendMessage(String messageId);
 
+    /**
+     * 按筛选条件批量重发消息
+     * 按主键顺序分批认领消息表中符合条件的消息（时间范围、发送/消费状态、交换机、业务ID前缀），批量重置状态后重新发送，
+     * 适用于Broker故障恢复后一次性重发大量消息；多个节点同时执行时不会重复认领同一条消息
+     *
+     * @param filter        筛选条件
+     * @param ratePerSecond 每秒最多重发的消息数，小于等于0表示不限速
+     * @return 重发的消息数
+     */
+    int resendMessages(ResendFilter filter, double ratePerSecond);
+
     /**
      * 删除消息表中的一个消息
      *
@@ -43,6 +57,58 @@ public interface IRabbitmqRescue {
      */
     QueueProcessResult moveQueueMessagesToMsgTable(String deadLetterQueueName);
 
+    /**
+     * 将死信队列中的消息移动到消息表中，每处理完一批回调一次进度
+     *
+     * @param deadLetterQueueName 死信队列名称
+     * @param progressListener    进度回调，参数为持续更新的处理结果，可为null
+     * @return 队列处理结果，包含处理数量、成功数量、失败数量等信息
+     */
+    QueueProcessResult moveQueueMessagesToMsgTable(String deadLetterQueueName, Consumer<QueueProcessResult> progressListener);
+
+    /**
+     * 将死信队列中的消息直接重新发布到原交换机和路由键，不经过消息表
+     * 适用于修复消费端问题后重放死信消息：每批发布后等待Broker确认，再整批确认死信消息，不产生数据库访问
+     *
+     * @param deadLetterQueueName 死信队列名称
+     * @param ratePerSecond       每秒最多重新发布的消息数，小于等于0表示不限速
+     * @return 队列处理结果，成功数为重新发布到原交换机的消息数，失败数为无法确定原交换机、重新放回死信队列队尾的消息数
+     */
+    QueueProcessResult replayDeadLetterQueue(String deadLetterQueueName, double ratePerSecond);
+
+    /**
+     * 异步启动死信队列救援任务，将多个死信队列中的消息并行移动到消息表中
+     * 每个队列使用独立的通道，同一任务的所有队列共享限速；立即返回任务ID，通过getRescueJob轮询进度
+     *
+     * @param deadLetterQueueNames 死信队列名称列表
+     * @param ratePerSecond        每秒最多处理的消息数，小于等于0表示不限速
+     * @return 任务ID
+     */
+    String startDeadLetterRescueJob(List<String> deadLetterQueueNames, double ratePerSecond);
+
+    /**
+     * 查询死信队列救援任务状态及各队列的处理进度
+     *
+     * @param jobId 任务ID
+     * @return 任务状态，任务不存在时返回null
+     */
+    RescueJobStatus getRescueJob(String jobId);
+
+    /**
+     * 查询保留的全部死信队列救援任务
+     *
+     * @return 任务状态列表
+     */
+    List<RescueJobStatus> listRescueJobs();
+
+    /**
+     * 取消死信队列救援任务，各队列处理完当前批次后停止，未确认的消息重新入队
+     *
+     * @param jobId 任务ID
+     * @return 是否请求取消成功，任务不存在或已结束时返回false
+     */
+    boolean cancelRescueJob(String jobId);
+
     /**
      * 清空指定队列中的所有消息
      *
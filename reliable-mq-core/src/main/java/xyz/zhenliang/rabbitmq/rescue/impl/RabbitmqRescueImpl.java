@@ -5,8 +5,12 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Delivery;
 import com.rabbitmq.client.Envelope;
-import com.rabbitmq.client.GetResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.AmqpAdmin;
@@ -15,25 +19,40 @@ import org.springframework.amqp.core.MessagePostProcessor;
 import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
 import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import xyz.zhenliang.rabbitmq.codec.RabbitmqCodecRegistry;
+import xyz.zhenliang.rabbitmq.constant.RabbitMQConstant;
 import xyz.zhenliang.rabbitmq.constant.RabbitmqConsumeStatus;
 import xyz.zhenliang.rabbitmq.constant.RabbitmqSaveBy;
 import xyz.zhenliang.rabbitmq.constant.RabbitmqSendStatus;
 import xyz.zhenliang.rabbitmq.dto.QueueProcessResult;
+import xyz.zhenliang.rabbitmq.dto.RabbitmqMessageMeta;
 import xyz.zhenliang.rabbitmq.dto.RabbitmqMsgDTO;
+import xyz.zhenliang.rabbitmq.dto.RescueJobStatus;
+import xyz.zhenliang.rabbitmq.dto.ResendFilter;
 import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
 import xyz.zhenliang.rabbitmq.rescue.IRabbitmqRescue;
 import xyz.zhenliang.rabbitmq.sender.IRabbitmqSender;
-import xyz.zhenliang.rabbitmq.sender.impl.RabbitmqSenderImpl;
 import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
 import org.springframework.amqp.core.MessageProperties;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import xyz.zhenliang.rabbitmq.utils.JsonUtils;
-import xyz.zhenliang.rabbitmq.utils.RabbitmqUtils;
+import xyz.zhenliang.rabbitmq.utils.TokenBucket;
 
 /**
  * RabbitMQ消息救援服务实现类
@@ -51,10 +70,83 @@ public class RabbitmqRescueImpl implements IRabbitmqRescue {
 
     @Autowired
     private IRabbitmqMessageService rabbitmqMessageService;
+
+    @Autowired
+    private RabbitmqCodecRegistry codecRegistry;
     private String encoding = "UTF-8";
 
     private MessagePropertiesConverter messagePropertiesConverter = new DefaultMessagePropertiesConverter();
 
+    /**
+     * 进度日志间隔（消息数）
+     */
+    private static final int PROGRESS_LOG_INTERVAL = 10000;
+
+    /**
+     * 重放死信消息时等待一批发布确认的最长时间（毫秒）
+     */
+    private static final long REPLAY_CONFIRM_TIMEOUT_MILLIS = 30000;
+
+    /**
+     * 处理死信队列时的prefetch，即内存中最多保留的消息数，默认1000
+     */
+    @Value("${mq.rescue.drain-prefetch:1000}")
+    private int drainPrefetch = 1000;
+
+    /**
+     * 每批保存和确认的消息数，默认500
+     */
+    @Value("${mq.rescue.drain-batch-size:500}")
+    private int drainBatchSize = 500;
+
+    /**
+     * 收到一批中第一条消息后最多等待的时间（毫秒），默认50ms
+     */
+    @Value("${mq.rescue.drain-linger-millis:50}")
+    private long drainLingerMillis = 50;
+
+    /**
+     * 队列空闲超过该时间（毫秒）视为已处理完，默认2000ms
+     */
+    @Value("${mq.rescue.drain-idle-millis:2000}")
+    private long drainIdleMillis = 2000;
+
+    /**
+     * 救援任务线程数，即最多同时处理的死信队列数，默认4
+     */
+    @Value("${mq.rescue.job-threads:4}")
+    private int jobThreads = 4;
+
+    /**
+     * 最多保留的救援任务数，超出时淘汰最早结束的任务，默认100
+     */
+    @Value("${mq.rescue.max-retained-jobs:100}")
+    private int maxRetainedJobs = 100;
+
+    /**
+     * 不限速
+     */
+    private static final TokenBucket UNLIMITED = new TokenBucket(0);
+
+    private ExecutorService jobExecutor;
+
+    /**
+     * 救援任务，按创建顺序保留
+     */
+    private final Map<String, RescueJobStatus> jobs = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * 批量重发时每批认领和重发的消息数，默认500
+     */
+    @Value("${mq.rescue.resend-batch-size:500}")
+    private int resendBatchSize = 500;
+
+    /**
+     * 处理结果中最多记录的无法处理消息ID数，默认1000
+     */
+    @Value("${mq.rescue.max-unprocessable-ids:1000}")
+    private int maxUnprocessableIds = 1000;
+
     /**
      * 重新发送消息
      *
@@ -65,6 +157,43 @@ public class RabbitmqRescueImpl implements IRabbitmqRescue {
         rabbitmqSender.resendMsg(messageId);
     }
 
+    /**
+     * 按筛选条件批量重发消息
+     * 按主键顺序分批认领符合条件的消息，每批在一个事务中重置状态，事务提交后统一发送；批次之间按令牌桶限速
+     *
+     * @param filter        筛选条件
+     * @param ratePerSecond 每秒最多重发的消息数，小于等于0表示不限速
+     * @return 重发的消息数
+     */
+    @Override
+    public int resendMessages(ResendFilter filter, double ratePerSecond) {
+        TokenBucket limiter = new TokenBucket(ratePerSecond);
+        // 限速时每批不超过1秒的令牌数，避免一批发送量集中形成突发
+        int batchSize = limiter.isLimited() ? (int) Math.max(1, Math.min(resendBatchSize, ratePerSecond)) : resendBatchSize;
+        int maxCount = filter.getMaxCount() != null ? filter.getMaxCount() : Integer.MAX_VALUE;
+        String afterId = "";
+        int total = 0;
+        log.info("Start resending messages, filter: {}, rate: {}/s", JsonUtils.toJson(filter), ratePerSecond);
+        try {
+            while (total < maxCount) {
+                int limit = Math.min(batchSize, maxCount - total);
+                limiter.acquire(limit);
+                List<String> messageIds = rabbitmqSender.resendMessages(filter, afterId, limit);
+                total += messageIds.size();
+                if (total / PROGRESS_LOG_INTERVAL != (total - messageIds.size()) / PROGRESS_LOG_INTERVAL) {
+                    log.info("Resend progress: {} messages", total);
+                }
+                if (messageIds.size() < limit) break;
+                afterId = messageIds.get(messageIds.size() - 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Resend interrupted after {} messages", total);
+        }
+        log.info("Resend completed, total: {} messages", total);
+        return total;
+    }
+
     /**
      * 删除消息
      *
@@ -102,60 +231,459 @@ public class RabbitmqRescueImpl implements IRabbitmqRescue {
      */
     @Override
     public QueueProcessResult moveQueueMessagesToMsgTable(String deadLetterQueueName) {
-        log.info("Start processing dead letter queue: {}", deadLetterQueueName);
-        final QueueProcessResult result = new QueueProcessResult();
-        rabbitTemplate.execute(channel -> {
-
-            GetResponse response;
-            while ((response = channel.basicGet(deadLetterQueueName, false)) != null) {
-                result.setProcessedCount(result.getProcessedCount() + 1);
-                String body = null;
-                String messageId = null;
-                long deliveryTag = response.getEnvelope().getDeliveryTag();
-                try {
-                    body = RabbitmqUtils.toString(response.getBody());
-                    Message message = buildMessageFromResponse(response);
-                    messageId = message.getMessageProperties().getMessageId();
+        return moveQueueMessagesToMsgTable(deadLetterQueueName, null);
+    }
 
-                    log.info("Processing dead letter message.\nmessageId:{}\nbody:{}", messageId, body);
+    /**
+     * 将队列中的消息移动到消息表中
+     * 以prefetch方式消费死信队列（不再逐条basicGet），每凑满一批或等待超时后用多行INSERT IGNORE批量保存，
+     * 再用basicAck(lastTag, true)一次确认整批；最多处理开始时队列中的消息数，队列空闲超过mq.rescue.drain-idle-millis也结束。
+     * 内存中最多保留prefetch条消息，失败的消息ID最多记录mq.rescue.max-unprocessable-ids条。
+     * 保存失败（如数据库异常）时停止处理，未确认的消息重新入队，结果中记录错误原因。
+     *
+     * @param deadLetterQueueName 死信队列名称
+     * @param progressListener    进度回调，每批处理完成后调用，可为null
+     * @return 队列处理结果
+     */
+    @Override
+    public QueueProcessResult moveQueueMessagesToMsgTable(String deadLetterQueueName, Consumer<QueueProcessResult> progressListener) {
+        QueueProcessResult result = new QueueProcessResult();
+        moveQueueMessagesToMsgTable(deadLetterQueueName, result, progressListener, UNLIMITED, () -> false);
+        return result;
+    }
 
-                    // 处理消息
-                    boolean success = rabbitmqMessageService.processDeadLetterMessage(messageId, body);
+    /**
+     * 将队列中的消息移动到消息表中，结果写入调用方传入的处理结果对象
+     *
+     * @param deadLetterQueueName 死信队列名称
+     * @param result              队列处理结果，处理过程中持续更新
+     * @param progressListener    进度回调，可为null
+     * @param limiter             限速器
+     * @param cancelled           是否已取消，每批处理前检查
+     */
+    private void moveQueueMessagesToMsgTable(String deadLetterQueueName, QueueProcessResult result, Consumer<QueueProcessResult> progressListener,
+                                             TokenBucket limiter, BooleanSupplier cancelled) {
+        log.info("Start processing dead letter queue: {}", deadLetterQueueName);
+        try {
+            rabbitTemplate.execute(channel -> {
+                drainQueue(channel, deadLetterQueueName, result, progressListener, limiter, cancelled, this::saveDeadLetterBatch);
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Dead letter queue processing interrupted: {}", deadLetterQueueName, e);
+            result.setErrorMessage(e.getMessage());
+        }
+        result.setFinished(true);
+        if (progressListener != null) progressListener.accept(result);
+        log.info("Dead letter queue processing completed: {}", JsonUtils.toJson(result));
+    }
 
-                    if (success) {
-                        // 确认消息
-                        result.setSuccessCount(result.getSuccessCount() + 1);
+    /**
+     * 将死信队列中的消息直接重新发布到原交换机和路由键，不经过消息表
+     * 原交换机和路由键优先取发送时写入的消息头，其次取x-death中最初的交换机和路由键；
+     * 每批发布后等待Broker确认，再整批确认（multiple）死信消息，发布失败时本批不确认，消息留在死信队列中。
+     * 重新发布的消息去掉x-death和重试次数消息头并标记为重发，重新获得完整的消费重试次数；
+     * 无法确定原交换机或原交换机不存在的消息重新发布到死信队列队尾，计入失败，本次不再处理
+     *
+     * @param deadLetterQueueName 死信队列名称
+     * @param ratePerSecond       每秒最多重新发布的消息数，小于等于0表示不限速
+     * @return 队列处理结果，成功数为重新发布到原交换机的消息数
+     */
+    @Override
+    public QueueProcessResult replayDeadLetterQueue(String deadLetterQueueName, double ratePerSecond) {
+        log.info("Start replaying dead letter queue: {}, rate: {}/s", deadLetterQueueName, ratePerSecond);
+        QueueProcessResult result = new QueueProcessResult();
+        TokenBucket limiter = new TokenBucket(ratePerSecond);
+        Map<String, Boolean> exchanges = new HashMap<>();
+        try {
+            rabbitTemplate.execute(channel -> {
+                channel.confirmSelect();
+                drainQueue(channel, deadLetterQueueName, result, null, limiter, () -> false,
+                        (ch, batch, r) -> replayBatch(ch, deadLetterQueueName, batch, r, exchanges));
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Dead letter queue replay interrupted: {}", deadLetterQueueName, e);
+            result.setErrorMessage(e.getMessage());
+        }
+        result.setFinished(true);
+        log.info("Dead letter queue replay completed: {}", JsonUtils.toJson(result));
+        return result;
+    }
 
-                        log.info("Message processed successfully.\nmessageId:{}\nbody:{}", messageId, body);
+    /**
+     * 启动死信队列救援任务
+     * 每个队列在任务线程池中单独处理，各自使用独立的通道；同一任务的队列共享一个令牌桶限速
+     *
+     * @param deadLetterQueueNames 死信队列名称列表
+     * @param ratePerSecond        每秒最多处理的消息数，小于等于0表示不限速
+     * @return 任务ID
+     */
+    @Override
+    public String startDeadLetterRescueJob(List<String> deadLetterQueueNames, double ratePerSecond) {
+        if (deadLetterQueueNames == null || deadLetterQueueNames.isEmpty()) {
+            throw new IllegalArgumentException("deadLetterQueueNames must not be empty");
+        }
+        RescueJobStatus job = new RescueJobStatus();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setRatePerSecond(ratePerSecond);
+        job.setCreatedAt(LocalDateTime.now());
+        for (String queueName : new LinkedHashSet<>(deadLetterQueueNames)) {
+            job.getQueueResults().put(queueName, new QueueProcessResult());
+        }
+        registerJob(job);
+
+        TokenBucket limiter = new TokenBucket(ratePerSecond);
+        AtomicInteger remaining = new AtomicInteger(job.getQueueResults().size());
+        for (Map.Entry<String, QueueProcessResult> entry : job.getQueueResults().entrySet()) {
+            jobExecutor.execute(() -> {
+                try {
+                    if (!job.isCancelRequested()) {
+                        moveQueueMessagesToMsgTable(entry.getKey(), entry.getValue(), null, limiter, job::isCancelRequested);
                     } else {
-                        result.setFailureCount(result.getFailureCount() + 1);
-                        if (messageId != null) result.getUnprocessableMessageIds().add(messageId);
-                        log.error("Message processing failed.\nmessageId:{}\nbody:{}", messageId, body);
+                        entry.getValue().setFinished(true);
                     }
-                } catch (Exception e) {
-                    log.error("Exception occurred while processing message. \nmessageId:{}\nbody:{}", messageId, body, e);
-                    if (messageId != null) result.getUnprocessableMessageIds().add(messageId);
-                    result.setFailureCount(result.getFailureCount() + 1);
                 } finally {
-                    // 所有消息全部消费
-                    channel.basicAck(deliveryTag, false);
+                    if (remaining.decrementAndGet() == 0) {
+                        job.setFinishedAt(LocalDateTime.now());
+                        job.setStatus(job.isCancelRequested() ? RescueJobStatus.CANCELLED : RescueJobStatus.FINISHED);
+                        log.info("Dead letter rescue job {} {}, processed: {}, success: {}, failure: {}", job.getJobId(),
+                                job.getStatus(), job.getProcessedCount(), job.getSuccessCount(), job.getFailureCount());
+                    }
                 }
+            });
+        }
+        log.info("Dead letter rescue job {} started, queues: {}, rate: {}/s", job.getJobId(), job.getQueueNames(), ratePerSecond);
+        return job.getJobId();
+    }
+
+    /**
+     * 查询死信队列救援任务状态
+     *
+     * @param jobId 任务ID
+     * @return 任务状态，任务不存在（或已被淘汰）时返回null
+     */
+    @Override
+    public RescueJobStatus getRescueJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 查询保留的全部死信队列救援任务，按创建顺序
+     *
+     * @return 任务状态列表
+     */
+    @Override
+    public List<RescueJobStatus> listRescueJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    /**
+     * 取消死信队列救援任务
+     * 各队列处理完当前批次后停止，已投递未确认的消息重新入队
+     *
+     * @param jobId 任务ID
+     * @return 是否请求取消成功，任务不存在或已结束时返回false
+     */
+    @Override
+    public boolean cancelRescueJob(String jobId) {
+        RescueJobStatus job = jobs.get(jobId);
+        if (job == null || !RescueJobStatus.RUNNING.equals(job.getStatus())) return false;
+        job.setCancelRequested(true);
+        return true;
+    }
+
+    /**
+     * 登记任务，超过保留数量时淘汰最早结束的任务
+     *
+     * @param job 任务状态
+     */
+    private void registerJob(RescueJobStatus job) {
+        // 遍历同步Map的视图时需持有Map的锁
+        synchronized (jobs) {
+            jobs.put(job.getJobId(), job);
+            if (jobs.size() <= maxRetainedJobs) return;
+            for (Iterator<RescueJobStatus> it = jobs.values().iterator(); it.hasNext() && jobs.size() > maxRetainedJobs; ) {
+                if (!RescueJobStatus.RUNNING.equals(it.next().getStatus())) it.remove();
             }
-            log.error("Dead letter queue processing completed: {}", JsonUtils.toJson(result));
-            return null;
+        }
+    }
+
+    @PostConstruct
+    public void initJobExecutor() {
+        AtomicInteger index = new AtomicInteger();
+        jobExecutor = Executors.newFixedThreadPool(jobThreads, r -> {
+            Thread thread = new Thread(r, "rabbitmq-rescue-" + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
         });
-        return result;
     }
 
+    /**
+     * 停机时取消运行中的任务，各队列处理完当前批次后停止，未确认的消息重新入队
+     */
+    @PreDestroy
+    public void shutdownJobExecutor() {
+        synchronized (jobs) {
+            for (RescueJobStatus job : jobs.values()) {
+                if (RescueJobStatus.RUNNING.equals(job.getStatus())) job.setCancelRequested(true);
+            }
+        }
+        jobExecutor.shutdown();
+        try {
+            if (!jobExecutor.awaitTermination(drainIdleMillis + 10000, TimeUnit.MILLISECONDS)) {
+                log.warn("Dead letter rescue jobs did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
     /**
-     * 根据RabbitMQ的响应构建Message对象
+     * 以prefetch方式批量消费队列，每批交给批处理器处理并整批确认
      *
-     * @param response RabbitMQ的GetResponse响应
-     * @return 构建的Message对象
+     * @param channel          RabbitMQ通道
+     * @param queueName        队列名称
+     * @param result           队列处理结果，处理过程中持续更新
+     * @param progressListener 进度回调，可为null
+     * @param limiter          限速器
+     * @param cancelled        是否已取消，每批处理前检查
+     * @param batchHandler     批处理器，如保存到消息表、重新发布到原交换机
+     * @throws Exception 处理或确认失败
+     */
+    private void drainQueue(Channel channel, String queueName, QueueProcessResult result,
+                            Consumer<QueueProcessResult> progressListener, TokenBucket limiter, BooleanSupplier cancelled,
+                            BatchHandler batchHandler) throws Exception {
+        long limit = channel.messageCount(queueName);
+        if (limit <= 0) return;
+
+        BlockingQueue<Delivery> deliveries = new ArrayBlockingQueue<>(drainPrefetch);
+        AtomicLong deliveredTag = new AtomicLong();
+        long ackedTag = 0;
+        channel.basicQos(drainPrefetch);
+        String consumerTag = channel.basicConsume(queueName, false, new DefaultConsumer(channel) {
+            @Override
+            public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) {
+                // 未确认的消息不超过prefetch，队列不会满
+                deliveries.offer(new Delivery(envelope, properties, body));
+                deliveredTag.accumulateAndGet(envelope.getDeliveryTag(), Math::max);
+            }
+        });
+        // 限速时每批不超过1秒的令牌数，等待时间不超过1秒，取消能及时生效
+        int batchSize = limiter.isLimited() ? (int) Math.max(1, Math.min(drainBatchSize, limiter.getRatePerSecond())) : drainBatchSize;
+        try {
+            List<Delivery> batch = new ArrayList<>(batchSize);
+            while (result.getProcessedCount() < limit && !cancelled.getAsBoolean()) {
+                Delivery first = deliveries.poll(drainIdleMillis, TimeUnit.MILLISECONDS);
+                if (first == null) break;
+                batch.add(first);
+                // 凑满一批，或等待linger时间后处理已收到的消息
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainLingerMillis);
+                while (batch.size() < batchSize && result.getProcessedCount() + batch.size() < limit) {
+                    if (deliveries.drainTo(batch, (int) Math.min(batchSize - batch.size(), limit - result.getProcessedCount() - batch.size())) > 0) continue;
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    Delivery next = deliveries.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                limiter.acquire(batch.size());
+                if (cancelled.getAsBoolean()) break;
+                ackedTag = batchHandler.handle(channel, batch, result);
+                batch.clear();
+                if (progressListener != null) progressListener.accept(result);
+                if (result.getProcessedCount() % PROGRESS_LOG_INTERVAL < batchSize) {
+                    log.info("Dead letter queue {} progress: processed {}/{}, success {}, failure {}", queueName,
+                            result.getProcessedCount(), limit, result.getSuccessCount(), result.getFailureCount());
+                }
+            }
+        } finally {
+            // 通道已关闭（如连接断开）时未确认的消息由Broker重新入队，无需清理；清理失败只记录，不覆盖处理过程中的异常
+            if (channel.isOpen()) {
+                try {
+                    channel.basicCancel(consumerTag);
+                    // 已投递但未处理的消息（超出本次处理数量或处理中断）重新入队
+                    if (deliveredTag.get() > ackedTag) channel.basicNack(deliveredTag.get(), true, true);
+                    // 恢复缓存通道的prefetch设置
+                    channel.basicQos(0);
+                } catch (Exception e) {
+                    log.warn("Failed to release consumer of queue {}, unacked messages will be requeued when the channel closes", queueName, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 保存一批死信消息并整批确认
+     * 无法解析出消息ID等信息的消息计入失败并一起确认，与逐条处理时的行为一致
+     *
+     * @param channel RabbitMQ通道
+     * @param batch   一批消息
+     * @param result  队列处理结果
+     * @return 已确认的最大deliveryTag
+     * @throws IOException 确认失败
+     */
+    private long saveDeadLetterBatch(Channel channel, List<Delivery> batch, QueueProcessResult result) throws IOException {
+        List<RabbitmqMessage> messages = new ArrayList<>(batch.size());
+        long lastTag = 0;
+        int failures = 0;
+        for (Delivery delivery : batch) {
+            lastTag = Math.max(lastTag, delivery.getEnvelope().getDeliveryTag());
+            Message message = buildMessage(delivery.getEnvelope(), delivery.getProperties(), delivery.getBody(), -1);
+            String messageId = message.getMessageProperties().getMessageId();
+            try {
+                RabbitmqMessage deadLetter = toDeadLetterMessage(message);
+                if (deadLetter != null) {
+                    messages.add(deadLetter);
+                    continue;
+                }
+                log.error("Message processing failed, message id missing.\nbody:{}",
+                        codecRegistry.toReadableString(message.getMessageProperties().getContentType(), message.getBody()));
+            } catch (Exception e) {
+                log.error("Exception occurred while processing message. \nmessageId:{}\nbody:{}", messageId,
+                        codecRegistry.toReadableString(message.getMessageProperties().getContentType(), message.getBody()), e);
+            }
+            failures++;
+            result.addUnprocessableMessageId(messageId, maxUnprocessableIds);
+        }
+        // 保存失败时抛出异常，本批不确认
+        int inserted = rabbitmqMessageService.saveDeadLetterMessages(messages);
+        channel.basicAck(lastTag, true);
+
+        result.setProcessedCount(result.getProcessedCount() + batch.size());
+        result.setSuccessCount(result.getSuccessCount() + messages.size());
+        result.setInsertedCount(result.getInsertedCount() + inserted);
+        result.setFailureCount(result.getFailureCount() + failures);
+        return lastTag;
+    }
+
+    /**
+     * 将一批死信消息重新发布到原交换机，等待Broker确认后整批确认
+     *
+     * @param channel   RabbitMQ通道，已开启发布确认
+     * @param queueName 死信队列名称
+     * @param batch     一批消息
+     * @param result    队列处理结果
+     * @param exchanges 交换机是否存在的缓存
+     * @return 已确认的最大deliveryTag
+     * @throws Exception 发布、等待确认或确认失败
      */
-    private Message buildMessageFromResponse(GetResponse response) {
-        return this.buildMessage(response.getEnvelope(), response.getProps(), response.getBody(), response.getMessageCount());
+    private long replayBatch(Channel channel, String queueName, List<Delivery> batch, QueueProcessResult result,
+                             Map<String, Boolean> exchanges) throws Exception {
+        long lastTag = 0;
+        int failures = 0;
+        for (Delivery delivery : batch) {
+            lastTag = Math.max(lastTag, delivery.getEnvelope().getDeliveryTag());
+            AMQP.BasicProperties properties = delivery.getProperties();
+            Map<String, Object> headers = properties.getHeaders() == null ? new HashMap<>() : new HashMap<>(properties.getHeaders());
+            String[] origin = resolveOrigin(headers);
+            if (origin == null || !exchangeExists(origin[0], exchanges)) {
+                log.warn("Original exchange not found, message returned to dead letter queue, messageId: {}, queue: {}",
+                        properties.getMessageId(), queueName);
+                failures++;
+                result.addUnprocessableMessageId(properties.getMessageId(), maxUnprocessableIds);
+                channel.basicPublish("", queueName, properties, delivery.getBody());
+                continue;
+            }
+            headers.keySet().removeIf(name -> name.startsWith("x-death") || name.startsWith("x-first-death") || name.startsWith("x-last-death"));
+            headers.remove(RabbitMQConstant.RETRY_COUNT);
+            headers.put(RabbitMQConstant.RESEND, true);
+            channel.basicPublish(origin[0], origin[1], properties.builder().headers(headers).build(), delivery.getBody());
+        }
+        // Broker确认本批全部消息后再确认死信消息，超时或被拒绝时抛出异常并关闭通道，未确认的死信消息重新入队
+        channel.waitForConfirmsOrDie(REPLAY_CONFIRM_TIMEOUT_MILLIS);
+        channel.basicAck(lastTag, true);
+
+        result.setProcessedCount(result.getProcessedCount() + batch.size());
+        result.setSuccessCount(result.getSuccessCount() + batch.size() - failures);
+        result.setFailureCount(result.getFailureCount() + failures);
+        return lastTag;
+    }
+
+    /**
+     * 确定死信消息最初发送的交换机和路由键
+     * 优先取发送时写入的消息头，其次取x-death中最后一条（最早一次死信）记录的交换机和第一个路由键
+     *
+     * @param headers 消息头
+     * @return 交换机和路由键，无法确定时返回null
+     */
+    private String[] resolveOrigin(Map<String, Object> headers) {
+        Object exchange = headers.get(RabbitMQConstant.EXCHANGE);
+        Object routingKey = headers.get(RabbitMQConstant.ROUTING_KEY);
+        if ((exchange == null || routingKey == null) && headers.get("x-death") instanceof List<?> xDeath && !xDeath.isEmpty()
+                && xDeath.get(xDeath.size() - 1) instanceof Map<?, ?> origin) {
+            if (exchange == null) exchange = origin.get("exchange");
+            if (routingKey == null && origin.get("routing-keys") instanceof List<?> keys && !keys.isEmpty()) routingKey = keys.get(0);
+        }
+        if (exchange == null || routingKey == null) return null;
+        return new String[]{exchange.toString(), routingKey.toString()};
+    }
+
+    /**
+     * 检查交换机是否存在，在单独的通道中被动声明，不存在时只关闭该通道；结果在本次重放中缓存
+     *
+     * @param exchange  交换机名称
+     * @param exchanges 交换机是否存在的缓存
+     * @return 是否存在
+     */
+    private boolean exchangeExists(String exchange, Map<String, Boolean> exchanges) {
+        if (exchange.isEmpty()) return true;
+        return exchanges.computeIfAbsent(exchange, name -> {
+            try {
+                rabbitTemplate.execute(channel -> channel.exchangeDeclarePassive(name));
+                return true;
+            } catch (Exception e) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 根据死信消息构造消息表记录
+     * 交换机、路由键等优先取发送时写入的消息头，其次解析消息体，最后取x-death中最初的交换机和路由键
+     *
+     * @param message 死信消息
+     * @return 消息实体，没有消息ID时返回null
+     */
+    private RabbitmqMessage toDeadLetterMessage(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        String messageId = properties.getMessageId();
+        Object exchange = properties.getHeader(RabbitMQConstant.EXCHANGE);
+        Object routingKey = properties.getHeader(RabbitMQConstant.ROUTING_KEY);
+        Object businessId = properties.getHeader(RabbitMQConstant.BUSINESS_ID);
+        if (messageId == null || exchange == null || routingKey == null) {
+            try {
+                RabbitmqMessageMeta meta = codecRegistry.decode(properties.getContentType(), properties.getContentEncoding(),
+                        message.getBody(), RabbitmqMessageMeta.class);
+                if (messageId == null) messageId = meta.getMessageId();
+                if (exchange == null) exchange = meta.getExchange();
+                if (routingKey == null) routingKey = meta.getRoutingKey();
+                if (businessId == null) businessId = meta.getBusinessId();
+            } catch (Exception e) {
+                // 消息体不是框架发送的格式，有消息ID时仍按x-death保存
+                if (messageId == null) throw e;
+                log.warn("Failed to decode dead letter message meta, messageId: {}", messageId, e);
+            }
+        }
+        if (messageId == null) return null;
+        List<Map<String, ?>> xDeath = properties.getXDeathHeader();
+        if ((exchange == null || routingKey == null) && xDeath != null && !xDeath.isEmpty()) {
+            // x-death按时间倒序，最后一条是消息最初被投递时的交换机和路由键
+            Map<String, ?> origin = xDeath.get(xDeath.size() - 1);
+            if (exchange == null) exchange = origin.get("exchange");
+            Object routingKeys = origin.get("routing-keys");
+            if (routingKey == null && routingKeys instanceof List<?> keys && !keys.isEmpty()) routingKey = keys.get(0);
+        }
+
+        RabbitmqMessage deadLetter = new RabbitmqMessage();
+        deadLetter.setId(messageId);
+        deadLetter.setBusinessId(businessId == null ? null : businessId.toString());
+        deadLetter.setExchange(exchange == null ? "" : exchange.toString());
+        deadLetter.setRoutingKey(routingKey == null ? "" : routingKey.toString());
+        deadLetter.setMessageBody(message.getBody());
+        return deadLetter;
     }
 
     /**
@@ -284,4 +812,19 @@ public class RabbitmqRescueImpl implements IRabbitmqRescue {
     public RabbitmqMessage getMessageById(String messageId) {
         return rabbitmqMessageService.getById(messageId);
     }
-}
\ No newline at end of file
+
+    /**
+     * 死信队列批处理器，处理一批消息并整批确认
+     */
+    @FunctionalInterface
+    private interface BatchHandler {
+        /**
+         * @param channel RabbitMQ通道
+         * @param batch   一批消息
+         * @param result  队列处理结果
+         * @return 已确认的最大deliveryTag
+         * @throws Exception 处理或确认失败
+         */
+        long handle(Channel channel, List<Delivery> batch, QueueProcessResult result) throws Exception;
+    }
+}
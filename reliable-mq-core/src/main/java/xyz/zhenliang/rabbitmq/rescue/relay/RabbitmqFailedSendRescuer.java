@@ -0,0 +1,181 @@
+package xyz.zhenliang.rabbitmq.rescue.relay;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.sender.impl.RabbitmqSenderImpl;
+import xyz.zhenliang.rabbitmq.service.impl.RabbitmqLockService;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发送失败消息自动重发调度器
+ * 发送重试全部失败后消息停留在发送失败状态，调度器定时扫描到达下次重发时间的消息并重新发送。
+ * 重发间隔按发送次数指数退避（base-delay-millis × 2^(发送次数-1)，不超过max-delay-millis），并叠加随机抖动，
+ * 避免Broker恢复时大量消息在同一时刻重发；下次重发时间在认领时写入消息行（send_next_time），不依赖本地状态。
+ * 多个节点通过rabbitmq_lock表的租约锁选主，只有持有锁的节点扫描，其他节点空闲；主节点宕机后租约到期由其他节点接管。
+ * 开启后停滞消息转发器（mq.relay）只处理发送中的消息，发送失败的消息由本调度器处理。
+ * 扫描在框架自己的调度线程中执行，不依赖也不开启应用的@EnableScheduling。
+ * 通过 mq.send-rescue.enabled=true 开启
+ */
+@Component
+@ConditionalOnProperty(name = "mq.send-rescue.enabled", havingValue = "true")
+public class RabbitmqFailedSendRescuer implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(RabbitmqFailedSendRescuer.class);
+    private static final long STOP_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * 选主锁名称
+     */
+    public static final String LOCK_NAME = "failed-send-rescue";
+
+    /**
+     * 扫描间隔（毫秒），默认5000ms
+     */
+    @Value("${mq.send-rescue.interval-millis:5000}")
+    private long intervalMillis = 5000;
+
+    /**
+     * 首次重发间隔（毫秒），默认10000ms
+     */
+    @Value("${mq.send-rescue.base-delay-millis:10000}")
+    private long baseDelayMillis = 10000;
+
+    /**
+     * 最大重发间隔（毫秒），默认600000ms
+     */
+    @Value("${mq.send-rescue.max-delay-millis:600000}")
+    private long maxDelayMillis = 600000;
+
+    /**
+     * 随机抖动比例，重发间隔在 [间隔×(1-jitter), 间隔] 内随机，默认0.5
+     */
+    @Value("${mq.send-rescue.jitter:0.5}")
+    private double jitter = 0.5;
+
+    /**
+     * 每批认领的消息数，默认200
+     */
+    @Value("${mq.send-rescue.batch-size:200}")
+    private int batchSize = 200;
+
+    /**
+     * 每次扫描最多重发的消息数，默认10000
+     */
+    @Value("${mq.send-rescue.max-per-run:10000}")
+    private int maxPerRun = 10000;
+
+    /**
+     * 发送次数达到该值的消息不再自动重发，默认20
+     */
+    @Value("${mq.send-rescue.max-send-count:20}")
+    private int maxSendCount = 20;
+
+    /**
+     * 选主锁租约时长（毫秒），应大于扫描间隔，默认30000ms
+     */
+    @Value("${mq.send-rescue.lease-millis:30000}")
+    private long leaseMillis = 30000;
+
+    @Autowired
+    private RabbitmqSenderImpl rabbitmqSender;
+
+    @Autowired
+    private RabbitmqLockService lockService;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean running = false;
+
+    /**
+     * 扫描并重发到期的发送失败消息，由调度线程按mq.send-rescue.interval-millis间隔调用
+     */
+    public void rescue() {
+        try {
+            if (!lockService.tryAcquire(LOCK_NAME, leaseMillis)) return;
+            int total = 0;
+            while (total < maxPerRun) {
+                LocalDateTime now = LocalDateTime.now();
+                LocalDateTime firstBefore = now.minusNanos(baseDelayMillis * 1_000_000);
+                int limit = Math.min(batchSize, maxPerRun - total);
+                int rescued = rabbitmqSender.rescueFailedMessages(now, firstBefore, maxSendCount, limit, this::backoffMillis);
+                total += rescued;
+                if (rescued < limit) break;
+                // 每批之后续约，租约丢失（如数据库长时间停顿）时停止扫描，由新的主节点继续
+                if (!lockService.tryAcquire(LOCK_NAME, leaseMillis)) break;
+            }
+            if (total > 0) log.info("Failed send rescuer republished {} messages", total);
+        } catch (Exception e) {
+            log.error("Failed send rescuer failed", e);
+        }
+    }
+
+    /**
+     * 按发送次数计算重发间隔：指数退避并叠加随机抖动
+     *
+     * @param sendCount 已发送次数
+     * @return 重发间隔（毫秒）
+     */
+    private long backoffMillis(int sendCount) {
+        int exponent = Math.min(Math.max(sendCount - 1, 0), 30);
+        long delay = Math.min(maxDelayMillis, baseDelayMillis << exponent);
+        if (delay < 0) delay = maxDelayMillis;
+        return (long) (delay * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rabbitmq-send-rescue");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::rescue, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    /**
+     * 停止调度，并释放选主锁，其他节点无需等待租约到期即可接管
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            // 等待正在执行的一轮结束，停止之后不再访问数据库和Broker
+            try {
+                if (!scheduler.awaitTermination(STOP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    log.warn("Failed send rescuer did not stop in {} ms", STOP_TIMEOUT_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            lockService.release(LOCK_NAME);
+        } catch (Exception e) {
+            log.warn("Failed to release lock {}", LOCK_NAME, e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 在发布执行器（阶段100）之前停止，停机期间不再重发新的消息
+     */
+    @Override
+    public int getPhase() {
+        return 300;
+    }
+}
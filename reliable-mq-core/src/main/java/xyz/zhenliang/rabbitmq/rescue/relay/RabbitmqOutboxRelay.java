@@ -0,0 +1,150 @@
+package xyz.zhenliang.rabbitmq.rescue.relay;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.constant.RabbitmqSendStatus;
+import xyz.zhenliang.rabbitmq.sender.impl.RabbitmqSenderImpl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地消息表转发器（outbox relay）
+ * 定时扫描长时间停留在发送中或发送失败的消息（如事务提交后、异步发送前JVM退出），按主键顺序分批认领并重新发送。
+ * 认领使用 SELECT ... FOR UPDATE SKIP LOCKED，并刷新最后发送时间作为租约，多个节点可同时运行而不会重复发送同一条消息。
+ * 开启发送失败自动重发（mq.send-rescue.enabled=true）后只转发发送中的消息，发送失败的消息按退避时间由RabbitmqFailedSendRescuer重发。
+ * 扫描在框架自己的调度线程中执行，不依赖也不开启应用的@EnableScheduling。
+ * 通过 mq.relay.enabled=true 开启
+ */
+@Component
+@ConditionalOnProperty(name = "mq.relay.enabled", havingValue = "true")
+public class RabbitmqOutboxRelay implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(RabbitmqOutboxRelay.class);
+    private static final long STOP_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * 扫描间隔（毫秒），默认10000ms
+     */
+    @Value("${mq.relay.interval-millis:10000}")
+    private long intervalMillis = 10000;
+
+    /**
+     * 状态停留超过该时间（毫秒）的消息视为停滞，默认60000ms
+     */
+    @Value("${mq.relay.stale-millis:60000}")
+    private long staleMillis = 60000;
+
+    /**
+     * 每批认领的消息数，默认200
+     */
+    @Value("${mq.relay.batch-size:200}")
+    private int batchSize = 200;
+
+    /**
+     * 每次扫描最多转发的消息数，默认10000
+     */
+    @Value("${mq.relay.max-per-run:10000}")
+    private int maxPerRun = 10000;
+
+    /**
+     * 发送次数达到该值的消息不再自动转发，默认10
+     */
+    @Value("${mq.relay.max-send-count:10}")
+    private int maxSendCount = 10;
+
+    /**
+     * 是否开启发送失败自动重发，开启后不再转发发送失败的消息
+     */
+    @Value("${mq.send-rescue.enabled:false}")
+    private boolean sendRescueEnabled = false;
+
+    @Autowired
+    private RabbitmqSenderImpl rabbitmqSender;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean running = false;
+
+    /**
+     * 扫描并转发停滞的消息，由调度线程按mq.relay.interval-millis间隔调用
+     */
+    public void relay() {
+        // 扫描开始时确定停滞时间点，本轮刚认领（刷新了发送时间）的消息不会被再次扫描到
+        LocalDateTime before = LocalDateTime.now().minusNanos(staleMillis * 1_000_000);
+        try {
+            int relayed = relay(RabbitmqSendStatus.SENDING.getValue(), before);
+            if (!sendRescueEnabled) relayed += relay(RabbitmqSendStatus.FAILED.getValue(), before);
+            if (relayed > 0) log.info("Outbox relay republished {} messages", relayed);
+        } catch (Exception e) {
+            log.error("Outbox relay failed", e);
+        }
+    }
+
+    /**
+     * 按主键顺序分批转发指定发送状态的停滞消息
+     *
+     * @param sendStatus 发送状态
+     * @param before     最后发送时间早于该时间的消息视为停滞
+     * @return 转发的消息数
+     */
+    private int relay(int sendStatus, LocalDateTime before) {
+        String afterId = "";
+        int total = 0;
+        while (total < maxPerRun) {
+            int limit = Math.min(batchSize, maxPerRun - total);
+            List<String> messageIds = rabbitmqSender.relayStaleMessages(sendStatus, before, afterId, maxSendCount, limit);
+            total += messageIds.size();
+            if (messageIds.size() < limit) break;
+            afterId = messageIds.get(messageIds.size() - 1);
+        }
+        return total;
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rabbitmq-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::relay, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            // 等待正在执行的一轮结束，停止之后不再访问数据库和Broker
+            try {
+                if (!scheduler.awaitTermination(STOP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    log.warn("Outbox relay did not stop in {} ms", STOP_TIMEOUT_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 在发布执行器（阶段100）之前停止，停机期间不再转发新的消息
+     */
+    @Override
+    public int getPhase() {
+        return 300;
+    }
+}
@@ -0,0 +1,184 @@
+package xyz.zhenliang.rabbitmq.rescue.retry;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.constant.RabbitMQConstant;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 消费失败的延迟重试
+ * 默认由Spring Retry拦截器在消费线程内退避重试，退避期间消费线程及其预取的消息都被占用；
+ * 开启延迟重试模式（mq.retry.mode=delay）后，消费失败的消息按重试次数投递到对应延迟档位的重试队列并立即确认原消息，消费线程马上处理下一条，
+ * 重试队列设置了统一的TTL且没有消费者，消息到期后经默认交换机死信回原消费队列再次消费。
+ * <p>
+ * 每个延迟档位一个扇出交换机和一个队列（{prefix}.{delay}.exchange、{prefix}.{delay}.queue），同一队列内消息TTL相同，不会出现队头阻塞；
+ * 投递到重试交换机时路由键为原消费队列名，重试队列不设置死信路由键，到期后按原路由键经默认交换机回到原消费队列。
+ * 已重试次数从x-death消息头中重试队列的expired记录累加得到，同时写入retryCount消息头（Broker不再累加客户端重新投递消息的x-death时仍然准确），
+ * 不依赖本地状态，多节点消费时同样准确。
+ * 使用该模式时应关闭 spring.rabbitmq.listener.simple.retry.enabled，避免拦截器重试与延迟重试叠加。
+ */
+@Component
+public class RabbitmqDelayRetry {
+    private static final Logger log = LoggerFactory.getLogger(RabbitmqDelayRetry.class);
+
+    /**
+     * 延迟重试模式
+     */
+    public static final String MODE_DELAY = "delay";
+
+    /**
+     * 重试模式：interceptor-消费线程内退避重试（默认），delay-投递到延迟重试队列
+     */
+    @Value("${mq.retry.mode:interceptor}")
+    private String mode = "interceptor";
+
+    /**
+     * 最大消费次数（包括第一次消费），默认3
+     */
+    @Value("${mq.retry.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    /**
+     * 各次重试的延迟档位（毫秒），第n次重试使用第n个档位，超出时使用最后一个档位
+     */
+    @Value("${mq.retry.delays:1000,2000,4000,10000}")
+    private long[] delays = {1000, 2000, 4000, 10000};
+
+    /**
+     * 重试交换机和重试队列名称前缀，默认reliable.retry
+     */
+    @Value("${mq.retry.prefix:reliable.retry}")
+    private String prefix = "reliable.retry";
+
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+    private final LongAdder scheduled = new LongAdder();
+
+    /**
+     * 是否开启延迟重试模式
+     *
+     * @return boolean 是否开启
+     */
+    public boolean isEnabled() {
+        return MODE_DELAY.equalsIgnoreCase(mode);
+    }
+
+    /**
+     * 获取当前是第几次消费（从1开始计数）
+     *
+     * @param message RabbitMQ消息对象
+     * @return int 消费次数
+     */
+    public int getAttempt(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        Object retryCount = properties.getHeader(RabbitMQConstant.RETRY_COUNT);
+        long retried = retryCount instanceof Number ? ((Number) retryCount).longValue() : 0;
+        List<Map<String, ?>> xDeath = properties.getXDeathHeader();
+        if (xDeath == null) return (int) Math.min(Integer.MAX_VALUE - 1, retried) + 1;
+        long expired = 0;
+        for (Map<String, ?> death : xDeath) {
+            Object queue = death.get("queue");
+            Object count = death.get("count");
+            if ("expired".equals(String.valueOf(death.get("reason"))) && isRetryQueue(String.valueOf(queue)) && count instanceof Number) {
+                expired += ((Number) count).longValue();
+            }
+        }
+        retried = Math.max(retried, expired);
+        return (int) Math.min(Integer.MAX_VALUE - 1, retried) + 1;
+    }
+
+    /**
+     * 判断是否最后一次消费
+     *
+     * @param message RabbitMQ消息对象
+     * @return boolean 是否最后一次消费
+     */
+    public boolean isLastAttempt(Message message) {
+        return getAttempt(message) >= maxAttempts;
+    }
+
+    /**
+     * 将消息投递到对应延迟档位的重试队列
+     * 与确认原消息使用同一信道，先投递后确认；投递失败时信道关闭，原消息未确认会被重新投递，不会丢失
+     *
+     * @param channel 消费信道
+     * @param message RabbitMQ消息对象
+     * @throws IOException 投递失败
+     */
+    public void publish(Channel channel, Message message) throws IOException {
+        MessageProperties properties = message.getMessageProperties();
+        String queue = properties.getConsumerQueue();
+        int attempt = getAttempt(message);
+        long delay = delays[Math.min(attempt, delays.length) - 1];
+        properties.setHeader(RabbitMQConstant.RETRY_COUNT, attempt);
+
+        AMQP.BasicProperties basicProperties = propertiesConverter.fromMessageProperties(properties, StandardCharsets.UTF_8.name());
+        channel.basicPublish(exchangeName(delay), queue, false, basicProperties, message.getBody());
+        scheduled.increment();
+        log.debug("Message scheduled for delayed retry, messageId: {}, queue: {}, attempt: {}, delay: {}ms",
+                properties.getMessageId(), queue, attempt, delay);
+    }
+
+    /**
+     * 构造各延迟档位的交换机、队列及绑定关系，由RabbitAdmin自动声明
+     *
+     * @return 待声明的交换机、队列及绑定关系
+     */
+    public List<Declarable> declarables() {
+        List<Declarable> declarables = new ArrayList<>(delays.length * 3);
+        for (long delay : distinctDelays()) {
+            Map<String, Object> arguments = new HashMap<>();
+            arguments.put("x-message-ttl", delay);
+            // 死信到默认交换机，未设置死信路由键时使用原路由键，即原消费队列名
+            arguments.put("x-dead-letter-exchange", "");
+            FanoutExchange exchange = new FanoutExchange(exchangeName(delay), true, false);
+            Queue queue = new Queue(queueName(delay), true, false, false, arguments);
+            declarables.add(exchange);
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(exchange));
+        }
+        return declarables;
+    }
+
+    public long getScheduledCount() {
+        return scheduled.sum();
+    }
+
+    private boolean isRetryQueue(String queue) {
+        for (long delay : delays) {
+            if (queueName(delay).equals(queue)) return true;
+        }
+        return false;
+    }
+
+    private long[] distinctDelays() {
+        return Arrays.stream(delays).distinct().toArray();
+    }
+
+    private String exchangeName(long delay) {
+        return prefix + "." + delay + ".exchange";
+    }
+
+    private String queueName(long delay) {
+        return prefix + "." + delay + ".queue";
+    }
+}
@@ -1,10 +1,13 @@
 package xyz.zhenliang.rabbitmq.rescue.retry;
 
+import org.springframework.amqp.core.Message;
 import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
 import org.springframework.retry.RetryContext;
 import org.springframework.retry.support.RetrySynchronizationManager;
+import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import xyz.zhenliang.rabbitmq.consumer.RabbitmqConsumerRetryListener;
 
 /**
  * RabbitMQ重试管理器
@@ -16,6 +19,14 @@ public class RabbitmqRetryManager {
     @Autowired
     private RabbitProperties rabbitProperties;
 
+    @Autowired
+    private RabbitmqDelayRetry delayRetry;
+
+    @Autowired
+    private RabbitmqConsumerRetryListener consumerRetryListener;
+
+    private volatile RetryTemplate consumeRetryTemplate;
+
     /**
      * 判断是否最后一次发送
      *
@@ -58,6 +69,42 @@ public class RabbitmqRetryManager {
         }
     }
 
+    /**
+     * 判断是否最后一次消费
+     * 延迟重试模式下按消息头中记录的重试次数判断，否则按重试拦截器的重试次数判断
+     *
+     * @param message RabbitMQ消息对象
+     * @return boolean 是否最后一次消费
+     */
+    public boolean isLastConsume(Message message) {
+        if (delayRetry.isEnabled()) return delayRetry.isLastAttempt(message);
+        return isLastConsume();
+    }
+
+    /**
+     * 获取在监听容器之外执行消费时使用的重试模板（如按业务键有序分发到通道后执行）
+     * 与spring.rabbitmq.listener.simple.retry配置一致；未启用重试或延迟重试模式下只执行一次
+     *
+     * @return RetryTemplate 重试模板
+     */
+    public RetryTemplate getConsumeRetryTemplate() {
+        RetryTemplate template = consumeRetryTemplate;
+        if (template == null) {
+            RabbitProperties.ListenerRetry retry = rabbitProperties.getListener().getSimple().getRetry();
+            if (!retry.isEnabled() || delayRetry.isEnabled()) {
+                template = RetryTemplate.builder().maxAttempts(1).build();
+            } else {
+                template = RetryTemplate.builder()
+                        .maxAttempts(retry.getMaxAttempts())
+                        .exponentialBackoff(retry.getInitialInterval().toMillis(), retry.getMultiplier(), retry.getMaxInterval().toMillis())
+                        .withListener(consumerRetryListener)
+                        .build();
+            }
+            consumeRetryTemplate = template;
+        }
+        return template;
+    }
+
     /**
      * 获取当前重试次数
      *
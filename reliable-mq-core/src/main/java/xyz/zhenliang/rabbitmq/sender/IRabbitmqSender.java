@@ -2,6 +2,10 @@ package xyz.zhenliang.rabbitmq.sender;
 
 
 import xyz.zhenliang.rabbitmq.dto.RabbitmqMsgDTO;
+import xyz.zhenliang.rabbitmq.dto.ResendFilter;
+
+import java.util.List;
+import java.util.function.Function;
 
 /**
  * RabbitMQ消息发送接口
@@ -21,10 +25,35 @@ public interface IRabbitmqSender {
      */
     public <T> RabbitmqMsgDTO<T> sendMessage(String exchange, String routingKey, T data, String businessId, String extraInfo);
 
+    /**
+     * 批量发送消息到指定的交换机和路由键
+     * 消息在同一事务中通过多行INSERT落库，事务提交后统一发送
+     *
+     * @param exchange         交换机名称
+     * @param routingKey       路由键
+     * @param dataList         消息数据列表
+     * @param businessIdGetter 从消息数据中获取业务ID的函数，可为null
+     * @param extraInfo        额外信息
+     * @param <T>              消息数据的泛型类型
+     * @return 包含消息信息的RabbitmqMsgDTO对象列表，顺序与dataList一致
+     */
+    public <T> List<RabbitmqMsgDTO<T>> sendMessages(String exchange, String routingKey, List<T> dataList, Function<T, String> businessIdGetter, String extraInfo);
+
     /**
      * 根据消息ID重新发送消息
      *
      * @param messageId 消息ID
      */
     public void resendMsg(String messageId);
+
+    /**
+     * 按筛选条件重发一批消息
+     * 在新事务中认领符合条件的消息并重置状态，事务提交后统一发送；按ID升序分批，以上一批最后一条消息的ID继续
+     *
+     * @param filter  筛选条件
+     * @param afterId 上一批最后一条消息的ID，首批传空字符串
+     * @param limit   最大条数
+     * @return 重发的消息ID列表，按ID升序
+     */
+    public List<String> resendMessages(ResendFilter filter, String afterId, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+package xyz.zhenliang.rabbitmq.sender.impl;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.metrics.LatencyRecorder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 发送确认处理器
+ * 将Broker的确认（confirm）和退回（return）回调从RabbitMQ客户端的连接线程转移到独立的处理线程，
+ * 避免数据库更新阻塞同一连接上的所有确认。
+ * 按消息ID分条带（stripe），同一消息的退回与确认在同一条带中按到达顺序处理；
+ * 每个条带为单线程、有界队列，队列满时由回调线程直接执行，形成反压。
+ * 应用停机时（在数据源等Bean销毁之前）等待已提交的任务处理完成，停机后到达的确认同样由回调线程直接执行。
+ */
+@Component
+public class RabbitmqConfirmProcessor implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(RabbitmqConfirmProcessor.class);
+
+    /**
+     * 条带数量，默认4
+     */
+    @Value("${mq.confirm.stripes:4}")
+    private int stripes = 4;
+
+    /**
+     * 每个条带的队列容量，默认10000
+     */
+    @Value("${mq.confirm.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    /**
+     * 停机时等待队列处理完成的最长时间（毫秒），默认10000ms
+     */
+    @Value("${mq.confirm.shutdown-timeout-millis:10000}")
+    private long shutdownTimeoutMillis = 10000;
+
+    private ThreadPoolExecutor[] executors;
+
+    private volatile boolean running = false;
+
+    /**
+     * 从回调到开始处理的延迟统计
+     */
+    private final LatencyRecorder lagRecorder = new LatencyRecorder();
+
+    @PostConstruct
+    public void init() {
+        executors = new ThreadPoolExecutor[stripes];
+        for (int i = 0; i < stripes; i++) {
+            String threadName = "rabbitmq-confirm-" + i;
+            executors[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    r -> {
+                        Thread thread = new Thread(r, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    // 队列满或已停机时由回调线程执行；CallerRunsPolicy在线程池关闭后会丢弃任务
+                    (r, executor) -> r.run());
+        }
+    }
+
+    /**
+     * 提交一个确认处理任务
+     *
+     * @param messageId 消息ID，用于选择条带
+     * @param task      处理任务
+     */
+    public void submit(String messageId, Runnable task) {
+        long enqueueNanos = System.nanoTime();
+        Runnable command = () -> {
+            lagRecorder.recordSince(enqueueNanos);
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Failed to process publisher confirm, messageId: {}", messageId, e);
+            }
+        };
+        executors[stripeOf(messageId)].execute(command);
+    }
+
+    /**
+     * 计算消息所在的条带
+     *
+     * @param messageId 消息ID
+     * @return 条带下标
+     */
+    private int stripeOf(String messageId) {
+        return messageId == null ? 0 : (messageId.hashCode() & Integer.MAX_VALUE) % executors.length;
+    }
+
+    /**
+     * 获取所有条带中等待处理的任务总数
+     *
+     * @return 队列深度
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor executor : executors) {
+            depth += executor.getQueue().size();
+        }
+        return depth;
+    }
+
+    public LatencyRecorder getLagRecorder() {
+        return lagRecorder;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * 停机时处理完已提交的确认任务
+     */
+    @Override
+    public void stop() {
+        running = false;
+        for (ThreadPoolExecutor executor : executors) {
+            executor.shutdown();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
+        try {
+            for (ThreadPoolExecutor executor : executors) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !executor.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                    log.warn("Publisher confirm processor did not finish in time, pending: {}", getQueueDepth());
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 阶段0：在消息监听容器、Web服务器等停止之后停止，在Bean销毁之前完成
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
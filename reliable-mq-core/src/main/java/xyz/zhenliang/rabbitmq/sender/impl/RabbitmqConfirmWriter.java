@@ -0,0 +1,218 @@
+package xyz.zhenliang.rabbitmq.sender.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.metrics.LatencyRecorder;
+import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发送确认成功状态的批量写入器（write-behind）
+ * 将短时间窗口内到达的确认成功消息ID汇总，按数量或等待时间触发，使用一条 WHERE id IN (...) 语句批量更新，
+ * 避免每个确认都占用一次数据库事务。批内按发送次数分组，通常所有消息都只发送了一次，即一条语句。
+ * 应用停机时在确认处理器之后停止，并把剩余的确认全部写入数据库。
+ */
+@Component
+public class RabbitmqConfirmWriter implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(RabbitmqConfirmWriter.class);
+
+    @Autowired
+    private IRabbitmqMessageService rabbitmqMessageService;
+
+    /**
+     * 每批最多更新的消息数，默认500
+     */
+    @Value("${mq.confirm.batch-size:500}")
+    private int batchSize = 500;
+
+    /**
+     * 收到第一个确认后最多等待的时间（毫秒），默认20ms
+     */
+    @Value("${mq.confirm.linger-millis:20}")
+    private long lingerMillis = 20;
+
+    /**
+     * 待写入队列容量，满时确认处理线程阻塞等待，默认100000
+     */
+    @Value("${mq.confirm.writer-queue-capacity:100000}")
+    private int queueCapacity = 100000;
+
+    /**
+     * 停机时等待写入完成的最长时间（毫秒），默认10000ms
+     */
+    @Value("${mq.confirm.shutdown-timeout-millis:10000}")
+    private long shutdownTimeoutMillis = 10000;
+
+    private BlockingQueue<Confirmed> queue;
+
+    private Thread worker;
+
+    private volatile boolean running = false;
+
+    /**
+     * 每批写入的耗时统计
+     */
+    private final LatencyRecorder flushRecorder = new LatencyRecorder();
+
+    /**
+     * 登记一个确认成功的消息
+     *
+     * @param messageId 消息ID
+     * @param sendCount 发送次数（含重试）
+     */
+    public void add(String messageId, int sendCount) {
+        if (!running) {
+            // 未启动或已停止时直接写入
+            rabbitmqMessageService.updateSendConfirmSuccessById(messageId, sendCount);
+            return;
+        }
+        try {
+            queue.put(new Confirmed(messageId, sendCount));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rabbitmqMessageService.updateSendConfirmSuccessById(messageId, sendCount);
+        }
+    }
+
+    /**
+     * 写入线程主循环
+     */
+    private void run() {
+        List<Confirmed> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Confirmed first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    if (batch.size() >= batchSize) break;
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    Confirmed next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 批量写入确认成功状态，按发送次数分组，每组一条语句；批量失败时逐条重试
+     *
+     * @param batch 确认成功的消息列表
+     */
+    private void flush(List<Confirmed> batch) {
+        if (batch.isEmpty()) return;
+        long start = System.nanoTime();
+        Map<Integer, List<String>> groups = new LinkedHashMap<>();
+        for (Confirmed confirmed : batch) {
+            groups.computeIfAbsent(confirmed.sendCount, k -> new ArrayList<>()).add(confirmed.messageId);
+        }
+        for (Map.Entry<Integer, List<String>> group : groups.entrySet()) {
+            int sendCount = group.getKey();
+            List<String> messageIds = group.getValue();
+            try {
+                rabbitmqMessageService.updateSendConfirmSuccessByIds(messageIds, sendCount);
+            } catch (Exception e) {
+                log.error("Failed to update send confirm status in batch, size: {}, retry one by one", messageIds.size(), e);
+                for (String messageId : messageIds) {
+                    try {
+                        rabbitmqMessageService.updateSendConfirmSuccessById(messageId, sendCount);
+                    } catch (Exception ex) {
+                        log.error("Failed to update send confirm status, messageId: {}", messageId, ex);
+                    }
+                }
+            }
+        }
+        flushRecorder.recordSince(start);
+    }
+
+    /**
+     * 获取等待写入的确认数量
+     *
+     * @return 队列深度
+     */
+    public int getQueueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    public LatencyRecorder getFlushRecorder() {
+        return flushRecorder;
+    }
+
+    @Override
+    public void start() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::run, "rabbitmq-confirm-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 停止接收新的确认，并把队列中剩余的确认写入数据库
+     */
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            worker.join(shutdownTimeoutMillis);
+            if (worker.isAlive()) {
+                log.warn("Send confirm writer did not finish in time, pending: {}", getQueueDepth());
+                return;
+            }
+            // 写入停止前最后时刻登记的确认
+            List<Confirmed> rest = new ArrayList<>();
+            queue.drainTo(rest);
+            flush(rest);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 在确认处理器（阶段0）之后停止，确保其提交的确认都能写入
+     */
+    @Override
+    public int getPhase() {
+        return -100;
+    }
+
+    /**
+     * 确认成功的消息
+     */
+    private static final class Confirmed {
+        private final String messageId;
+        private final int sendCount;
+
+        private Confirmed(String messageId, int sendCount) {
+            this.messageId = messageId;
+            this.sendCount = sendCount;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package xyz.zhenliang.rabbitmq.sender.impl;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import xyz.zhenliang.rabbitmq.exception.TechException;
+import xyz.zhenliang.rabbitmq.metrics.LatencyRecorder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 消息发布线程池
+ * 框架自有的有界发布执行器，事务提交后的异步发送都在这里执行（@Async("rabbitmqPublishExecutor")），
+ * 不再依赖应用默认的任务执行器。
+ * 队列满时的反压策略：
+ * <ul>
+ *     <li>caller-runs：由提交发送的线程（提交事务的业务线程）直接发送</li>
+ *     <li>block：提交线程阻塞等待队列空位，超时后由提交线程直接发送</li>
+ * </ul>
+ * 可选虚拟线程模式（需JDK21及以上），此时以最大并发数信号量作为反压。
+ */
+@Component(RabbitmqPublishExecutor.BEAN_NAME)
+public class RabbitmqPublishExecutor implements Executor, SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(RabbitmqPublishExecutor.class);
+
+    /**
+     * Bean名称，用于@Async指定执行器
+     */
+    public static final String BEAN_NAME = "rabbitmqPublishExecutor";
+
+    /**
+     * 线程数，默认4
+     */
+    @Value("${mq.publisher.pool-size:4}")
+    private int poolSize = 4;
+
+    /**
+     * 队列容量，默认10000
+     */
+    @Value("${mq.publisher.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    /**
+     * 队列满时的反压策略：caller-runs或block，默认caller-runs
+     */
+    @Value("${mq.publisher.rejection-policy:caller-runs}")
+    private String rejectionPolicy = "caller-runs";
+
+    /**
+     * block策略下最长阻塞时间（毫秒），默认30000ms
+     */
+    @Value("${mq.publisher.block-timeout-millis:30000}")
+    private long blockTimeoutMillis = 30000;
+
+    /**
+     * 是否使用虚拟线程，默认false
+     */
+    @Value("${mq.publisher.virtual-threads:false}")
+    private boolean virtualThreads = false;
+
+    /**
+     * 虚拟线程模式下的最大并发发送数，默认1000
+     */
+    @Value("${mq.publisher.virtual-max-concurrency:1000}")
+    private int virtualMaxConcurrency = 1000;
+
+    /**
+     * 停机时等待发送完成的最长时间（毫秒），默认10000ms
+     */
+    @Value("${mq.publisher.shutdown-timeout-millis:10000}")
+    private long shutdownTimeoutMillis = 10000;
+
+    private ThreadPoolExecutor threadPool;
+
+    private ExecutorService virtualExecutor;
+
+    private Semaphore virtualPermits;
+
+    private volatile boolean running = false;
+
+    /**
+     * 任务从提交到开始执行的等待时间统计
+     */
+    private final LatencyRecorder queueWaitRecorder = new LatencyRecorder();
+
+    /**
+     * 发送任务执行耗时统计
+     */
+    private final LatencyRecorder publishRecorder = new LatencyRecorder();
+
+    @PostConstruct
+    public void init() {
+        if (virtualThreads) {
+            virtualExecutor = newVirtualThreadExecutor();
+            if (virtualExecutor != null) {
+                virtualPermits = new Semaphore(virtualMaxConcurrency);
+                return;
+            }
+            log.warn("Virtual threads are not available on this JVM, fall back to platform threads");
+        }
+        AtomicInteger index = new AtomicInteger();
+        threadPool = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "rabbitmq-publish-" + index.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                rejectedExecutionHandler());
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器，编译目标仍为JDK17
+     *
+     * @return 虚拟线程执行器，JVM不支持时返回null
+     */
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 根据配置创建队列满时的处理策略
+     *
+     * @return 拒绝策略
+     */
+    private RejectedExecutionHandler rejectedExecutionHandler() {
+        if ("block".equalsIgnoreCase(rejectionPolicy)) {
+            return (r, executor) -> {
+                if (executor.isShutdown()) {
+                    r.run();
+                    return;
+                }
+                try {
+                    if (!executor.getQueue().offer(r, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        log.warn("Publish queue still full after {}ms, publish in caller thread", blockTimeoutMillis);
+                        r.run();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new TechException("Interrupted while waiting for publish queue", e);
+                }
+            };
+        }
+        if (!"caller-runs".equalsIgnoreCase(rejectionPolicy)) {
+            throw new IllegalArgumentException("Unsupported mq.publisher.rejection-policy: " + rejectionPolicy);
+        }
+        // 线程池关闭后CallerRunsPolicy会丢弃任务，这里仍由调用线程执行，保证不丢消息
+        return (r, executor) -> r.run();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        long submitNanos = System.nanoTime();
+        Runnable task = () -> {
+            queueWaitRecorder.recordSince(submitNanos);
+            long start = System.nanoTime();
+            try {
+                command.run();
+            } finally {
+                publishRecorder.recordSince(start);
+            }
+        };
+        if (virtualExecutor != null) {
+            executeVirtual(task);
+        } else {
+            threadPool.execute(task);
+        }
+    }
+
+    /**
+     * 在虚拟线程中执行，超过最大并发数时提交线程阻塞等待
+     *
+     * @param task 任务
+     */
+    private void executeVirtual(Runnable task) {
+        if (virtualExecutor.isShutdown()) {
+            task.run();
+            return;
+        }
+        try {
+            virtualPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TechException("Interrupted while waiting for publish permit", e);
+        }
+        try {
+            virtualExecutor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    virtualPermits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            virtualPermits.release();
+            task.run();
+        }
+    }
+
+    /**
+     * 获取等待执行的发送任务数
+     *
+     * @return 队列深度
+     */
+    public int getQueueDepth() {
+        if (virtualExecutor != null) return virtualPermits.getQueueLength();
+        return threadPool.getQueue().size();
+    }
+
+    /**
+     * 获取正在执行的发送任务数
+     *
+     * @return 活动任务数
+     */
+    public int getActiveCount() {
+        if (virtualExecutor != null) return virtualMaxConcurrency - virtualPermits.availablePermits();
+        return threadPool.getActiveCount();
+    }
+
+    public LatencyRecorder getQueueWaitRecorder() {
+        return queueWaitRecorder;
+    }
+
+    public LatencyRecorder getPublishRecorder() {
+        return publishRecorder;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * 停机时等待已提交的发送完成，之后提交的发送由调用线程直接执行
+     */
+    @Override
+    public void stop() {
+        running = false;
+        ExecutorService executor = virtualExecutor != null ? virtualExecutor : threadPool;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("Publish executor did not finish in time, pending: {}", getQueueDepth());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 在确认处理器（阶段0）之前停止，发送产生的确认仍能被处理
+     */
+    @Override
+    public int getPhase() {
+        return 100;
+    }
+}
@@ -4,10 +4,9 @@ import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.Message;
-import org.springframework.amqp.core.MessageBuilder;
 import org.springframework.amqp.core.MessageDeliveryMode;
 import org.springframework.amqp.core.MessageProperties;
-import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,20 +14,29 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
+import xyz.zhenliang.rabbitmq.codec.IRabbitmqCodec;
+import xyz.zhenliang.rabbitmq.codec.IRabbitmqCompressor;
+import xyz.zhenliang.rabbitmq.codec.RabbitmqCodecRegistry;
 import xyz.zhenliang.rabbitmq.constant.RabbitMQConstant;
 import xyz.zhenliang.rabbitmq.context.CorrelationDataContext;
+import xyz.zhenliang.rabbitmq.context.RabbitmqCorrelationData;
 import xyz.zhenliang.rabbitmq.dto.RabbitmqMsgDTO;
+import xyz.zhenliang.rabbitmq.dto.RabbitmqPublishMsg;
+import xyz.zhenliang.rabbitmq.dto.ResendFilter;
 import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
 import xyz.zhenliang.rabbitmq.exception.TechException;
+import xyz.zhenliang.rabbitmq.id.IRabbitmqIdGenerator;
 import xyz.zhenliang.rabbitmq.sender.IRabbitmqSender;
 import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
 import xyz.zhenliang.rabbitmq.service.impl.RabbitmqReminderService;
 import xyz.zhenliang.rabbitmq.utils.JsonUtils;
 import xyz.zhenliang.rabbitmq.utils.RabbitmqUtils;
-import xyz.zhenliang.rabbitmq.utils.MqSpringUtils;
-import xyz.zhenliang.rabbitmq.utils.UUIDUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntToLongFunction;
 
 /**
  * RabbitMQ消息发送器实现类
@@ -49,15 +57,29 @@ public class RabbitmqSenderImpl implements IRabbitmqSender {
     @Autowired
     private RabbitmqReminderService reminderService;
 
+    @Autowired
+    private RabbitmqConfirmProcessor confirmProcessor;
+
+    @Autowired
+    private RabbitmqConfirmWriter confirmWriter;
+
+    @Autowired
+    private RabbitmqCodecRegistry codecRegistry;
+
+    @Autowired
+    private IRabbitmqIdGenerator idGenerator;
+
     @Value("${mq.id-prefix:}")
     private String idPrefix;
 
     private static final String SEND_SUCCESS = "Message sent successfully to Exchange: {}";
     private static final String SEND_FAILED = "Failed to send message to Exchange: {}, cause: {}";
+    private static final String NO_ROUTE = "Message routing to queue failed.No suitable queue can be routed to.";
 
     /**
      * 初始化RabbitTemplate回调函数
      * 设置消息发送确认回调和消息返回回调
+     * 回调运行在RabbitMQ客户端的连接线程上，只负责把事件交给确认处理器，数据库更新和提醒在确认处理器线程中执行
      */
     @PostConstruct
     public void init() {
@@ -66,39 +88,51 @@ public class RabbitmqSenderImpl implements IRabbitmqSender {
             if (correlationData != null) {
                 String mid = correlationData.getId();
                 if (mid == null) return;
-                if (ack) {
-                    log.info(SEND_SUCCESS, mid);
-                    // 更新消息发送确认状态为成功
-                    rabbitmqMessageService.updateSendConfirmSuccessById(mid);
-                } else {
-                    log.error(SEND_FAILED, mid, cause);
-                    // 更新消息发送确认状态为失败
-                    rabbitmqMessageService.updateSendConfirmFailById(mid, cause);
-                    reminderService.sendFailedReminder(mid, cause);
-                }
+                int sendCount = correlationData instanceof RabbitmqCorrelationData
+                        ? ((RabbitmqCorrelationData) correlationData).getSendCount() : 1;
+                // 无法路由的消息Broker仍会确认成功，退回信息在确认前已设置到关联数据中
+                boolean returned = correlationData.getReturned() != null;
+                confirmProcessor.submit(mid, () -> handleConfirm(mid, ack, returned, sendCount, cause));
             }
         });
-        // 设置消息返回回调，处理消息无法路由到队列的情况
+        // 设置消息返回回调，处理消息无法路由到队列的情况，状态由随后的确认回调统一更新
         rabbitTemplate.setReturnsCallback(returned -> {
-            returned.getMessage().getMessageProperties().getCorrelationId();
-            if (returned.getMessage().getMessageProperties() != null) {
-                String mid = returned.getMessage().getMessageProperties().getCorrelationId();
-                if (mid != null) {
-                    // 更新消息发送确认状态为失败，原因为无法路由到队列
-                    rabbitmqMessageService.updateSendConfirmFailById(mid, "Message routing to queue failed.No suitable queue can be routed to.");
-                    reminderService.sendFailedReminder(mid, "Message routing to queue failed.No suitable queue can be routed to.");
-                }
-            }
-            log.error("Message routing to queue failed.No suitable queue can be routed to. \nReply code: {}, Reason: {}, Exchange: {}, Routing key: {}, Message: {}",
+            String mid = returned.getMessage().getMessageProperties() == null ? null
+                    : returned.getMessage().getMessageProperties().getCorrelationId();
+            confirmProcessor.submit(mid, () -> log.error(NO_ROUTE + " \nReply code: {}, Reason: {}, Exchange: {}, Routing key: {}, Message: {}",
                     returned.getReplyCode(),
                     returned.getReplyText(),
                     returned.getExchange(),
                     returned.getRoutingKey(),
-                    RabbitmqUtils.toString(returned.getMessage().getBody()));
+                    codecRegistry.toReadableString(returned.getMessage().getMessageProperties().getContentType(), returned.getMessage().getBody())));
         });
 
     }
 
+    /**
+     * 处理Broker发送确认
+     * 发送的状态迁移只在这里写一次：确认成功（且未被退回）为成功，否则为失败
+     *
+     * @param mid       消息ID
+     * @param ack       是否确认成功
+     * @param returned  消息是否已被退回
+     * @param sendCount 发送次数（含重试）
+     * @param cause     确认失败原因
+     */
+    private void handleConfirm(String mid, boolean ack, boolean returned, int sendCount, String cause) {
+        if (ack && !returned) {
+            log.info(SEND_SUCCESS, mid);
+            // 更新消息发送确认状态为成功，由批量写入器合并为IN列表更新
+            confirmWriter.add(mid, sendCount);
+        } else {
+            String errorMessage = ack ? NO_ROUTE : cause;
+            log.error(SEND_FAILED, mid, errorMessage);
+            // 更新消息发送确认状态为失败
+            rabbitmqMessageService.updateSendConfirmFailById(mid, sendCount, errorMessage);
+            reminderService.sendFailedReminder(mid, errorMessage);
+        }
+    }
+
     /**
      * 发送消息接口实现
      * 该方法在事务中执行，确保消息先持久化到数据库，再在事务提交后发送到MQ
@@ -114,20 +148,15 @@ public class RabbitmqSenderImpl implements IRabbitmqSender {
     @Transactional
     @Override
     public <T> RabbitmqMsgDTO<T> sendMessage(String exchange, String routingKey, T data, String businessId, String extraInfo) {
-        String messageId = idPrefix+UUIDUtils.generate32UUID();
+        String messageId = idPrefix + idGenerator.generate();
         RabbitmqMsgDTO<T> msgDTO = new RabbitmqMsgDTO<>(messageId, exchange, routingKey, data, businessId, extraInfo);
         try {
-            // 1.新增消息数据到数据库，确保消息持久化
+            // 1.新增消息数据到数据库，确保消息持久化；消息只序列化一次，同一个字节数组既写入数据库也作为AMQP消息体
+            RabbitmqPublishMsg publishMsg = encode(msgDTO);
             rabbitmqMessageService.createMessageBySender(messageId, msgDTO.getBusinessId(), exchange, routingKey
-                    , JsonUtils.toJson(msgDTO));
-            // 2.注册事务同步，在事务提交后发送消息
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @Override
-                public void afterCommit() {
-                    // 在事务提交后发送消息，确保数据库操作成功后再发送消息
-                    send(exchange, routingKey, msgDTO);
-                }
-            });
+                    , publishMsg.getMessageBody());
+            // 2.登记到事务发送缓冲区，在事务提交后与同一事务中的其他消息一起发送
+            TransactionSendBuffer.enlist(List.of(publishMsg));
 
             return msgDTO;
         } catch (Exception e) {
@@ -137,19 +166,70 @@ public class RabbitmqSenderImpl implements IRabbitmqSender {
     }
 
     /**
-     * 发送消息方法
-     * 通过Spring容器获取当前Bean实例并调用异步发送方法
+     * 批量发送消息接口实现
+     * 该方法在事务中执行，消息通过多行INSERT批量持久化到数据库，并登记到事务发送缓冲区，在事务提交后统一发送到MQ
      *
-     * @param exchange   交换机名称
-     * @param routingKey 路由键
-     * @param msgDTO     消息DTO对象
-     * @param <T>        消息数据类型
+     * @param exchange         交换机名称
+     * @param routingKey       路由键
+     * @param dataList         消息数据列表
+     * @param businessIdGetter 从消息数据中获取业务ID的函数，可为null
+     * @param extraInfo        额外信息
+     * @param <T>              消息数据类型
+     * @return 消息DTO对象列表
      */
-    public <T> void send(String exchange, String routingKey, RabbitmqMsgDTO<T> msgDTO) {
-        String messageId = msgDTO.getMessageId();
-        RabbitmqSenderImpl sender = MqSpringUtils.getBean(RabbitmqSenderImpl.class);
-        // 异步发送消息
-        sender.send(exchange, routingKey, messageId, msgDTO.getBusinessId(), JsonUtils.toJson(msgDTO));
+    @Transactional
+    @Override
+    public <T> List<RabbitmqMsgDTO<T>> sendMessages(String exchange, String routingKey, List<T> dataList, Function<T, String> businessIdGetter, String extraInfo) {
+        List<RabbitmqMsgDTO<T>> msgDTOs = new ArrayList<>(dataList.size());
+        List<RabbitmqMessage> messages = new ArrayList<>(dataList.size());
+        List<RabbitmqPublishMsg> publishMsgs = new ArrayList<>(dataList.size());
+        for (T data : dataList) {
+            String messageId = idPrefix + idGenerator.generate();
+            String businessId = businessIdGetter == null ? null : businessIdGetter.apply(data);
+            RabbitmqMsgDTO<T> msgDTO = new RabbitmqMsgDTO<>(messageId, exchange, routingKey, data, businessId, extraInfo);
+            RabbitmqMessage message = new RabbitmqMessage();
+            message.setId(messageId);
+            message.setBusinessId(businessId);
+            message.setExchange(exchange);
+            message.setRoutingKey(routingKey);
+            RabbitmqPublishMsg publishMsg = encode(msgDTO);
+            message.setMessageBody(publishMsg.getMessageBody());
+            msgDTOs.add(msgDTO);
+            messages.add(message);
+            publishMsgs.add(publishMsg);
+        }
+        try {
+            // 1.批量新增消息数据到数据库，确保消息持久化
+            rabbitmqMessageService.createMessagesBySender(messages);
+            // 2.登记到事务发送缓冲区，在事务提交后统一发送消息
+            TransactionSendBuffer.enlist(publishMsgs);
+            return msgDTOs;
+        } catch (Exception e) {
+            log.error("Failed to send messages.\nexchange: {}\nroutingKey: {}\nsize: {}\n{}",
+                    exchange, routingKey, dataList.size(), e.getMessage(), e);
+            throw new TechException("Failed to send messages.", e);
+        }
+    }
+
+    /**
+     * 编码消息
+     * 使用交换机对应的编解码器编码，超过压缩阈值时再压缩，得到的字节数组既写入数据库也作为AMQP消息体
+     *
+     * @param msgDTO 消息DTO对象
+     * @param <T>    消息数据类型
+     * @return 待发送的消息
+     */
+    private <T> RabbitmqPublishMsg encode(RabbitmqMsgDTO<T> msgDTO) {
+        IRabbitmqCodec codec = codecRegistry.forExchange(msgDTO.getExchange());
+        byte[] messageBody = codec.encode(msgDTO);
+        IRabbitmqCompressor compressor = codecRegistry.compressorFor(messageBody);
+        String contentEncoding = null;
+        if (compressor != null) {
+            messageBody = compressor.compress(messageBody);
+            contentEncoding = compressor.getContentEncoding();
+        }
+        return new RabbitmqPublishMsg(msgDTO.getExchange(), msgDTO.getRoutingKey(), msgDTO.getMessageId(), msgDTO.getBusinessId()
+                , messageBody, codec.getContentType(), contentEncoding);
     }
 
     /**
@@ -161,27 +241,80 @@ public class RabbitmqSenderImpl implements IRabbitmqSender {
      * @param messageId   消息ID
      * @param businessId  业务ID
      * @param messageBody 消息体内容
+     * @deprecated 框架内部已不再调用，消息体已改为字节数组，请使用{@link #send(List)}
      */
-    @Async
+    @Deprecated
+    @Async(RabbitmqPublishExecutor.BEAN_NAME)
     public void send(String exchange, String routingKey, String messageId, String businessId, String messageBody) {
+        doSend(rabbitTemplate, new RabbitmqPublishMsg(exchange, routingKey, messageId, businessId, RabbitmqUtils.toByteArray(messageBody)));
+    }
+
+    /**
+     * 异步批量发送消息方法
+     * 一个事务中登记的全部消息作为一个整体，只经过一次异步线程切换，并在同一个通道上连续发送
+     * 单条消息发送失败不影响其余消息，失败状态由发送重试监听器记录
+     *
+     * @param msgs 待发送的消息列表
+     */
+    @Async(RabbitmqPublishExecutor.BEAN_NAME)
+    public void send(List<RabbitmqPublishMsg> msgs) {
+        if (msgs.size() == 1) {
+            doSend(rabbitTemplate, msgs.get(0));
+            return;
+        }
+        // invoke期间绑定一个专用通道，所有消息复用该通道发送
+        rabbitTemplate.invoke(operations -> {
+            for (RabbitmqPublishMsg msg : msgs) {
+                try {
+                    doSend(operations, msg);
+                } catch (Exception e) {
+                    log.error(SEND_FAILED, msg.getMessageId(), e.getMessage(), e);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 构造AMQP消息并通过指定的RabbitOperations发送到交换机和路由键
+     *
+     * @param operations RabbitMQ操作对象
+     * @param msg        待发送的消息
+     */
+    private void doSend(RabbitOperations operations, RabbitmqPublishMsg msg) {
+        String messageId = msg.getMessageId();
         // 1.设置消息属性，确保消息持久化
         MessageProperties properties = new MessageProperties();
         properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT); // 消息持久化
         properties.setMessageId(messageId); // 设置消息ID
         properties.setCorrelationId(messageId); // 设置关联ID用于确认机制
-        if (businessId != null)
-            properties.setHeader(RabbitMQConstant.BUSINESS_ID, businessId); // 设置业务ID头部信息
+        // 设置消息体编码格式和压缩算法，从消息表重发的消息根据消息体识别
+        String contentEncoding = msg.getContentEncoding();
+        if (contentEncoding == null) {
+            IRabbitmqCompressor compressor = codecRegistry.detectCompressor(msg.getMessageBody());
+            if (compressor != null) contentEncoding = compressor.getContentEncoding();
+        }
+        String contentType = msg.getContentType();
+        if (contentType == null) {
+            contentType = codecRegistry.resolve(null, codecRegistry.decompress(contentEncoding, msg.getMessageBody())).getContentType();
+        }
+        properties.setContentType(contentType);
+        if (contentEncoding != null) properties.setContentEncoding(contentEncoding);
+        if (msg.getBusinessId() != null)
+            properties.setHeader(RabbitMQConstant.BUSINESS_ID, msg.getBusinessId()); // 设置业务ID头部信息
+        properties.setHeader(RabbitMQConstant.EXCHANGE, msg.getExchange()); // 设置原始交换机，消费端无需解析消息体即可认领
+        properties.setHeader(RabbitMQConstant.ROUTING_KEY, msg.getRoutingKey()); // 设置原始路由键
+        if (msg.isResend())
+            properties.setHeader(RabbitMQConstant.RESEND, true); // 人工重发的消息需重新消费
 
-        Message amqpMessage = MessageBuilder.withBody(
-                        RabbitmqUtils.toByteArray(messageBody))
-                .andProperties(properties)
-                .build();
+        // 直接使用已序列化的字节数组作为消息体，不再复制
+        Message amqpMessage = new Message(msg.getMessageBody(), properties);
 
-        CorrelationData correlationData = new CorrelationData(messageId);
+        RabbitmqCorrelationData correlationData = new RabbitmqCorrelationData(messageId);
         CorrelationDataContext.set(correlationData);
 
         // 2.消息发送
-        rabbitTemplate.send(exchange, routingKey, amqpMessage, correlationData);
+        operations.send(msg.getExchange(), msg.getRoutingKey(), amqpMessage, correlationData);
     }
 
     /**
@@ -202,6 +335,77 @@ public class RabbitmqSenderImpl implements IRabbitmqSender {
         throw new TechException(message, e);
     }
 
+    /**
+     * 转发一批发送状态停滞的消息
+     * 在新事务中认领停滞的消息并登记到事务发送缓冲区，事务提交后统一发送
+     *
+     * @param sendStatus   发送状态，发送中或发送失败
+     * @param before       最后发送时间早于该时间的消息视为停滞
+     * @param afterId      上一批最后一条消息的ID，首批传空字符串
+     * @param maxSendCount 发送次数上限
+     * @param limit        最大条数
+     * @return 认领并转发的消息ID列表，按ID升序
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<String> relayStaleMessages(int sendStatus, LocalDateTime before, String afterId, int maxSendCount, int limit) {
+        List<RabbitmqMessage> messages = rabbitmqMessageService.claimStaleSendMessages(sendStatus, before, afterId, maxSendCount, limit);
+        List<String> messageIds = new ArrayList<>(messages.size());
+        List<RabbitmqPublishMsg> publishMsgs = new ArrayList<>(messages.size());
+        for (RabbitmqMessage msg : messages) {
+            messageIds.add(msg.getId());
+            publishMsgs.add(new RabbitmqPublishMsg(msg.getExchange(), msg.getRoutingKey(), msg.getId(), msg.getBusinessId(), msg.getMessageBody()));
+        }
+        TransactionSendBuffer.enlist(publishMsgs);
+        return messageIds;
+    }
+
+    /**
+     * 重发一批到达下次重发时间的发送失败消息
+     * 在新事务中认领到期的消息并登记到事务发送缓冲区，事务提交后统一发送
+     *
+     * @param now           当前时间
+     * @param firstBefore   未设置下次重发时间的消息，最后发送时间早于该时间视为到期
+     * @param maxSendCount  发送次数上限
+     * @param limit         最大条数
+     * @param backoffMillis 按发送次数计算重发间隔（毫秒）
+     * @return 认领并重发的消息数
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int rescueFailedMessages(LocalDateTime now, LocalDateTime firstBefore, int maxSendCount, int limit, IntToLongFunction backoffMillis) {
+        List<RabbitmqMessage> messages = rabbitmqMessageService.claimDueFailedSendMessages(now, firstBefore, maxSendCount, limit, backoffMillis);
+        List<RabbitmqPublishMsg> publishMsgs = new ArrayList<>(messages.size());
+        for (RabbitmqMessage msg : messages) {
+            publishMsgs.add(new RabbitmqPublishMsg(msg.getExchange(), msg.getRoutingKey(), msg.getId(), msg.getBusinessId(), msg.getMessageBody()));
+        }
+        TransactionSendBuffer.enlist(publishMsgs);
+        return messages.size();
+    }
+
+    /**
+     * 按筛选条件重发一批消息
+     * 在新事务中认领符合条件的消息、批量重置状态，并登记到事务发送缓冲区，事务提交后统一发送
+     *
+     * @param filter  筛选条件
+     * @param afterId 上一批最后一条消息的ID，首批传空字符串
+     * @param limit   最大条数
+     * @return 重发的消息ID列表，按ID升序
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Override
+    public List<String> resendMessages(ResendFilter filter, String afterId, int limit) {
+        List<RabbitmqMessage> messages = rabbitmqMessageService.claimResendMessages(filter, afterId, limit);
+        List<String> messageIds = new ArrayList<>(messages.size());
+        List<RabbitmqPublishMsg> publishMsgs = new ArrayList<>(messages.size());
+        for (RabbitmqMessage msg : messages) {
+            messageIds.add(msg.getId());
+            RabbitmqPublishMsg publishMsg = new RabbitmqPublishMsg(msg.getExchange(), msg.getRoutingKey(), msg.getId(), msg.getBusinessId(), msg.getMessageBody());
+            publishMsg.setResend(true);
+            publishMsgs.add(publishMsg);
+        }
+        TransactionSendBuffer.enlist(publishMsgs);
+        return messageIds;
+    }
+
     /**
      * 重新发送消息接口实现
      * 将消息状态重置为未消费状态，并在事务提交后重新发送消息
@@ -214,13 +418,9 @@ public class RabbitmqSenderImpl implements IRabbitmqSender {
         RabbitmqMessage msg = rabbitmqMessageService.getById(messageId);
         //将消息改为未消费
         rabbitmqMessageService.resendMsg(messageId);
-        // 2.注册事务同步，在事务提交后发送消息
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-                // 在事务提交后发送消息，确保数据库操作成功后再同步发送消息
-                send(msg.getExchange(), msg.getRoutingKey(), messageId, msg.getBusinessId(), msg.getMessageBody());
-            }
-        });
+        // 2.登记到事务发送缓冲区，在事务提交后发送消息
+        RabbitmqPublishMsg publishMsg = new RabbitmqPublishMsg(msg.getExchange(), msg.getRoutingKey(), messageId, msg.getBusinessId(), msg.getMessageBody());
+        publishMsg.setResend(true);
+        TransactionSendBuffer.enlist(List.of(publishMsg));
     }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package xyz.zhenliang.rabbitmq.sender.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import xyz.zhenliang.rabbitmq.dto.RabbitmqPublishMsg;
+import xyz.zhenliang.rabbitmq.utils.MqSpringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 事务级发送缓冲区
+ * 同一事务中登记的所有消息汇总到一个缓冲区，事务只注册一个事务同步，
+ * 提交后将全部消息作为一个整体交给发送器，在同一个通道上连续发送
+ */
+public class TransactionSendBuffer implements TransactionSynchronization {
+
+    /**
+     * 当前事务中待发送的消息
+     */
+    private final List<RabbitmqPublishMsg> messages = new ArrayList<>();
+
+    private TransactionSendBuffer() {
+    }
+
+    /**
+     * 将消息登记到当前事务的发送缓冲区
+     * 必须在事务中调用，没有活动的事务同步时抛出异常，避免消息在落库提交之前发出
+     *
+     * @param msgs 待发送的消息
+     * @throws IllegalStateException 没有活动的事务同步
+     */
+    public static void enlist(Collection<RabbitmqPublishMsg> msgs) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Transaction synchronization is not active");
+        }
+        if (msgs.isEmpty()) return;
+        currentBuffer().messages.addAll(msgs);
+    }
+
+    /**
+     * 获取当前事务的发送缓冲区，不存在则创建并注册事务同步
+     * 通过事务同步列表查找而不是绑定资源，使REQUIRES_NEW挂起外层事务时缓冲区随之挂起
+     *
+     * @return 当前事务的发送缓冲区
+     */
+    private static TransactionSendBuffer currentBuffer() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionSendBuffer) {
+                return (TransactionSendBuffer) synchronization;
+            }
+        }
+        TransactionSendBuffer buffer = new TransactionSendBuffer();
+        TransactionSynchronizationManager.registerSynchronization(buffer);
+        return buffer;
+    }
+
+    /**
+     * 事务提交后将缓冲区中的全部消息一次性交给发送器
+     */
+    @Override
+    public void afterCommit() {
+        if (messages.isEmpty()) return;
+        MqSpringUtils.getBean(RabbitmqSenderImpl.class).send(new ArrayList<>(messages));
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+        messages.clear();
+    }
+}
@@ -1,9 +1,16 @@
 package xyz.zhenliang.rabbitmq.service;
 
+import xyz.zhenliang.rabbitmq.dto.ConsumeClaim;
 import xyz.zhenliang.rabbitmq.dto.RabbitmqMsgDTO;
+import xyz.zhenliang.rabbitmq.dto.ResendFilter;
 import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntToLongFunction;
+
 /**
  * <p>
  * RabbitMQ消息表服务接口
@@ -16,13 +23,24 @@ import com.baomidou.mybatisplus.extension.service.IService;
 public interface IRabbitmqMessageService extends IService<RabbitmqMessage> {
     /**
      * 重新发送消息
-     * 将消息状态重置为待发送状态，发送次数加1，并重置消费状态为未消费
+     * 将消息发送状态重置为发送中，并重置消费状态为未消费
      *
      * @param messageId 消息ID
      * @return 是否更新成功
      */
     boolean resendMsg(String messageId);
 
+    /**
+     * 按筛选条件认领一批待重发的消息
+     * 按主键顺序锁定符合条件的消息，并在同一事务中批量将发送状态重置为发送中、消费状态重置为未消费；需在调用方事务中执行
+     *
+     * @param filter  筛选条件
+     * @param afterId 上一批最后一条消息的ID，首批传空字符串
+     * @param limit   最大条数
+     * @return 认领到的消息列表，按ID升序
+     */
+    List<RabbitmqMessage> claimResendMessages(ResendFilter filter, String afterId, int limit);
+
     /**
      * 创建消息记录
      * 在消息发送前创建消息记录，初始化消息状态为发送中
@@ -31,10 +49,47 @@ public interface IRabbitmqMessageService extends IService<RabbitmqMessage> {
      * @param businessId  业务ID
      * @param exchange    交换机名称
      * @param routingKey  路由键
-     * @param messageBody 消息体内容
+     * @param messageBody 已序列化的消息体字节
      * @return 消息实体对象
      */
-    RabbitmqMessage createMessageBySender(String messageId, String businessId, String exchange, String routingKey, String messageBody);
+    RabbitmqMessage createMessageBySender(String messageId, String businessId, String exchange, String routingKey, byte[] messageBody);
+
+    /**
+     * 批量创建消息记录
+     * 在消息发送前批量创建消息记录，使用多行INSERT减少数据库往返，初始化消息状态为发送中
+     *
+     * @param messages 消息实体列表，需设置id、businessId、exchange、routingKey、messageBody
+     * @return 新增的记录数
+     */
+    int createMessagesBySender(List<RabbitmqMessage> messages);
+
+    /**
+     * 认领一批发送状态停滞的消息
+     * 按主键顺序锁定停滞的消息（FOR UPDATE SKIP LOCKED），并在同一事务中将其置为发送中、刷新最后发送时间（租约），
+     * 事务提交后其他节点不会再认领这些消息；需在调用方事务中执行
+     *
+     * @param sendStatus   发送状态，发送中或发送失败
+     * @param before       最后发送时间早于该时间的消息视为停滞
+     * @param afterId      上一批最后一条消息的ID，首批传空字符串
+     * @param maxSendCount 发送次数上限
+     * @param limit        最大条数
+     * @return 认领到的消息列表，按ID升序
+     */
+    List<RabbitmqMessage> claimStaleSendMessages(int sendStatus, LocalDateTime before, String afterId, int maxSendCount, int limit);
+
+    /**
+     * 认领一批到达下次重发时间的发送失败消息
+     * 按主键顺序锁定到期的消息（FOR UPDATE SKIP LOCKED），并在同一事务中将其置为发送中、按发送次数写入下一次重发时间；需在调用方事务中执行
+     *
+     * @param now           当前时间
+     * @param firstBefore   未设置下次重发时间的消息（首次失败），最后发送时间早于该时间视为到期
+     * @param maxSendCount  发送次数上限
+     * @param limit         最大条数
+     * @param backoffMillis 按发送次数计算重发间隔（毫秒）
+     * @return 认领到的消息列表，按ID升序
+     */
+    List<RabbitmqMessage> claimDueFailedSendMessages(LocalDateTime now, LocalDateTime firstBefore, int maxSendCount, int limit,
+                                                     IntToLongFunction backoffMillis);
 
     /**
      * 消费端创建消息记录
@@ -44,26 +99,15 @@ public interface IRabbitmqMessageService extends IService<RabbitmqMessage> {
      * @param businessId  业务ID
      * @param exchange    交换机名称
      * @param routingKey  路由键
-     * @param messageBody 消息体内容
+     * @param messageBody 已序列化的消息体字节
      * @return 消息实体对象
      */
-    RabbitmqMessage createMessageByConsumer(String messageId, String businessId, String exchange, String routingKey, String messageBody);
-
-
-    /**
-     * 更新消息发送成功状态
-     * 将消息发送状态更新为成功状态
-     *
-     * @param messageId 消息ID
-     * @param sendCount 发送次数
-     * @return 是否更新成功
-     */
-    boolean updateSendSuccessById(String messageId, int sendCount);
+    RabbitmqMessage createMessageByConsumer(String messageId, String businessId, String exchange, String routingKey, byte[] messageBody);
 
 
     /**
      * 更新消息发送失败状态
-     * 将消息发送状态更新为失败状态，并记录错误信息
+     * 发送重试全部失败时调用，仅当消息处于发送中时将其更新为失败，并记录发送次数和错误信息
      *
      * @param messageId    消息ID
      * @param sendCount    发送次数
@@ -74,22 +118,34 @@ public interface IRabbitmqMessageService extends IService<RabbitmqMessage> {
 
     /**
      * 设置消息发送确认成功
-     * 更新消息发送状态为成功，并记录确认时间
+     * 发送成功的唯一一次状态更新：仅当消息尚未确认成功时，更新发送状态为成功，累加发送次数，并记录发送及确认时间
      *
      * @param messageId 消息ID
+     * @param sendCount 本次发送的次数（含重试）
      * @return 是否更新成功
      */
-    boolean updateSendConfirmSuccessById(String messageId);
+    boolean updateSendConfirmSuccessById(String messageId, int sendCount);
+
+    /**
+     * 批量设置消息发送确认成功
+     * 使用一条 WHERE id IN (...) 语句完成多条消息的发送成功状态更新，条件同updateSendConfirmSuccessById
+     *
+     * @param messageIds 消息ID集合
+     * @param sendCount  本次发送的次数（含重试），集合中的消息发送次数相同
+     * @return 更新的记录数
+     */
+    int updateSendConfirmSuccessByIds(Collection<String> messageIds, int sendCount);
 
     /**
      * 设置消息发送确认失败
-     * 更新消息发送状态为失败，记录确认时间和失败原因
+     * 仅当消息处于发送中时更新发送状态为失败，累加发送次数，记录确认时间和失败原因
      *
      * @param messageId    消息ID
+     * @param sendCount    本次发送的次数（含重试）
      * @param errorMessage 失败原因
      * @return 是否更新成功
      */
-    boolean updateSendConfirmFailById(String messageId, String errorMessage);
+    boolean updateSendConfirmFailById(String messageId, int sendCount, String errorMessage);
 
     /**
      * 设置消息消费成功
@@ -97,9 +153,21 @@ public interface IRabbitmqMessageService extends IService<RabbitmqMessage> {
      *
      * @param messageId 消息ID
      * @return 是否更新成功
+     * @deprecated 不检查认领标识，租约已被其他消费者接管时会覆盖其状态，使用 {@link #updateConsumeSuccessById(String, String)}
      */
+    @Deprecated
     boolean updateConsumeSuccessById(String messageId);
 
+    /**
+     * 设置本次认领的消息消费成功
+     * 只更新消费中且认领标识一致的消息
+     *
+     * @param messageId 消息ID
+     * @param owner     认领标识，见claimMessageConsume
+     * @return 是否更新成功，false表示消息已被其他消费者接管
+     */
+    boolean updateConsumeSuccessById(String messageId, String owner);
+
     /**
      * 设置消息消费失败
      * 更新消息消费状态为失败，并记录失败原因
@@ -107,27 +175,129 @@ public interface IRabbitmqMessageService extends IService<RabbitmqMessage> {
      * @param messageId    消息ID
      * @param errorMessage 失败原因
      * @return 是否更新成功
+     * @deprecated 不检查认领标识，租约已被其他消费者接管时会覆盖其状态，使用 {@link #updateConsumeFailById(String, String, String)}
      */
+    @Deprecated
     boolean updateConsumeFailById(String messageId, String errorMessage);
 
+    /**
+     * 设置本次认领的消息消费失败
+     * 只更新认领标识一致的消息，已被其他消费者接管的消息不覆盖其状态
+     *
+     * @param messageId    消息ID
+     * @param owner        认领标识，见claimMessageConsume
+     * @param errorMessage 失败原因
+     * @return 是否更新成功
+     */
+    boolean updateConsumeFailById(String messageId, String owner, String errorMessage);
+
+    /**
+     * 在调用方事务中设置本次认领的消息消费成功
+     * 事务消费模式使用，必须在已有事务中调用，与业务写入一起提交或回滚
+     *
+     * @param messageId 消息ID
+     * @param owner     认领标识，见claimMessageConsume
+     * @return 是否更新成功，false表示消息已被其他消费者接管
+     */
+    boolean updateOwnedConsumeSuccessById(String messageId, String owner);
+
+    /**
+     * 在调用方事务中批量设置本次认领的消息消费成功
+     * 事务消费模式使用，必须在已有事务中调用，与业务写入一起提交或回滚
+     *
+     * @param messageIds 消息ID集合
+     * @param owner      认领标识，见claimMessageConsumeBatch
+     * @return 更新的记录数，小于集合大小表示部分消息已被其他消费者接管
+     */
+    int updateOwnedConsumeSuccessByIds(Collection<String> messageIds, String owner);
+
+    /**
+     * 批量设置本次认领的消息消费成功
+     * 使用一条 WHERE id IN (...) 语句更新消费中且认领标识一致的消息为消费成功，并记录消费成功时间
+     *
+     * @param messageIds 消息ID集合
+     * @param owner      认领标识，见claimMessageConsumeBatch
+     * @return 更新的记录数，小于集合大小表示部分消息已被其他消费者接管
+     */
+    int updateConsumeSuccessByIds(Collection<String> messageIds, String owner);
+
+    /**
+     * 批量设置消息消费失败
+     * 使用一条 WHERE id IN (...) 语句更新本次认领的消息消费状态为失败，并记录失败原因
+     *
+     * @param messageIds   消息ID集合
+     * @param owner        认领标识，见claimMessageConsumeBatch
+     * @param errorMessage 失败原因
+     * @return 更新的记录数
+     */
+    int updateConsumeFailByIds(Collection<String> messageIds, String owner, String errorMessage);
+
     /**
      * 幂等消息判断接口
-     * 检查消息是否已消费，用于实现消息消费的幂等性控制，防止重复消费
+     * 检查消息是否已消费并原子地认领消费权，用于实现消息消费的幂等性控制，并发消费同一消息时只有一个能认领成功
      *
      * @param msgDTO 消息DTO对象，包含消息ID等信息
-     * @return true-消息已消费或正在消费未超时，false-消息可被消费
+     * @return true-消息已消费或正在消费且租约未到期，false-消息可被消费
      */
     <T> boolean checkAndLockMessageConsume(RabbitmqMsgDTO<T> msgDTO);
 
+    /**
+     * 幂等消息判断接口
+     * 直接使用消息头中的信息认领消费权，无需解析消息体，认领条件同checkAndLockMessageConsume；每次调用生成唯一的认领标识，
+     * 之后的续约和消费状态更新都以该标识为条件
+     *
+     * @param message 消息实体，需设置id、businessId、exchange、routingKey、messageBody（原始消息体字节），消息不存在时以此新增
+     * @return 认领结果，消息ID集合为空表示消息已消费或正在消费且租约未到期
+     */
+    ConsumeClaim claimMessageConsume(RabbitmqMessage message);
+
+    /**
+     * 批量幂等消息判断接口
+     * 一次认领一批消息的消费权，认领条件同checkAndLockMessageConsume；每次调用生成唯一的认领标识，
+     * 之后的续约和消费状态更新都以该标识为条件
+     *
+     * @param messages 消息实体列表，需设置id、businessId、exchange、routingKey、messageBody，不存在的消息以此新增
+     * @return 认领结果，包含认领标识和认领成功、可被消费的消息ID集合
+     */
+    ConsumeClaim claimMessageConsumeBatch(List<RabbitmqMessage> messages);
+
+    /**
+     * 续约本节点正在消费的消息
+     * 处理时间较长的消息定时续约，租约到期前其他消费者不可认领，避免重复消费
+     *
+     * 每条消息只按其自身的认领标识续约，已被同一节点其他认领接管的消息不会被旧认领续约
+     *
+     * @param claims 待续约的认领，每个认领包含认领标识和该认领下的消息ID集合
+     * @return 续约成功的记录数，小于消息总数表示部分消息已不归本节点消费
+     */
+    int renewConsumeLease(Collection<ConsumeClaim> claims);
+
     /**
      * 处理死信消息
      * 当消息成为死信消息时进行处理，记录相关信息
      *
      * @param messageId   消息ID
-     * @param messageBody 消息体内容
+     * @param contentType 消息体编码格式，可为null
+     * @param messageBody 已序列化的消息体字节
      * @return 是否处理成功
+     * @deprecated 死信救援已改为批量保存，使用 {@link #saveDeadLetterMessages(List)}
      */
-    boolean processDeadLetterMessage(String messageId, String messageBody);
+    @Deprecated
+    boolean processDeadLetterMessage(String messageId, String contentType, byte[] messageBody);
 
+    /**
+     * 批量保存死信消息
+     * 多行INSERT IGNORE新增为消费失败，消息表中已存在的消息忽略
+     *
+     * @param messages 消息实体列表，需设置id、businessId、exchange、routingKey、messageBody
+     * @return 新增的记录数
+     */
+    int saveDeadLetterMessages(List<RabbitmqMessage> messages);
 
-}
\ No newline at end of file
+    /**
+     * 获取本节点标识，用于消费租约和调度任务锁
+     *
+     * @return 节点标识
+     */
+    String getConsumeOwnerId();
+}
@@ -0,0 +1,55 @@
+package xyz.zhenliang.rabbitmq.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import xyz.zhenliang.rabbitmq.mapper.RabbitmqLockMapper;
+import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
+
+import java.time.LocalDateTime;
+
+/**
+ * 调度任务锁服务
+ * 以rabbitmq_lock表中的一行作为带租约的锁，用于多节点选主：获取成功的节点成为主节点并执行扫描，其他节点空闲；
+ * 主节点每次执行时续约，宕机后租约到期即可由其他节点接管。租约到期时间按各节点本地时钟计算，节点间时钟偏差应远小于租约时长
+ */
+@Service
+public class RabbitmqLockService {
+    private static final Logger log = LoggerFactory.getLogger(RabbitmqLockService.class);
+
+    @Autowired
+    private RabbitmqLockMapper lockMapper;
+
+    @Autowired
+    private IRabbitmqMessageService rabbitmqMessageService;
+
+    /**
+     * 获取或续约锁
+     *
+     * @param name        锁名称
+     * @param leaseMillis 租约时长（毫秒）
+     * @return 本节点是否持有锁
+     */
+    public boolean tryAcquire(String name, long leaseMillis) {
+        String owner = rabbitmqMessageService.getConsumeOwnerId();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusNanos(leaseMillis * 1_000_000);
+        if (lockMapper.tryAcquire(name, owner, now, leaseUntil) > 0) return true;
+        // 锁记录不存在时先新增，再参与竞争
+        if (lockMapper.insertIgnore(name) > 0) {
+            log.info("Lock {} created", name);
+            return lockMapper.tryAcquire(name, owner, now, leaseUntil) > 0;
+        }
+        return false;
+    }
+
+    /**
+     * 释放本节点持有的锁，其他节点无需等待租约到期即可获取
+     *
+     * @param name 锁名称
+     */
+    public void release(String name) {
+        lockMapper.release(name, rabbitmqMessageService.getConsumeOwnerId());
+    }
+}
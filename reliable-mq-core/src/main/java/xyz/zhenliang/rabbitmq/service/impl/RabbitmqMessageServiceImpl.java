@@ -1,16 +1,22 @@
 package xyz.zhenliang.rabbitmq.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import xyz.zhenliang.rabbitmq.codec.RabbitmqCodecRegistry;
 import xyz.zhenliang.rabbitmq.constant.RabbitmqConsumeStatus;
 import xyz.zhenliang.rabbitmq.constant.RabbitmqSaveBy;
 import xyz.zhenliang.rabbitmq.constant.RabbitmqSendStatus;
+import xyz.zhenliang.rabbitmq.dto.ConsumeClaim;
 import xyz.zhenliang.rabbitmq.dto.RabbitmqMessageMeta;
 import xyz.zhenliang.rabbitmq.dto.RabbitmqMsgDTO;
+import xyz.zhenliang.rabbitmq.dto.ResendFilter;
 import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
 import xyz.zhenliang.rabbitmq.mapper.RabbitmqMessageMapper;
 import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
@@ -18,8 +24,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import xyz.zhenliang.rabbitmq.utils.JsonUtils;
 
+import java.lang.management.ManagementFactory;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntToLongFunction;
+import java.util.stream.Collectors;
 
 /**
  * <p>
@@ -36,12 +53,68 @@ public class RabbitmqMessageServiceImpl extends ServiceImpl<RabbitmqMessageMappe
     private static final Logger log = LoggerFactory.getLogger(RabbitmqMessageServiceImpl.class);
 
     /**
-     * 消息消费超时时间（毫秒），默认3000ms
-     * 可通过配置项mq.maxConsumeTimeoutMillis进行自定义
+     * 消息消费租约时长（毫秒），默认3000ms
+     * 认领时租约到期时间设为当前时间加该值，处理时间较长的消息由RabbitmqConsumeLease定时续约，
+     * 消费者宕机后租约不再续约，最多该时长后消息可被重新认领。可通过配置项mq.maxConsumeTimeoutMillis进行自定义
      */
     @Value("${mq.maxConsumeTimeoutMillis:3000}")
     private int maxConsumeTimeoutMillis = 3000;
 
+    /**
+     * 消费者节点标识，默认为 进程号@主机名-随机串
+     * 可通过配置项mq.consume.owner-id进行自定义
+     */
+    @Value("${mq.consume.owner-id:}")
+    private String consumeOwnerId = "";
+
+    /**
+     * 批量新增时单条INSERT语句包含的最大行数，默认500
+     * 可通过配置项mq.sender.insert-batch-size进行自定义
+     */
+    @Value("${mq.sender.insert-batch-size:500}")
+    private int insertBatchSize = 500;
+
+    @PostConstruct
+    public void initConsumeOwnerId() {
+        if (consumeOwnerId == null || consumeOwnerId.isEmpty()) {
+            // 随机串区分同一主机上进程号被复用的重启实例（如容器中进程号总为1）
+            consumeOwnerId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        if (consumeOwnerId.length() > 64) consumeOwnerId = consumeOwnerId.substring(consumeOwnerId.length() - 64);
+    }
+
+    @Override
+    public String getConsumeOwnerId() {
+        return consumeOwnerId;
+    }
+
+    /**
+     * 认领序号，与节点标识组成每次认领唯一的认领标识
+     */
+    private final AtomicLong claimSequence = new AtomicLong();
+
+    /**
+     * 生成本次认领的认领标识：节点标识#序号，超过64个字符时截掉节点标识的开头部分（保留末尾的随机串）
+     *
+     * @return 认领标识
+     */
+    private String newClaimOwner() {
+        String suffix = "#" + Long.toString(claimSequence.incrementAndGet(), 36);
+        String node = consumeOwnerId.length() + suffix.length() > 64
+                ? consumeOwnerId.substring(consumeOwnerId.length() + suffix.length() - 64) : consumeOwnerId;
+        return node + suffix;
+    }
+
+    /**
+     * 认领停滞消息时是否使用SKIP LOCKED（需MySQL 8.0及以上），默认true
+     * 可通过配置项mq.relay.skip-locked进行自定义，关闭后使用阻塞的FOR UPDATE
+     */
+    @Value("${mq.relay.skip-locked:true}")
+    private boolean skipLocked = true;
+
+    @Autowired
+    private RabbitmqCodecRegistry codecRegistry;
+
     /**
      * 创建消息记录
      * 在消息发送前创建消息记录，初始化消息状态为发送中
@@ -50,12 +123,12 @@ public class RabbitmqMessageServiceImpl extends ServiceImpl<RabbitmqMessageMappe
      * @param businessId  业务ID
      * @param exchange    交换机名称
      * @param routingKey  路由键
-     * @param messageBody 消息体内容
+     * @param messageBody 已序列化的消息体字节
      * @return 消息实体对象
      */
     @Transactional
     @Override
-    public RabbitmqMessage createMessageBySender(String messageId, String businessId, String exchange, String routingKey, String messageBody) {
+    public RabbitmqMessage createMessageBySender(String messageId, String businessId, String exchange, String routingKey, byte[] messageBody) {
         RabbitmqMessage message = new RabbitmqMessage();
         message.setId(messageId);
         message.setBusinessId(businessId);
@@ -73,6 +146,93 @@ public class RabbitmqMessageServiceImpl extends ServiceImpl<RabbitmqMessageMappe
         return message;
     }
 
+    /**
+     * 批量创建消息记录
+     * 按insertBatchSize分段，每段使用一条多行INSERT语句新增，初始化消息状态为发送中
+     *
+     * @param messages 消息实体列表，需设置id、businessId、exchange、routingKey、messageBody
+     * @return 新增的记录数
+     */
+    @Transactional
+    @Override
+    public int createMessagesBySender(List<RabbitmqMessage> messages) {
+        if (messages == null || messages.isEmpty()) return 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (RabbitmqMessage message : messages) {
+            message.setSendStatus(RabbitmqSendStatus.SENDING.getValue()); // 表示未发送或发送中
+            message.setSendCount(0);
+            message.setConsumeStatus(RabbitmqConsumeStatus.UNCONSUMED.getValue());
+            message.setConsumeCount(0);
+            message.setSendLastTime(now);
+            message.setSavedBy(RabbitmqSaveBy.SENDER_SAVE.getValue());
+            message.setCreatedAt(now);
+        }
+        int rows = 0;
+        for (int from = 0; from < messages.size(); from += insertBatchSize) {
+            int to = Math.min(from + insertBatchSize, messages.size());
+            rows += this.baseMapper.insertBatch(messages.subList(from, to));
+        }
+        return rows;
+    }
+
+    /**
+     * 认领一批发送状态停滞的消息
+     * 锁定后在同一事务中置为发送中并刷新最后发送时间，作为其他节点扫描时的租约
+     *
+     * @param sendStatus   发送状态，发送中或发送失败
+     * @param before       最后发送时间早于该时间的消息视为停滞
+     * @param afterId      上一批最后一条消息的ID，首批传空字符串
+     * @param maxSendCount 发送次数上限
+     * @param limit        最大条数
+     * @return 认领到的消息列表，按ID升序
+     */
+    @Transactional
+    @Override
+    public List<RabbitmqMessage> claimStaleSendMessages(int sendStatus, LocalDateTime before, String afterId, int maxSendCount, int limit) {
+        List<RabbitmqMessage> messages = this.baseMapper.selectStaleSendForUpdate(sendStatus, before, afterId, maxSendCount, limit, skipLocked);
+        if (messages.isEmpty()) return messages;
+
+        LambdaUpdateWrapper<RabbitmqMessage> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.in(RabbitmqMessage::getId, messages.stream().map(RabbitmqMessage::getId).toList());
+        updateWrapper.set(RabbitmqMessage::getSendStatus, RabbitmqSendStatus.SENDING.getValue());
+        updateWrapper.set(RabbitmqMessage::getSendLastTime, LocalDateTime.now());
+        this.update(updateWrapper);
+        return messages;
+    }
+
+    /**
+     * 认领一批到达下次重发时间的发送失败消息
+     * 锁定后在同一事务中置为发送中，并按各自的发送次数计算下一次重发时间写入行中；本次重发仍失败时，到该时间后才会被再次认领
+     *
+     * @param now           当前时间
+     * @param firstBefore   未设置下次重发时间的消息，最后发送时间早于该时间视为到期
+     * @param maxSendCount  发送次数上限
+     * @param limit         最大条数
+     * @param backoffMillis 按发送次数计算重发间隔（毫秒）
+     * @return 认领到的消息列表，按ID升序
+     */
+    @Transactional
+    @Override
+    public List<RabbitmqMessage> claimDueFailedSendMessages(LocalDateTime now, LocalDateTime firstBefore, int maxSendCount, int limit,
+                                                            IntToLongFunction backoffMillis) {
+        List<RabbitmqMessage> messages = this.baseMapper.selectDueFailedSendForUpdate(RabbitmqSendStatus.FAILED.getValue(),
+                now, firstBefore, maxSendCount, limit, skipLocked);
+        if (messages.isEmpty()) return messages;
+
+        // 各行的下次重发时间不同，逐行更新（JDBC批量执行）
+        List<RabbitmqMessage> updates = new ArrayList<>(messages.size());
+        for (RabbitmqMessage msg : messages) {
+            RabbitmqMessage update = new RabbitmqMessage();
+            update.setId(msg.getId());
+            update.setSendStatus(RabbitmqSendStatus.SENDING.getValue());
+            update.setSendLastTime(now);
+            update.setSendNextTime(now.plusNanos(backoffMillis.applyAsLong(msg.getSendCount()) * 1_000_000));
+            updates.add(update);
+        }
+        this.updateBatchById(updates);
+        return messages;
+    }
+
     /**
      * 消费端创建消息记录
      * 当消费者接收到消息时创建消息记录，初始化消息状态为消费中
@@ -81,10 +241,19 @@ public class RabbitmqMessageServiceImpl extends ServiceImpl<RabbitmqMessageMappe
      * @param businessId  业务ID
      * @param exchange    交换机名称
      * @param routingKey  路由键
-     * @param messageBody 消息体内容
+     * @param messageBody 已序列化的消息体字节
      * @return 消息实体对象
      */
-    public RabbitmqMessage createMessageByConsumer(String messageId, String businessId, String exchange, String routingKey, String messageBody) {
+    public RabbitmqMessage createMessageByConsumer(String messageId, String businessId, String exchange, String routingKey, byte[] messageBody) {
+        RabbitmqMessage message = newConsumerMessage(messageId, businessId, exchange, routingKey, messageBody, consumeOwnerId);
+        this.save(message);
+        return message;
+    }
+
+    /**
+     * 构造消费端保存的消息记录，状态为消费中，消费者为给定的认领标识
+     */
+    private RabbitmqMessage newConsumerMessage(String messageId, String businessId, String exchange, String routingKey, byte[] messageBody, String owner) {
         RabbitmqMessage message = new RabbitmqMessage();
         message.setId(messageId);
         message.setBusinessId(businessId);
@@ -96,35 +265,16 @@ public class RabbitmqMessageServiceImpl extends ServiceImpl<RabbitmqMessageMappe
         message.setConsumeStatus(RabbitmqConsumeStatus.CONSUMING.getValue()); // 设置为消费中状态
         message.setConsumeCount(1);
         message.setConsumeLastTime(LocalDateTime.now());
+        message.setConsumeOwner(owner);
+        message.setConsumeLeaseUntil(LocalDateTime.now().plus(maxConsumeTimeoutMillis, ChronoUnit.MILLIS));
         message.setSavedBy(RabbitmqSaveBy.CONSUMER_SAVE.getValue()); // 标识为消费者保存
         message.setCreatedAt(LocalDateTime.now());
-
-        this.save(message);
         return message;
     }
 
-    /**
-     * 更新消息发送成功状态
-     * 增加发送次数并更新最后发送时间
-     *
-     * @param messageId 消息ID
-     * @param sendCount 发送次数增量
-     * @return 是否更新成功
-     */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    @Override
-    public boolean updateSendSuccessById(String messageId, int sendCount) {
-        LambdaUpdateWrapper<RabbitmqMessage> updateWrapper = new LambdaUpdateWrapper<>();
-        updateWrapper.eq(RabbitmqMessage::getId, messageId);
-        // updateWrapper.set(RabbitmqMessage::getSendStatus, RabbitmqSendStatus.SENDING.getValue());
-        updateWrapper.setSql("send_count=send_count+" + sendCount);
-        updateWrapper.set(RabbitmqMessage::getSendLastTime, LocalDateTime.now());
-        return this.update(updateWrapper);
-    }
-
     /**
      * 更新消息发送失败状态
-     * 设置发送状态为失败，增加发送次数，更新最后发送时间和错误信息
+     * 仅当消息处于发送中时设置发送状态为失败，增加发送次数，更新最后发送时间和错误信息
      *
      * @param messageId    消息ID
      * @param sendCount    发送次数增量
@@ -136,6 +286,7 @@ public class RabbitmqMessageServiceImpl extends ServiceImpl<RabbitmqMessageMappe
     public boolean updateSendFailById(String messageId, int sendCount, String errorMessage) {
         LambdaUpdateWrapper<RabbitmqMessage> updateWrapper = new LambdaUpdateWrapper<>();
         updateWrapper.eq(RabbitmqMessage::getId, messageId);
+        updateWrapper.eq(RabbitmqMessage::getSendStatus, RabbitmqSendStatus.SENDING.getValue());
         updateWrapper.set(RabbitmqMessage::getSendStatus, RabbitmqSendStatus.FAILED.getValue());
         updateWrapper.setSql("send_count=send_count+" + sendCount);
         updateWrapper.set(RabbitmqMessage::getSendLastTime, LocalDateTime.now());
@@ -145,45 +296,79 @@ public class RabbitmqMessageServiceImpl extends ServiceImpl<RabbitmqMessageMappe
 
     /**
      * 设置消息发送成功
-     * 更新消息发送状态为成功，并记录确认时间
+     * 仅当消息尚未确认成功时更新发送状态为成功，增加发送次数，并记录发送及确认时间
      *
      * @param messageId 消息ID
+     * @param sendCount 发送次数增量
      * @return 是否更新成功
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     @Override
-    public boolean updateSendConfirmSuccessById(String messageId) {
+    public boolean updateSendConfirmSuccessById(String messageId, int sendCount) {
+        return this.baseMapper.update(null, sendConfirmSuccessWrapper(sendCount).eq(RabbitmqMessage::getId, messageId)) > 0;
+    }
+
+    /**
+     * 批量设置消息发送成功
+     * 使用一条 WHERE id IN (...) 语句更新，条件同updateSendConfirmSuccessById
+     *
+     * @param messageIds 消息ID集合
+     * @param sendCount  发送次数增量
+     * @return 更新的记录数
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Override
+    public int updateSendConfirmSuccessByIds(Collection<String> messageIds, int sendCount) {
+        if (messageIds == null || messageIds.isEmpty()) return 0;
+        return this.baseMapper.update(null, sendConfirmSuccessWrapper(sendCount).in(RabbitmqMessage::getId, messageIds));
+    }
+
+    /**
+     * 构造发送确认成功的更新条件
+     * 以发送状态不为成功作为守卫，重复的确认不会重复累加发送次数
+     *
+     * @param sendCount 发送次数增量
+     * @return 更新条件
+     */
+    private LambdaUpdateWrapper<RabbitmqMessage> sendConfirmSuccessWrapper(int sendCount) {
+        LocalDateTime now = LocalDateTime.now();
         LambdaUpdateWrapper<RabbitmqMessage> updateWrapper = new LambdaUpdateWrapper<>();
-        updateWrapper.eq(RabbitmqMessage::getId, messageId);
+        updateWrapper.ne(RabbitmqMessage::getSendStatus, RabbitmqSendStatus.SUCCESS.getValue());
         updateWrapper.set(RabbitmqMessage::getSendStatus, RabbitmqSendStatus.SUCCESS.getValue());
-        updateWrapper.set(RabbitmqMessage::getConfirmLastTime, LocalDateTime.now());
+        updateWrapper.setSql("send_count=send_count+" + sendCount);
+        updateWrapper.set(RabbitmqMessage::getSendLastTime, now);
+        updateWrapper.set(RabbitmqMessage::getConfirmLastTime, now);
         updateWrapper.set(RabbitmqMessage::getSendErrorMessage, null);
-
-        return this.update(updateWrapper);
+        return updateWrapper;
     }
 
     /**
      * 设置消息发送失败
-     * 更新消息发送状态为失败，记录确认时间和失败原因
+     * 仅当消息处于发送中时更新发送状态为失败，增加发送次数，记录确认时间和失败原因
      *
      * @param messageId    消息ID
+     * @param sendCount    发送次数增量
      * @param errorMessage 失败原因
      * @return 是否更新成功
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     @Override
-    public boolean updateSendConfirmFailById(String messageId, String errorMessage) {
+    public boolean updateSendConfirmFailById(String messageId, int sendCount, String errorMessage) {
+        LocalDateTime now = LocalDateTime.now();
         LambdaUpdateWrapper<RabbitmqMessage> updateWrapper = new LambdaUpdateWrapper<>();
         updateWrapper.eq(RabbitmqMessage::getId, messageId);
+        updateWrapper.eq(RabbitmqMessage::getSendStatus, RabbitmqSendStatus.SENDING.getValue());
         updateWrapper.set(RabbitmqMessage::getSendStatus, RabbitmqSendStatus.FAILED.getValue());
-        updateWrapper.set(RabbitmqMessage::getConfirmLastTime, LocalDateTime.now());
+        updateWrapper.setSql("send_count=send_count+" + sendCount);
+        updateWrapper.set(RabbitmqMessage::getSendLastTime, now);
+        updateWrapper.set(RabbitmqMessage::getConfirmLastTime, now);
         updateWrapper.set(RabbitmqMessage::getSendErrorMessage, errorMessage);
         return this.update(updateWrapper);
     }
 
     /**
      * 重新发送消息
-     * 将消息状态重置为待发送状态，发送次数加1，并重置消费状态为未消费
+     * 将消息发送状态重置为发送中，并重置消费状态为未消费
      *
      * @param messageId 消息ID
      * @return 是否更新成功
@@ -193,17 +378,57 @@ public class RabbitmqMessageServiceImpl extends ServiceImpl<RabbitmqMessageMappe
     public boolean resendMsg(String messageId) {
         LambdaUpdateWrapper<RabbitmqMessage> updateWrapper = new LambdaUpdateWrapper<>();
         updateWrapper.eq(RabbitmqMessage::getId, messageId);
+        updateWrapper.set(RabbitmqMessage::getSendStatus, RabbitmqSendStatus.SENDING.getValue());
+        updateWrapper.set(RabbitmqMessage::getSendLastTime, LocalDateTime.now());
         updateWrapper.set(RabbitmqMessage::getConsumeStatus, RabbitmqConsumeStatus.UNCONSUMED.getValue());
         return this.update(updateWrapper);
     }
 
+    /**
+     * 按筛选条件认领一批待重发的消息
+     * 按主键顺序锁定一批符合条件的消息（FOR UPDATE [SKIP LOCKED]），并在同一事务中用一条UPDATE将其发送状态重置为发送中、消费状态重置为未消费
+     *
+     * @param filter  筛选条件
+     * @param afterId 上一批最后一条消息的ID，首批传空字符串
+     * @param limit   最大条数
+     * @return 认领到的消息列表，按ID升序
+     */
+    @Transactional
+    @Override
+    public List<RabbitmqMessage> claimResendMessages(ResendFilter filter, String afterId, int limit) {
+        LambdaQueryWrapper<RabbitmqMessage> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(RabbitmqMessage::getId, RabbitmqMessage::getBusinessId, RabbitmqMessage::getExchange,
+                RabbitmqMessage::getRoutingKey, RabbitmqMessage::getMessageBody);
+        queryWrapper.gt(RabbitmqMessage::getId, afterId);
+        queryWrapper.ge(filter.getCreatedFrom() != null, RabbitmqMessage::getCreatedAt, filter.getCreatedFrom());
+        queryWrapper.lt(filter.getCreatedTo() != null, RabbitmqMessage::getCreatedAt, filter.getCreatedTo());
+        queryWrapper.eq(filter.getSendStatus() != null, RabbitmqMessage::getSendStatus, filter.getSendStatus());
+        queryWrapper.eq(filter.getConsumeStatus() != null, RabbitmqMessage::getConsumeStatus, filter.getConsumeStatus());
+        queryWrapper.eq(filter.getExchange() != null, RabbitmqMessage::getExchange, filter.getExchange());
+        queryWrapper.likeRight(filter.getBusinessIdPrefix() != null, RabbitmqMessage::getBusinessId, filter.getBusinessIdPrefix());
+        queryWrapper.orderByAsc(RabbitmqMessage::getId);
+        queryWrapper.last("LIMIT " + limit + " FOR UPDATE" + (skipLocked ? " SKIP LOCKED" : ""));
+        List<RabbitmqMessage> messages = this.list(queryWrapper);
+        if (messages.isEmpty()) return messages;
+
+        LambdaUpdateWrapper<RabbitmqMessage> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.in(RabbitmqMessage::getId, messages.stream().map(RabbitmqMessage::getId).toList());
+        updateWrapper.set(RabbitmqMessage::getSendStatus, RabbitmqSendStatus.SENDING.getValue());
+        updateWrapper.set(RabbitmqMessage::getSendLastTime, LocalDateTime.now());
+        updateWrapper.set(RabbitmqMessage::getConsumeStatus, RabbitmqConsumeStatus.UNCONSUMED.getValue());
+        this.update(updateWrapper);
+        return messages;
+    }
+
     /**
      * 设置消息消费成功
-     * 更新消息消费状态为成功，并记录消费成功时间
+     * 更新消息消费状态为成功，并记录消费成功时间，不检查认领标识
      *
      * @param messageId 消息ID
      * @return 是否更新成功
+     * @deprecated 不检查认领标识，租约已被其他消费者接管时会覆盖其状态，使用 {@link #updateConsumeSuccessById(String, String)}
      */
+    @Deprecated
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     @Override
     public boolean updateConsumeSuccessById(String messageId) {
@@ -215,14 +440,30 @@ public class RabbitmqMessageServiceImpl extends ServiceImpl<RabbitmqMessageMappe
         return this.update(updateWrapper);
     }
 
+    /**
+     * 设置本次认领的消息消费成功
+     * 只更新消费中且认领标识一致的消息为消费成功，并记录消费成功时间
+     *
+     * @param messageId 消息ID
+     * @param owner     认领标识，见claimMessageConsume
+     * @return 是否更新成功，false表示租约已被其他消费者接管
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Override
+    public boolean updateConsumeSuccessById(String messageId, String owner) {
+        return this.baseMapper.update(null, ownedConsumeSuccessWrapper(owner).eq(RabbitmqMessage::getId, messageId)) > 0;
+    }
+
     /**
      * 设置消息消费失败
-     * 更新消息消费状态为失败，并记录失败原因
+     * 更新消息消费状态为失败，并记录失败原因，不检查认领标识
      *
      * @param messageId    消息ID
      * @param errorMessage 失败原因
      * @return 是否更新成功
+     * @deprecated 不检查认领标识，租约已被其他消费者接管时会覆盖其状态，使用 {@link #updateConsumeFailById(String, String, String)}
      */
+    @Deprecated
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     @Override
     public boolean updateConsumeFailById(String messageId, String errorMessage) {
@@ -233,17 +474,107 @@ public class RabbitmqMessageServiceImpl extends ServiceImpl<RabbitmqMessageMappe
         return this.update(updateWrapper);
     }
 
+    /**
+     * 设置本次认领的消息消费失败
+     * 只更新认领标识一致的消息消费状态为失败，并记录失败原因
+     *
+     * @param messageId    消息ID
+     * @param owner        认领标识，见claimMessageConsume
+     * @param errorMessage 失败原因
+     * @return 是否更新成功
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Override
+    public boolean updateConsumeFailById(String messageId, String owner, String errorMessage) {
+        LambdaUpdateWrapper<RabbitmqMessage> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(RabbitmqMessage::getId, messageId);
+        // 只更新本次认领的消息，租约已被其他消费者（包括本节点的其他消费线程）接管的消息不覆盖其状态
+        updateWrapper.eq(RabbitmqMessage::getConsumeOwner, owner);
+        updateWrapper.set(RabbitmqMessage::getConsumeStatus, RabbitmqConsumeStatus.FAILED.getValue());
+        updateWrapper.set(RabbitmqMessage::getConsumeErrorMessage, errorMessage);
+        return this.baseMapper.update(null, updateWrapper) > 0;
+    }
+
+    /**
+     * 在调用方事务中设置本次认领的消息消费成功
+     * 事务消费模式使用，与业务写入在同一事务中提交；只更新消费中且认领标识一致的消息
+     *
+     * @param messageId 消息ID
+     * @param owner     认领标识，见claimMessageConsume
+     * @return 是否更新成功，false表示租约已被其他消费者接管
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public boolean updateOwnedConsumeSuccessById(String messageId, String owner) {
+        return this.baseMapper.update(null, ownedConsumeSuccessWrapper(owner).eq(RabbitmqMessage::getId, messageId)) > 0;
+    }
+
+    /**
+     * 在调用方事务中批量设置本次认领的消息消费成功
+     * 事务消费模式使用，与业务写入在同一事务中提交；只更新消费中且认领标识一致的消息
+     *
+     * @param messageIds 消息ID集合
+     * @param owner      认领标识，见claimMessageConsumeBatch
+     * @return 更新的记录数，小于集合大小表示部分消息的租约已被其他消费者接管
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public int updateOwnedConsumeSuccessByIds(Collection<String> messageIds, String owner) {
+        if (messageIds == null || messageIds.isEmpty()) return 0;
+        return this.baseMapper.update(null, ownedConsumeSuccessWrapper(owner).in(RabbitmqMessage::getId, messageIds));
+    }
+
+    /**
+     * 批量设置本次认领的消息消费成功
+     * 使用一条 WHERE id IN (...) 语句更新消费中且认领标识一致的消息为消费成功，并记录消费成功时间
+     *
+     * @param messageIds 消息ID集合
+     * @param owner      认领标识，见claimMessageConsumeBatch
+     * @return 更新的记录数，小于集合大小表示部分消息的租约已被其他消费者接管
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Override
+    public int updateConsumeSuccessByIds(Collection<String> messageIds, String owner) {
+        if (messageIds == null || messageIds.isEmpty()) return 0;
+        return this.baseMapper.update(null, ownedConsumeSuccessWrapper(owner).in(RabbitmqMessage::getId, messageIds));
+    }
+
+    /**
+     * 批量设置消息消费失败
+     * 使用一条 WHERE id IN (...) 语句更新本次认领的消息消费状态为失败，并记录失败原因
+     *
+     * @param messageIds   消息ID集合
+     * @param owner        认领标识，见claimMessageConsumeBatch
+     * @param errorMessage 失败原因
+     * @return 更新的记录数
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Override
+    public int updateConsumeFailByIds(Collection<String> messageIds, String owner, String errorMessage) {
+        if (messageIds == null || messageIds.isEmpty()) return 0;
+        LambdaUpdateWrapper<RabbitmqMessage> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.in(RabbitmqMessage::getId, messageIds);
+        // 只更新本次认领的消息，租约已被其他消费者（包括本节点的其他消费线程）接管的消息不覆盖其状态
+        updateWrapper.eq(RabbitmqMessage::getConsumeOwner, owner);
+        updateWrapper.set(RabbitmqMessage::getConsumeStatus, RabbitmqConsumeStatus.FAILED.getValue());
+        updateWrapper.set(RabbitmqMessage::getConsumeErrorMessage, errorMessage);
+        return this.baseMapper.update(null, updateWrapper);
+    }
+
     /**
      * 处理死信消息
      * 检查消息是否存在，如果不存在则从消息体中提取元数据创建新记录
      *
      * @param messageId   消息ID
-     * @param messageBody 消息体内容
+     * @param contentType 消息体编码格式，可为null
+     * @param messageBody 已序列化的消息体字节
      * @return 是否处理成功
+     * @deprecated 死信救援已改为批量保存，使用 {@link #saveDeadLetterMessages(List)}
      */
+    @Deprecated
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     @Override
-    public boolean processDeadLetterMessage(String messageId, String messageBody) {
+    public boolean processDeadLetterMessage(String messageId, String contentType, byte[] messageBody) {
         // 检查消息是否已存在
         LambdaUpdateWrapper<RabbitmqMessage> queryWrapper = new LambdaUpdateWrapper<>();
         queryWrapper.eq(RabbitmqMessage::getId, messageId);
@@ -253,7 +584,7 @@ public class RabbitmqMessageServiceImpl extends ServiceImpl<RabbitmqMessageMappe
         }
 
         // 消息不存在，从messageBody中提取属性
-        RabbitmqMessageMeta messageMeta = JsonUtils.fromJson(messageBody, RabbitmqMessageMeta.class);
+        RabbitmqMessageMeta messageMeta = codecRegistry.decode(contentType, null, messageBody, RabbitmqMessageMeta.class);
 
         // 创建死信消息记录
         RabbitmqMessage message = new RabbitmqMessage();
@@ -273,53 +604,207 @@ public class RabbitmqMessageServiceImpl extends ServiceImpl<RabbitmqMessageMappe
         return this.save(message);
     }
 
+    /**
+     * 批量保存死信消息
+     * 按mq.sender.insert-batch-size分多条多行INSERT IGNORE，新增为消费失败、死信处理保存，消息表中已存在的消息忽略
+     *
+     * @param messages 消息实体列表，需设置id、businessId、exchange、routingKey、messageBody
+     * @return 新增的记录数
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Override
+    public int saveDeadLetterMessages(List<RabbitmqMessage> messages) {
+        if (messages == null || messages.isEmpty()) return 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (RabbitmqMessage message : messages) {
+            message.setSendStatus(RabbitmqSendStatus.SUCCESS.getValue()); // 消费端创建的消息默认为已发送成功
+            message.setSendCount(0);
+            message.setConsumeStatus(RabbitmqConsumeStatus.FAILED.getValue()); // 设置为消费失败
+            message.setConsumeCount(1);
+            message.setConsumeLastTime(now);
+            message.setSavedBy(RabbitmqSaveBy.DEAD_LETTER_SAVE.getValue()); // 标识为死信处理者保存
+            message.setCreatedAt(now);
+        }
+        int inserted = 0;
+        for (int from = 0; from < messages.size(); from += insertBatchSize) {
+            int to = Math.min(from + insertBatchSize, messages.size());
+            inserted += this.baseMapper.insertIgnoreBatch(messages.subList(from, to));
+        }
+        return inserted;
+    }
+
     /**
      * 检查并锁定消息消费状态
-     * 用于实现消息消费的幂等性控制，防止重复消费
-     * 1. 消息不存在，返回true表示不可消费
-     * 2. 消息已成功消费，返回true表示不可重复消费
-     * 3. 消息正在消费且未超时，返回true表示不可重复消费
-     * 4. 其他情况，将消息状态设置为消费中，返回false表示可消费
+     * 用于实现消息消费的幂等性控制，防止重复消费，认领由数据库条件语句的影响行数决定，并发消费者中只有一个能认领成功
+     * 1. 带条件的UPDATE：消息未消费成功，且不在消费中或消费租约已到期，则置为消费中，影响1行表示认领成功
+     * 2. UPDATE未命中时INSERT IGNORE：消息不存在（如消费端与发送端不共用消息表）则新增为消费中，新增成功表示认领成功
+     * 3. 两者都未命中：消息已成功消费或正在消费且租约未到期，不可重复消费
+     * 两条语句各自自动提交，不放在同一个事务中：可重复读下UPDATE未命中会持有间隙锁，并发认领同一条不存在的消息时，
+     * 各自持有间隙锁再INSERT会互相等待而死锁；每条语句本身是原子的，不需要事务
+     *
+     * 认领成功时消费者记为本节点标识，与不带认领标识的updateConsumeSuccessById/updateConsumeFailById配合使用
      *
      * @param msgDTO 消息DTO对象，包含消息ID等信息
-     * @return true-消息已消费或正在消费未超时，false-消息可被消费
+     * @return true-消息已消费或正在消费且租约未到期，false-消息可被消费
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public <T> boolean checkAndLockMessageConsume(RabbitmqMsgDTO<T> msgDTO) {
-        String messageId = msgDTO.getMessageId();
-        RabbitmqMessage message = this.getById(messageId);
-        if (message == null) {
-            //消息不存在,新增
-            this.createMessageByConsumer(messageId, msgDTO.getBusinessId()
-                    , msgDTO.getExchange(), msgDTO.getRoutingKey(), JsonUtils.toJson(msgDTO));
-            return false;
-        } else {
-            if (message.getConsumeStatus() == RabbitmqConsumeStatus.SUCCESS.getValue()) {
-                // 消息已成功消费
-                return true;
-            } else {
-                if (message.getConsumeStatus() == RabbitmqConsumeStatus.CONSUMING.getValue()) {
-                    if (message.getConsumeLastTime() == null
-                            || message.getConsumeLastTime().plus(maxConsumeTimeoutMillis, ChronoUnit.MILLIS).isBefore(LocalDateTime.now())) {
-                        //消息已超时，情况非常少
-                        log.debug("消息消费已超时，messageId: {}", messageId);
-                    } else {
-                        // 未超时，返回消费成功
-                        return true;
-                    }
-                }
-                //设置消息为消费中
-                LambdaUpdateWrapper<RabbitmqMessage> updateWrapper = new LambdaUpdateWrapper<>();
-                updateWrapper.eq(RabbitmqMessage::getId, messageId);
-                updateWrapper.set(RabbitmqMessage::getConsumeStatus, RabbitmqConsumeStatus.CONSUMING.getValue());
-                updateWrapper.setSql("consume_count=consume_count+1");
-                updateWrapper.set(RabbitmqMessage::getConsumeLastTime, LocalDateTime.now());
-
-                this.update(updateWrapper);
-                return false;
+        RabbitmqMessage message = new RabbitmqMessage();
+        message.setId(msgDTO.getMessageId());
+        message.setBusinessId(msgDTO.getBusinessId());
+        message.setExchange(msgDTO.getExchange());
+        message.setRoutingKey(msgDTO.getRoutingKey());
+        message.setMessageBody(JsonUtils.toJsonBytes(msgDTO));
+        return !claim(message, consumeOwnerId);
+    }
+
+    /**
+     * 认领单条消息的消费权
+     * 直接使用消息头中的信息认领，不存在的消息以原始消息体新增，认领过程同checkAndLockMessageConsume(RabbitmqMsgDTO)；
+     * 每次调用生成唯一的认领标识，之后的续约和消费状态更新都以该标识为条件，同一节点上并发消费同一消息的线程也能区分各自的认领
+     *
+     * @param message 消息实体，需设置id、businessId、exchange、routingKey、messageBody
+     * @return 认领结果，消息ID集合为空表示消息已消费或正在消费且租约未到期
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public ConsumeClaim claimMessageConsume(RabbitmqMessage message) {
+        String owner = newClaimOwner();
+        Set<String> messageIds = new HashSet<>();
+        if (claim(message, owner)) messageIds.add(message.getId());
+        return new ConsumeClaim(owner, messageIds);
+    }
+
+    /**
+     * 以给定的认领标识认领单条消息：先带条件UPDATE，未命中再INSERT IGNORE
+     *
+     * @param message 消息实体
+     * @param owner   认领标识
+     * @return 是否认领成功
+     */
+    private boolean claim(RabbitmqMessage message, String owner) {
+        LocalDateTime now = LocalDateTime.now();
+        if (this.baseMapper.update(null, consumeClaimWrapper(now, owner).eq(RabbitmqMessage::getId, message.getId())) > 0) {
+            return true;
+        }
+        //消息不存在则新增，主键冲突说明消息已存在且不可认领
+        RabbitmqMessage consumerMessage = newConsumerMessage(message.getId(), message.getBusinessId()
+                , message.getExchange(), message.getRoutingKey(), message.getMessageBody(), owner);
+        return this.baseMapper.insertIgnoreBatch(List.of(consumerMessage)) > 0;
+    }
+
+    /**
+     * 批量认领消息消费权
+     * 1. 多行INSERT IGNORE：不存在的消息新增为未消费，已存在的忽略，使整批消息都有记录；按消息ID排序后插入，并发的批次按相同顺序加锁，避免死锁
+     * 2. 带条件的 UPDATE ... WHERE id IN (...)：认领条件同claimMessageConsume，consume_owner设为本次认领生成的唯一认领标识
+     * 3. 按认领标识查回本次认领的消息：同一节点上并发认领的其他线程使用不同的认领标识，不会把对方认领的消息当作自己的
+     * 三条语句各自自动提交：放在同一事务中时，INSERT IGNORE遇到已存在的消息会持有共享锁直到提交，
+     * 并发的批次随后UPDATE同一条消息需要排他锁而互相等待，导致死锁；认领结果由认领标识确定，不依赖事务
+     *
+     * @param messages 消息实体列表，需设置id、businessId、exchange、routingKey、messageBody
+     * @return 认领结果，包含认领标识和认领成功、可被消费的消息ID集合
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public ConsumeClaim claimMessageConsumeBatch(List<RabbitmqMessage> messages) {
+        String owner = newClaimOwner();
+        if (messages == null || messages.isEmpty()) return new ConsumeClaim(owner, new HashSet<>());
+        LocalDateTime now = LocalDateTime.now();
+        List<RabbitmqMessage> sorted = new ArrayList<>(messages);
+        sorted.sort(Comparator.comparing(RabbitmqMessage::getId));
+        List<String> messageIds = new ArrayList<>(sorted.size());
+        for (RabbitmqMessage message : sorted) {
+            messageIds.add(message.getId());
+            message.setSendStatus(RabbitmqSendStatus.SUCCESS.getValue()); // 消费端创建的消息默认为已发送成功
+            message.setSendCount(0);
+            message.setConsumeStatus(RabbitmqConsumeStatus.UNCONSUMED.getValue());
+            message.setConsumeCount(0);
+            message.setSavedBy(RabbitmqSaveBy.CONSUMER_SAVE.getValue()); // 标识为消费者保存
+            message.setCreatedAt(now);
+        }
+        for (int from = 0; from < sorted.size(); from += insertBatchSize) {
+            int to = Math.min(from + insertBatchSize, sorted.size());
+            this.baseMapper.insertIgnoreBatch(sorted.subList(from, to));
+        }
+        int claimed = this.baseMapper.update(null, consumeClaimWrapper(now, owner).in(RabbitmqMessage::getId, messageIds));
+        if (claimed == 0) return new ConsumeClaim(owner, new HashSet<>());
+
+        LambdaQueryWrapper<RabbitmqMessage> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(RabbitmqMessage::getId);
+        queryWrapper.in(RabbitmqMessage::getId, messageIds);
+        queryWrapper.eq(RabbitmqMessage::getConsumeStatus, RabbitmqConsumeStatus.CONSUMING.getValue());
+        queryWrapper.eq(RabbitmqMessage::getConsumeOwner, owner);
+        return new ConsumeClaim(owner, this.baseMapper.selectObjs(queryWrapper).stream().map(String::valueOf).collect(Collectors.toSet()));
+    }
+
+    /**
+     * 续约本节点正在消费的消息
+     * 一条 WHERE (id, consume_owner) IN ((?,?),...) 语句把租约到期时间延长到当前时间加租约时长，
+     * 按（消息ID，认领标识）精确匹配，只续约仍处于消费中且仍归该次认领的消息
+     *
+     * @param claims 待续约的认领，每个认领包含认领标识和该认领下的消息ID集合
+     * @return 续约成功的记录数
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Override
+    public int renewConsumeLease(Collection<ConsumeClaim> claims) {
+        if (claims == null || claims.isEmpty()) return 0;
+        StringBuilder pairs = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        for (ConsumeClaim claim : claims) {
+            for (String messageId : claim.getMessageIds()) {
+                if (!params.isEmpty()) pairs.append(',');
+                pairs.append("({").append(params.size()).append("},{").append(params.size() + 1).append("})");
+                params.add(messageId);
+                params.add(claim.getOwner());
             }
         }
+        if (params.isEmpty()) return 0;
+        LambdaUpdateWrapper<RabbitmqMessage> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.apply("(id, consume_owner) IN (" + pairs + ")", params.toArray());
+        updateWrapper.eq(RabbitmqMessage::getConsumeStatus, RabbitmqConsumeStatus.CONSUMING.getValue());
+        updateWrapper.set(RabbitmqMessage::getConsumeLeaseUntil, LocalDateTime.now().plus(maxConsumeTimeoutMillis, ChronoUnit.MILLIS));
+        return this.baseMapper.update(null, updateWrapper);
+    }
 
+    /**
+     * 构造认领者消费成功的更新条件：消费中且认领标识一致，置为消费成功
+     *
+     * @param owner 认领标识
+     * @return 更新条件，调用方追加主键条件
+     */
+    private LambdaUpdateWrapper<RabbitmqMessage> ownedConsumeSuccessWrapper(String owner) {
+        LambdaUpdateWrapper<RabbitmqMessage> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(RabbitmqMessage::getConsumeStatus, RabbitmqConsumeStatus.CONSUMING.getValue());
+        updateWrapper.eq(RabbitmqMessage::getConsumeOwner, owner);
+        updateWrapper.set(RabbitmqMessage::getConsumeStatus, RabbitmqConsumeStatus.SUCCESS.getValue());
+        updateWrapper.set(RabbitmqMessage::getConsumeSuccessTime, LocalDateTime.now());
+        updateWrapper.set(RabbitmqMessage::getConsumeErrorMessage, null);
+        return updateWrapper;
+    }
+
+    /**
+     * 构造消费认领的更新条件：未消费成功，且不在消费中或租约已到期，置为消费中、记录认领标识、设置租约到期时间并增加消费次数
+     * 没有租约到期时间的旧数据按最后消费时间加租约时长判断
+     *
+     * @param now   当前时间
+     * @param owner 认领标识
+     * @return 更新条件，调用方追加主键条件
+     */
+    private LambdaUpdateWrapper<RabbitmqMessage> consumeClaimWrapper(LocalDateTime now, String owner) {
+        LocalDateTime timeoutBefore = now.minus(maxConsumeTimeoutMillis, ChronoUnit.MILLIS);
+        LambdaUpdateWrapper<RabbitmqMessage> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.ne(RabbitmqMessage::getConsumeStatus, RabbitmqConsumeStatus.SUCCESS.getValue());
+        updateWrapper.and(w -> w.ne(RabbitmqMessage::getConsumeStatus, RabbitmqConsumeStatus.CONSUMING.getValue())
+                .or().lt(RabbitmqMessage::getConsumeLeaseUntil, now)
+                .or(l -> l.isNull(RabbitmqMessage::getConsumeLeaseUntil)
+                        .and(t -> t.isNull(RabbitmqMessage::getConsumeLastTime).or().lt(RabbitmqMessage::getConsumeLastTime, timeoutBefore))));
+        updateWrapper.set(RabbitmqMessage::getConsumeStatus, RabbitmqConsumeStatus.CONSUMING.getValue());
+        updateWrapper.setSql("consume_count=consume_count+1");
+        updateWrapper.set(RabbitmqMessage::getConsumeLastTime, now);
+        updateWrapper.set(RabbitmqMessage::getConsumeOwner, owner);
+        updateWrapper.set(RabbitmqMessage::getConsumeLeaseUntil, now.plus(maxConsumeTimeoutMillis, ChronoUnit.MILLIS));
+        return updateWrapper;
     }
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import xyz.zhenliang.rabbitmq.codec.RabbitmqCodecRegistry;
 import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
 import xyz.zhenliang.rabbitmq.reminder.IRabbitmqReminder;
 import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
@@ -21,6 +22,9 @@ public class RabbitmqReminderService {
     @Autowired
     private IRabbitmqMessageService rabbitmqMessageService;
 
+    @Autowired
+    private RabbitmqCodecRegistry codecRegistry;
+
     /**
      * 发送失败提醒方法
      * 当消息发送失败时调用此方法进行提醒
@@ -29,7 +33,7 @@ public class RabbitmqReminderService {
     public void sendFailedReminder(String messageId, Throwable e) {
         RabbitmqMessage message = rabbitmqMessageService.getById(messageId);
         if (message != null) {
-            this.sendFailedReminder(messageId, message.getMessageBody(), e);
+            this.sendFailedReminder(messageId, codecRegistry.toReadableString(null, message.getMessageBody()), e);
         }
     }
 
@@ -43,7 +47,7 @@ public class RabbitmqReminderService {
         if (message != null) {
             IRabbitmqReminder rabbitmqReminder = MqSpringUtils.getBean(IRabbitmqReminder.class);
             if (rabbitmqReminder == null) return;
-            rabbitmqReminder.sendFailedReminder(messageId, message.getMessageBody(), cause);
+            rabbitmqReminder.sendFailedReminder(messageId, codecRegistry.toReadableString(null, message.getMessageBody()), cause);
         }
     }
 
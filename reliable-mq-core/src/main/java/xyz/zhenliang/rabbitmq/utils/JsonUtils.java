@@ -38,6 +38,52 @@ public class JsonUtils {
 
     }
 
+    /**
+     * 将对象直接序列化为UTF-8编码的JSON字节数组，不经过中间字符串
+     *
+     * @param obj
+     * @return
+     */
+    public static byte[] toJsonBytes(Object obj) {
+        try {
+            return objectMapper.writeValueAsBytes(obj);
+        } catch (Exception e) {
+            throw new TechException(e);
+        }
+    }
+
+    /**
+     * 将JSON字节数组转换为对象
+     *
+     * @param json  UTF-8编码的JSON字节数组
+     * @param clazz
+     * @param <T>
+     * @return
+     */
+    public static <T> T fromJson(byte[] json, Class<T> clazz) {
+        try {
+            return objectMapper.readValue(json, clazz);
+        } catch (Exception e) {
+            throw new TechException("JSON 转换失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 将JSON字节数组转换为泛型对象
+     *
+     * @param json          UTF-8编码的JSON字节数组
+     * @param typeReference 类型引用
+     * @param <T>           目标类型
+     * @return 转换后的对象
+     */
+    public static <T> T fromJson(byte[] json, TypeReference<T> typeReference) {
+        try {
+            return objectMapper.readValue(json, typeReference);
+        } catch (Exception e) {
+            throw new TechException("JSON泛型转换失败: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * 将JSON字符串转换为对象
      *
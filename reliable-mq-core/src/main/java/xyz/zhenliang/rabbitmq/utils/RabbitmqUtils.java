@@ -30,11 +30,8 @@ public class RabbitmqUtils {
             return null;
         }
 
-        // 将字节数组转换为字符串（假设消息是文本格式）
-        String content = new String(body, StandardCharsets.UTF_8);
-
-        // 使用JsonUtils将字符串转换为指定类型的对象
-        return JsonUtils.fromJson(content, clazz);
+        // 直接从字节数组反序列化，不经过中间字符串
+        return JsonUtils.fromJson(body, clazz);
     }
 
     /**
@@ -59,11 +56,8 @@ public class RabbitmqUtils {
             return null;
         }
 
-        // 将字节数组转换为字符串（假设消息是文本格式）
-        String content = new String(body, StandardCharsets.UTF_8);
-
-        // 使用JsonUtils将字符串转换为指定类型的对象
-        return JsonUtils.fromJson(content, typeReference);
+        // 直接从字节数组反序列化，不经过中间字符串
+        return JsonUtils.fromJson(body, typeReference);
     }
 
     /**
@@ -73,6 +67,7 @@ public class RabbitmqUtils {
      * @return
      */
     public static String toString(byte[] array) {
+        if (array == null) return null;
         return new String(array, StandardCharsets.UTF_8);
     }
 
@@ -88,19 +83,29 @@ public class RabbitmqUtils {
         if (Objects.isNull(obj)) {
             return null;
         }
+        if (obj instanceof byte[]) {
+            return (byte[]) obj;
+        }
         if (obj instanceof String) {
             return ((String) obj).getBytes(StandardCharsets.UTF_8);
         }
 
-        // 将对象转换为JSON字符串
-        String json = JsonUtils.toJson(obj);
+        // 将对象直接序列化为JSON字节数组
+        return JsonUtils.toJsonBytes(obj);
+    }
 
-        // 检查转换结果
-        if (Objects.isNull(json)) {
-            return null;
+    /**
+     * 判断字节数组是否以指定的前缀开头，用于根据魔数识别消息体格式
+     *
+     * @param array  字节数组
+     * @param prefix 前缀
+     * @return 是否以前缀开头
+     */
+    public static boolean startsWith(byte[] array, byte[] prefix) {
+        if (array == null || array.length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (array[i] != prefix[i]) return false;
         }
-
-        // 将JSON字符串转换为字节数组
-        return json.getBytes(StandardCharsets.UTF_8);
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+package xyz.zhenliang.rabbitmq.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限速器
+ * 按每秒速率补充令牌，桶容量为1秒的令牌数；令牌不足时允许预支，由调用线程休眠到令牌补足，多个线程可共享同一限速器
+ */
+public class TokenBucket {
+    /**
+     * 每秒速率，小于等于0表示不限速
+     */
+    private final double ratePerSecond;
+
+    /**
+     * 当前令牌数，预支后可为负数
+     */
+    private double tokens;
+
+    /**
+     * 上次补充令牌的时间（纳秒）
+     */
+    private long lastNanos;
+
+    public TokenBucket(double ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+        this.tokens = Math.max(1, ratePerSecond);
+        this.lastNanos = System.nanoTime();
+    }
+
+    /**
+     * 是否限速
+     *
+     * @return boolean 是否限速
+     */
+    public boolean isLimited() {
+        return ratePerSecond > 0;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    /**
+     * 获取令牌，令牌不足时休眠等待
+     *
+     * @param permits 令牌数
+     * @throws InterruptedException 等待时被中断
+     */
+    public void acquire(int permits) throws InterruptedException {
+        long waitNanos = reserve(permits);
+        if (waitNanos > 0) TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+
+    /**
+     * 预支令牌
+     *
+     * @param permits 令牌数
+     * @return 需要等待的时间（纳秒），0表示无需等待
+     */
+    private synchronized long reserve(int permits) {
+        if (!isLimited()) return 0;
+        long now = System.nanoTime();
+        tokens = Math.min(Math.max(1, ratePerSecond), tokens + (now - lastNanos) / 1e9 * ratePerSecond);
+        lastNanos = now;
+        tokens -= permits;
+        return tokens >= 0 ? 0 : (long) (-tokens / ratePerSecond * 1e9);
+    }
+}
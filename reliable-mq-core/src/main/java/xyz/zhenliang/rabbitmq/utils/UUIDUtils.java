@@ -3,6 +3,8 @@ package xyz.zhenliang.rabbitmq.utils;
 import java.util.UUID;
 
 public class UUIDUtils {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     /**
      * 生成32位UUID字符串（不含连字符）,高性能实现
      *
@@ -11,12 +13,40 @@ public class UUIDUtils {
     public static String generate32UUID() {
         // return UUID.randomUUID().toString().replace("-", "");
         final UUID uuid = UUID.randomUUID();
-        return toHexString(uuid.getMostSignificantBits()) +
-                toHexString(uuid.getLeastSignificantBits());
+        return toHexString(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * 将两个long值转为32个字符的十六进制表示
+     *
+     * @param msb 高64位
+     * @param lsb 低64位
+     * @return 32位十六进制字符串
+     */
+    public static String toHexString(long msb, long lsb) {
+        char[] buf = new char[32];
+        writeHex(buf, 0, msb);
+        writeHex(buf, 16, lsb);
+        return new String(buf);
+    }
+
+    /**
+     * 将long值转为16个字符的十六进制表示（前补0）
+     *
+     * @param value long值
+     * @return 16位十六进制字符串
+     */
+    public static String toHexString(long value) {
+        char[] buf = new char[16];
+        writeHex(buf, 0, value);
+        return new String(buf);
     }
 
-    // 将long值转为16个字符的十六进制表示
-    private static String toHexString(long value) {
-        return String.format("%016x", value);
+    // 将long值以16个十六进制字符写入buf的offset位置，替代String.format("%016x")
+    private static void writeHex(char[] buf, int offset, long value) {
+        for (int i = offset + 15; i >= offset; i--) {
+            buf[i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
     }
 }
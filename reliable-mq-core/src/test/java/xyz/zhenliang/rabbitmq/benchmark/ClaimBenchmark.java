@@ -0,0 +1,161 @@
+package xyz.zhenliang.rabbitmq.benchmark;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import xyz.zhenliang.rabbitmq.constant.RabbitmqConsumeStatus;
+import xyz.zhenliang.rabbitmq.constant.RabbitmqSaveBy;
+import xyz.zhenliang.rabbitmq.constant.RabbitmqSendStatus;
+import xyz.zhenliang.rabbitmq.dto.ConsumeClaim;
+import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
+import xyz.zhenliang.rabbitmq.id.impl.UuidV7IdGenerator;
+import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
+import xyz.zhenliang.rabbitmq.support.MqTestDatabase;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单条消息消费认领的延迟
+ * claim*：一条带条件的UPDATE，未命中时INSERT IGNORE，由影响行数决定认领结果；
+ * legacy*：改造之前的实现，先按主键查询，再在Java中判断状态后INSERT或UPDATE
+ * 三种情形：New为消费端首次见到的消息（表中不存在），Existing为发送端已落库的消息，Duplicate为正在消费中的重复投递
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ClaimBenchmark {
+    private static final byte[] BODY = "{\"data\":{\"orderNo\":\"SO202410170001\"}}".getBytes(StandardCharsets.UTF_8);
+    private static final long LEASE_MILLIS = 3000;
+
+    private ConfigurableApplicationContext context;
+    private IRabbitmqMessageService messageService;
+    private TransactionTemplate requiresNew;
+    private final UuidV7IdGenerator idGenerator = new UuidV7IdGenerator();
+    private String duplicateId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = MqTestDatabase.start("mq.maxConsumeTimeoutMillis=" + LEASE_MILLIS);
+        messageService = context.getBean(IRabbitmqMessageService.class);
+        requiresNew = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        duplicateId = idGenerator.generate();
+        messageService.claimMessageConsume(claimMessage(duplicateId));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ConsumeClaim claimNew() {
+        return messageService.claimMessageConsume(claimMessage(idGenerator.generate()));
+    }
+
+    @Benchmark
+    public ConsumeClaim claimExisting(SenderMessage existing) {
+        return messageService.claimMessageConsume(claimMessage(existing.messageId));
+    }
+
+    @Benchmark
+    public ConsumeClaim claimDuplicate() {
+        return messageService.claimMessageConsume(claimMessage(duplicateId));
+    }
+
+    @Benchmark
+    public boolean legacyNew() {
+        return legacyClaim(idGenerator.generate());
+    }
+
+    @Benchmark
+    public boolean legacyExisting(SenderMessage existing) {
+        return legacyClaim(existing.messageId);
+    }
+
+    @Benchmark
+    public boolean legacyDuplicate() {
+        return legacyClaim(duplicateId);
+    }
+
+    /**
+     * 改造之前的认领：按主键查询，在Java中判断后INSERT或UPDATE
+     *
+     * @param messageId 消息ID
+     * @return true-已消费或正在消费，false-认领成功
+     */
+    private boolean legacyClaim(String messageId) {
+        return Boolean.TRUE.equals(requiresNew.execute(status -> {
+            RabbitmqMessage message = messageService.getById(messageId);
+            LocalDateTime now = LocalDateTime.now();
+            if (message == null) {
+                RabbitmqMessage consumerMessage = claimMessage(messageId);
+                consumerMessage.setSendStatus(RabbitmqSendStatus.SUCCESS.getValue());
+                consumerMessage.setSendCount(0);
+                consumerMessage.setConsumeStatus(RabbitmqConsumeStatus.CONSUMING.getValue());
+                consumerMessage.setConsumeCount(1);
+                consumerMessage.setConsumeLastTime(now);
+                consumerMessage.setSavedBy(RabbitmqSaveBy.CONSUMER_SAVE.getValue());
+                consumerMessage.setCreatedAt(now);
+                messageService.save(consumerMessage);
+                return false;
+            }
+            if (message.getConsumeStatus() == RabbitmqConsumeStatus.SUCCESS.getValue()) return true;
+            if (message.getConsumeStatus() == RabbitmqConsumeStatus.CONSUMING.getValue() && message.getConsumeLastTime() != null
+                    && !message.getConsumeLastTime().plus(LEASE_MILLIS, ChronoUnit.MILLIS).isBefore(now)) {
+                return true;
+            }
+            LambdaUpdateWrapper<RabbitmqMessage> updateWrapper = new LambdaUpdateWrapper<>();
+            updateWrapper.eq(RabbitmqMessage::getId, messageId);
+            updateWrapper.set(RabbitmqMessage::getConsumeStatus, RabbitmqConsumeStatus.CONSUMING.getValue());
+            updateWrapper.setSql("consume_count=consume_count+1");
+            updateWrapper.set(RabbitmqMessage::getConsumeLastTime, now);
+            messageService.update(updateWrapper);
+            return false;
+        }));
+    }
+
+    /**
+     * 每次调用前由发送端落库一条等待认领的消息，落库不计入耗时
+     */
+    @State(Scope.Thread)
+    public static class SenderMessage {
+        private final UuidV7IdGenerator idGenerator = new UuidV7IdGenerator();
+        String messageId;
+
+        @Setup(Level.Invocation)
+        public void create(ClaimBenchmark benchmark) {
+            messageId = idGenerator.generate();
+            benchmark.messageService.createMessageBySender(messageId, null, "order.exchange", "order.created", BODY);
+        }
+    }
+
+    private static RabbitmqMessage claimMessage(String messageId) {
+        RabbitmqMessage message = new RabbitmqMessage();
+        message.setId(messageId);
+        message.setExchange("order.exchange");
+        message.setRoutingKey("order.created");
+        message.setMessageBody(BODY);
+        return message;
+    }
+}
@@ -0,0 +1,101 @@
+package xyz.zhenliang.rabbitmq.benchmark;
+
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.zhenliang.rabbitmq.codec.IRabbitmqCompressor;
+import xyz.zhenliang.rabbitmq.codec.impl.DeflateRabbitmqCompressor;
+import xyz.zhenliang.rabbitmq.codec.impl.GzipRabbitmqCompressor;
+import xyz.zhenliang.rabbitmq.codec.impl.Lz4RabbitmqCompressor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各压缩算法在不同消息体大小下的压缩、解压吞吐量和压缩率
+ * 压缩率在每组参数开始时输出；lz4-4mb为lz4-java默认4MB块的LZ4 frame，用于对比块大小对分配的影响（建议加 -prof gc）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+    @Param({"gzip", "deflate", "lz4", "lz4-4mb"})
+    public String algorithm;
+
+    /**
+     * 消息体大小（字节）
+     */
+    @Param({"4096", "65536", "1048576"})
+    public int size;
+
+    private IRabbitmqCompressor compressor;
+    private byte[] body;
+    private byte[] compressed;
+
+    @Setup
+    public void setUp() {
+        compressor = switch (algorithm) {
+            case "gzip" -> new GzipRabbitmqCompressor();
+            case "deflate" -> new DeflateRabbitmqCompressor();
+            case "lz4" -> new Lz4RabbitmqCompressor();
+            case "lz4-4mb" -> new Lz4RabbitmqCompressor() {
+                @Override
+                protected OutputStream compressStream(OutputStream out) throws IOException {
+                    return new LZ4FrameOutputStream(out);
+                }
+            };
+            default -> throw new IllegalArgumentException(algorithm);
+        };
+        body = orderDocument(size);
+        compressed = compressor.compress(body);
+        System.out.printf("%n%s %d bytes -> %d bytes, ratio %.3f%n", algorithm, body.length, compressed.length, (double) compressed.length / body.length);
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return compressor.compress(body);
+    }
+
+    @Benchmark
+    public byte[] decompress() {
+        return compressor.decompress(compressed);
+    }
+
+    /**
+     * 构造指定大小的订单JSON文档，明细行的字段取值随机，接近真实消息的压缩率
+     *
+     * @param size 字节数
+     * @return UTF-8编码的JSON
+     */
+    static byte[] orderDocument(int size) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder json = new StringBuilder(size + 256);
+        json.append("{\"messageId\":\"0192a1b2c3d4e5f60718293a4b5c6d7e\",\"exchange\":\"order.exchange\",\"routingKey\":\"order.created\",")
+                .append("\"data\":{\"orderNo\":\"SO202410170001\",\"customerId\":10086,\"items\":[");
+        for (int i = 0; json.length() < size - 64; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"lineNo\":").append(i)
+                    .append(",\"sku\":\"SKU-").append(random.nextInt(100000))
+                    .append("\",\"qty\":").append(random.nextInt(1, 20))
+                    .append(",\"price\":").append(random.nextInt(100, 100000) / 100.0)
+                    .append(",\"warehouse\":\"WH-").append(random.nextInt(10)).append("\"}");
+        }
+        json.append("]}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,255 @@
+package xyz.zhenliang.rabbitmq.benchmark;
+
+import com.rabbitmq.client.Channel;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import xyz.zhenliang.rabbitmq.codec.RabbitmqCodecRegistry;
+import xyz.zhenliang.rabbitmq.codec.impl.GzipRabbitmqCompressor;
+import xyz.zhenliang.rabbitmq.codec.impl.JsonRabbitmqCodec;
+import xyz.zhenliang.rabbitmq.constant.RabbitMQConstant;
+import xyz.zhenliang.rabbitmq.consumer.AbstractRabbitmqListener;
+import xyz.zhenliang.rabbitmq.consumer.RabbitmqConsumeLease;
+import xyz.zhenliang.rabbitmq.consumer.RabbitmqConsumeStats;
+import xyz.zhenliang.rabbitmq.consumer.RabbitmqConsumeTransaction;
+import xyz.zhenliang.rabbitmq.consumer.RabbitmqConsumedCache;
+import xyz.zhenliang.rabbitmq.consumer.RabbitmqConsumerRetryListener;
+import xyz.zhenliang.rabbitmq.dto.ConsumeClaim;
+import xyz.zhenliang.rabbitmq.dto.RabbitmqMsgDTO;
+import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
+import xyz.zhenliang.rabbitmq.rescue.retry.RabbitmqDelayRetry;
+import xyz.zhenliang.rabbitmq.rescue.retry.RabbitmqRetryManager;
+import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
+import xyz.zhenliang.rabbitmq.service.impl.RabbitmqReminderService;
+import xyz.zhenliang.rabbitmq.utils.JsonUtils;
+import xyz.zhenliang.rabbitmq.utils.MqSpringUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 部分消息消费失败时单个消费线程的吞吐量
+ * interceptor：消费线程内按RetryTemplate退避重试（原有方式），退避期间线程阻塞；
+ * delay：失败的消息投递到延迟重试队列并立即确认，线程继续处理后续消息，到期的重试消息与新消息交替处理
+ * 失败的消息每次消费都失败，直到最后一次消费后发送提醒，是重试代价最高的情形；
+ * 退避和延迟档位都按配置默认值缩小100倍（10ms、20ms...），数据库和Broker使用桩对象，只比较重试方式本身
+ * completed为每秒处理结束（消费成功或最终失败）的消息数，acked为每秒确认的投递数（包括投递到重试队列后确认的原消息），
+ * 用于确认每次投递都被确认，未确认的投递在真实Broker上会占满prefetch
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DelayRetryBenchmark {
+
+    @Param({"interceptor", "delay"})
+    public String mode;
+
+    @Param({"0", "1", "10"})
+    public int failPercent;
+
+    private final Channel channel = mock(Channel.class, withSettings().stubOnly());
+    private final PriorityQueue<Scheduled> pending = new PriorityQueue<>();
+    private FailingListener listener;
+    private RabbitmqDelayRetry delayRetry;
+    private RetryTemplate retryTemplate;
+    private Counters counters;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        doAnswer(invocation -> {
+            counters.acked++;
+            return null;
+        }).when(channel).basicAck(anyLong(), anyBoolean());
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(AbstractRabbitmqListener.class)).setLevel(ch.qos.logback.classic.Level.OFF);
+
+        delayRetry = new RabbitmqDelayRetry();
+        ReflectionTestUtils.setField(delayRetry, "mode", mode);
+        ReflectionTestUtils.setField(delayRetry, "delays", new long[]{10, 20, 40, 100});
+
+        RabbitProperties rabbitProperties = new RabbitProperties();
+        RabbitProperties.ListenerRetry retry = rabbitProperties.getListener().getSimple().getRetry();
+        retry.setEnabled(true);
+        retry.setMaxAttempts(3);
+        retry.setInitialInterval(Duration.ofMillis(10));
+        retry.setMultiplier(2);
+        retry.setMaxInterval(Duration.ofMillis(100));
+        RabbitmqRetryManager retryManager = new RabbitmqRetryManager();
+        ReflectionTestUtils.setField(retryManager, "rabbitProperties", rabbitProperties);
+        ReflectionTestUtils.setField(retryManager, "delayRetry", delayRetry);
+        ReflectionTestUtils.setField(retryManager, "consumerRetryListener", new RabbitmqConsumerRetryListener());
+        retryTemplate = retryManager.getConsumeRetryTemplate();
+
+        RabbitmqCodecRegistry codecRegistry = new RabbitmqCodecRegistry();
+        ReflectionTestUtils.setField(codecRegistry, "codecs", List.of(new JsonRabbitmqCodec()));
+        ReflectionTestUtils.setField(codecRegistry, "compressors", List.of(new GzipRabbitmqCompressor()));
+        ReflectionTestUtils.setField(codecRegistry, "environment", new StandardEnvironment());
+        codecRegistry.init();
+
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(RabbitmqDelayRetry.class, () -> delayRetry);
+        context.registerBean(RabbitmqRetryManager.class, () -> retryManager);
+        context.registerBean(RabbitmqCodecRegistry.class, () -> codecRegistry);
+        context.registerBean(RabbitmqConsumedCache.class, RabbitmqConsumedCache::new);
+        context.registerBean(RabbitmqConsumeStats.class, RabbitmqConsumeStats::new);
+        IRabbitmqMessageService messageService = mock(IRabbitmqMessageService.class, withSettings().stubOnly());
+        // 每次投递都认领成功，消费成功的状态更新都命中
+        when(messageService.claimMessageConsume(any())).thenAnswer(invocation ->
+                new ConsumeClaim("bench#1", Set.of(invocation.<RabbitmqMessage>getArgument(0).getId())));
+        when(messageService.updateConsumeSuccessById(anyString(), anyString())).thenReturn(true);
+        context.registerBean(IRabbitmqMessageService.class, () -> messageService);
+        context.registerBean(RabbitmqConsumeLease.class, () -> mock(RabbitmqConsumeLease.class, withSettings().stubOnly()));
+        context.registerBean(RabbitmqConsumeTransaction.class, () -> mock(RabbitmqConsumeTransaction.class, withSettings().stubOnly()));
+        context.registerBean(RabbitmqReminderService.class, () -> new RabbitmqReminderService() {
+            @Override
+            public void consumeFailedReminder(String messageId, String messageBody, Throwable e) {
+                counters.completed++;
+                counters.deadLettered++;
+            }
+        });
+        context.refresh();
+        new MqSpringUtils().setApplicationContext(context);
+        listener = new FailingListener(this);
+    }
+
+    @Setup(Level.Iteration)
+    public void bindCounters(Counters counters) {
+        this.counters = counters;
+    }
+
+    /**
+     * 处理一次投递：延迟重试模式下优先处理已到期的重试消息，否则处理一条新消息
+     */
+    @Benchmark
+    public void deliver() {
+        Scheduled due = pending.peek();
+        if (due != null && due.dueAt <= System.nanoTime()) {
+            consume(pending.poll().message);
+        } else {
+            consume(newMessage());
+        }
+    }
+
+    private void consume(Message message) {
+        if (!delayRetry.isEnabled()) {
+            // 与监听容器的重试拦截器相同：在消费线程内按退避策略重试
+            retryTemplate.execute(context -> {
+                listener.consume(message, channel);
+                return null;
+            });
+            return;
+        }
+        long scheduledBefore = delayRetry.getScheduledCount();
+        listener.consume(message, channel);
+        if (delayRetry.getScheduledCount() > scheduledBefore) {
+            // 模拟Broker：消息在重试队列中等待对应档位的延迟后回到消费队列
+            int attempt = (Integer) message.getMessageProperties().getHeader(RabbitMQConstant.RETRY_COUNT);
+            long delayMillis = new long[]{10, 20, 40, 100}[Math.min(attempt, 4) - 1];
+            pending.add(new Scheduled(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis), message));
+        }
+    }
+
+    private Message newMessage() {
+        long n = sequence++;
+        String messageId = "m-" + n;
+        RabbitmqMsgDTO<String> msgDTO = new RabbitmqMsgDTO<>(messageId, "order.exchange", "order.created", "SO" + n, null, null);
+        MessageProperties properties = new MessageProperties();
+        properties.setMessageId(messageId);
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setConsumerQueue("order.queue");
+        properties.setHeader(RabbitMQConstant.EXCHANGE, "order.exchange");
+        properties.setHeader(RabbitMQConstant.ROUTING_KEY, "order.created");
+        // 每100条消息中前failPercent条每次消费都失败
+        properties.setHeader("failing", n % 100 < failPercent);
+        return new Message(JsonUtils.toJsonBytes(msgDTO), properties);
+    }
+
+    /**
+     * 处理结束的消息计数，每次迭代重新计数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long completed;
+        public long deadLettered;
+        public long acked;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            completed = 0;
+            deadLettered = 0;
+            acked = 0;
+        }
+    }
+
+    private static final class Scheduled implements Comparable<Scheduled> {
+        private final long dueAt;
+        private final Message message;
+
+        private Scheduled(long dueAt, Message message) {
+            this.dueAt = dueAt;
+            this.message = message;
+        }
+
+        @Override
+        public int compareTo(Scheduled other) {
+            return Long.compare(dueAt, other.dueAt);
+        }
+    }
+
+    static class FailingListener extends AbstractRabbitmqListener<String> {
+        private final DelayRetryBenchmark benchmark;
+        private Message current;
+
+        FailingListener(DelayRetryBenchmark benchmark) {
+            this.benchmark = benchmark;
+        }
+
+        @Override
+        public void consume(Message message, Channel channel) {
+            current = message;
+            super.consume(message, channel);
+        }
+
+        @Override
+        public void handleData(RabbitmqMsgDTO<String> msgDTO) {
+            if (Boolean.TRUE.equals(current.getMessageProperties().getHeader("failing"))) {
+                throw new IllegalStateException("handler failed");
+            }
+            benchmark.counters.completed++;
+        }
+    }
+}
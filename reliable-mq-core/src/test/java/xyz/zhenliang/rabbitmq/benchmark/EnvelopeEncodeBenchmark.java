@@ -0,0 +1,79 @@
+package xyz.zhenliang.rabbitmq.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import xyz.zhenliang.rabbitmq.codec.impl.JsonRabbitmqCodec;
+import xyz.zhenliang.rabbitmq.dto.RabbitmqMsgDTO;
+import xyz.zhenliang.rabbitmq.utils.JsonUtils;
+import xyz.zhenliang.rabbitmq.utils.RabbitmqUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发送路径上消息信封的序列化开销，建议加 -prof gc 查看每次发送的分配字节数（gc.alloc.rate.norm）
+ * baseline：落库时序列化为字符串，事务提交后再序列化一次并转换为UTF-8字节数组作为AMQP消息体；
+ * encodeOnce：只序列化一次为字节数组，同一个数组既写入数据库也作为AMQP消息体
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnvelopeEncodeBenchmark {
+    /**
+     * 订单明细行数，控制消息体大小
+     */
+    @Param({"1", "20", "200"})
+    public int items;
+
+    private RabbitmqMsgDTO<Map<String, Object>> msgDTO;
+    private final JsonRabbitmqCodec codec = new JsonRabbitmqCodec();
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("orderNo", "SO202410170001");
+        order.put("customerId", 10086L);
+        order.put("amount", new BigDecimal("128.50"));
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("sku", "SKU-" + i);
+            line.put("name", "商品" + i);
+            line.put("qty", i + 1);
+            line.put("price", new BigDecimal("9.90"));
+            lines.add(line);
+        }
+        order.put("items", lines);
+        msgDTO = new RabbitmqMsgDTO<>("0192a1b2c3d4e5f60718293a4b5c6d7e", "order.exchange", "order.created", order, "SO202410170001", null);
+    }
+
+    @Benchmark
+    public void baseline(Blackhole blackhole) {
+        // 落库
+        blackhole.consume(JsonUtils.toJson(msgDTO));
+        // 事务提交后发送
+        blackhole.consume(RabbitmqUtils.toByteArray(JsonUtils.toJson(msgDTO)));
+    }
+
+    @Benchmark
+    public byte[] encodeOnce() {
+        return codec.encode(msgDTO);
+    }
+}
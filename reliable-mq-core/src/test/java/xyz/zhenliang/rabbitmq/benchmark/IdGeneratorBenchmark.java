@@ -0,0 +1,61 @@
+package xyz.zhenliang.rabbitmq.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.zhenliang.rabbitmq.id.impl.RandomUuidIdGenerator;
+import xyz.zhenliang.rabbitmq.id.impl.SnowflakeIdGenerator;
+import xyz.zhenliang.rabbitmq.id.impl.UlidIdGenerator;
+import xyz.zhenliang.rabbitmq.id.impl.UuidV7IdGenerator;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息ID生成器的耗时，建议加 -prof gc 查看每个ID的分配字节数
+ * legacyFormat为引入生成器之前UUIDUtils.generate32UUID的实现（随机UUID，两次String.format）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGeneratorBenchmark {
+    private final RandomUuidIdGenerator uuid = new RandomUuidIdGenerator();
+    private final UuidV7IdGenerator uuid7 = new UuidV7IdGenerator();
+    private final UlidIdGenerator ulid = new UlidIdGenerator();
+    private final SnowflakeIdGenerator snowflake = new SnowflakeIdGenerator(1);
+
+    @Benchmark
+    public String legacyFormat() {
+        UUID value = UUID.randomUUID();
+        return String.format("%016x", value.getMostSignificantBits()) + String.format("%016x", value.getLeastSignificantBits());
+    }
+
+    @Benchmark
+    public String uuid() {
+        return uuid.generate();
+    }
+
+    @Benchmark
+    public String uuid7() {
+        return uuid7.generate();
+    }
+
+    @Benchmark
+    public String ulid() {
+        return ulid.generate();
+    }
+
+    @Benchmark
+    public String snowflake() {
+        return snowflake.generate();
+    }
+}
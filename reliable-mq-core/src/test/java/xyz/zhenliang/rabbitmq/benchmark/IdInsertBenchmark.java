@@ -0,0 +1,107 @@
+package xyz.zhenliang.rabbitmq.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
+import xyz.zhenliang.rabbitmq.id.IRabbitmqIdGenerator;
+import xyz.zhenliang.rabbitmq.id.impl.RandomUuidIdGenerator;
+import xyz.zhenliang.rabbitmq.id.impl.SnowflakeIdGenerator;
+import xyz.zhenliang.rabbitmq.id.impl.UlidIdGenerator;
+import xyz.zhenliang.rabbitmq.id.impl.UuidV7IdGenerator;
+import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
+import xyz.zhenliang.rabbitmq.support.MqTestDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不同ID生成器在持续增长的消息表上的插入吞吐量
+ * 每组参数从空表开始，每次调用用一条多行INSERT写入一批消息，每轮迭代结束时输出表的行数；
+ * 随机ID的插入分散在整个聚簇索引上，表超过缓冲池后吞吐量随表的增长而下降，时间有序的ID始终追加在索引末尾
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 8, time = 15)
+@Fork(1)
+public class IdInsertBenchmark {
+    private static final int BATCH_SIZE = 500;
+
+    @Param({"uuid", "uuid7", "ulid", "snowflake"})
+    public String generator;
+
+    /**
+     * 消息体大小（字节）
+     */
+    @Param({"512"})
+    public int bodySize;
+
+    private ConfigurableApplicationContext context;
+    private IRabbitmqMessageService messageService;
+    private TransactionTemplate transactionTemplate;
+    private IRabbitmqIdGenerator idGenerator;
+    private byte[] body;
+    private long rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = MqTestDatabase.start();
+        messageService = context.getBean(IRabbitmqMessageService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        idGenerator = switch (generator) {
+            case "uuid" -> new RandomUuidIdGenerator();
+            case "uuid7" -> new UuidV7IdGenerator();
+            case "ulid" -> new UlidIdGenerator();
+            case "snowflake" -> new SnowflakeIdGenerator(1);
+            default -> throw new IllegalArgumentException(generator);
+        };
+        body = CompressionBenchmark.orderDocument(bodySize);
+        rows = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printRows() {
+        System.out.printf(" [rows: %d]", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 插入一批消息，得分为每秒插入的行数
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insert() {
+        List<RabbitmqMessage> messages = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            RabbitmqMessage message = new RabbitmqMessage();
+            message.setId(idGenerator.generate());
+            message.setExchange("order.exchange");
+            message.setRoutingKey("order.created");
+            message.setMessageBody(body);
+            messages.add(message);
+        }
+        transactionTemplate.executeWithoutResult(status -> messageService.createMessagesBySender(messages));
+        rows += BATCH_SIZE;
+    }
+}
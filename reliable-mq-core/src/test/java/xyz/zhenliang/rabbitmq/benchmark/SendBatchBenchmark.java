@@ -0,0 +1,106 @@
+package xyz.zhenliang.rabbitmq.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
+import xyz.zhenliang.rabbitmq.id.impl.UuidV7IdGenerator;
+import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
+import xyz.zhenliang.rabbitmq.support.MqTestDatabase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个事务发送N条消息的基准测试：逐条INSERT并逐条注册事务同步（批量API之前的方式），
+ * 与一条多行INSERT并只注册一个事务同步（sendMessages）对比
+ * 只测量事务内的落库和事务同步部分，事务提交后的发送不连接Broker
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class SendBatchBenchmark {
+    private static final byte[] BODY = ("{\"messageId\":\"x\",\"exchange\":\"order.exchange\",\"routingKey\":\"order.created\","
+            + "\"data\":{\"orderNo\":\"SO202410170001\",\"amount\":128.50,\"items\":[{\"sku\":\"A-1\",\"qty\":2}]}}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+    private IRabbitmqMessageService messageService;
+    private TransactionTemplate transactionTemplate;
+    private final UuidV7IdGenerator idGenerator = new UuidV7IdGenerator();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = MqTestDatabase.start();
+        messageService = context.getBean(IRabbitmqMessageService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void perMessage(Blackhole blackhole) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < size; i++) {
+                String messageId = idGenerator.generate();
+                messageService.createMessageBySender(messageId, "B" + i, "order.exchange", "order.created", BODY);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        blackhole.consume(messageId);
+                    }
+                });
+            }
+        });
+    }
+
+    @Benchmark
+    public void batch(Blackhole blackhole) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<RabbitmqMessage> messages = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                RabbitmqMessage message = new RabbitmqMessage();
+                message.setId(idGenerator.generate());
+                message.setBusinessId("B" + i);
+                message.setExchange("order.exchange");
+                message.setRoutingKey("order.created");
+                message.setMessageBody(BODY);
+                messages.add(message);
+            }
+            messageService.createMessagesBySender(messages);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    blackhole.consume(messages);
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,130 @@
+package xyz.zhenliang.rabbitmq.benchmark;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import xyz.zhenliang.rabbitmq.constant.RabbitmqSendStatus;
+import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
+import xyz.zhenliang.rabbitmq.id.impl.UuidV7IdGenerator;
+import xyz.zhenliang.rabbitmq.mapper.RabbitmqMessageMapper;
+import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
+import xyz.zhenliang.rabbitmq.support.MqTestDatabase;
+import xyz.zhenliang.rabbitmq.support.StatementCounter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发送成功一条消息的数据库语句数基准测试
+ * baseline：INSERT之后，重试监听器close()更新发送次数，确认回调再更新发送状态，每条消息三条语句；
+ * guarded：INSERT之后只有一条以发送状态为守卫的确认成功UPDATE；
+ * guardedBatch：确认成功由写入器合并为 WHERE id IN (...) 的UPDATE
+ * 试验结束时输出每条消息的语句数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class SendStatementBenchmark {
+    private static final byte[] BODY = "{\"data\":{\"orderNo\":\"SO202410170001\",\"amount\":128.50}}".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 每次调用发送的消息数
+     */
+    @Param({"100"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+    private IRabbitmqMessageService messageService;
+    private RabbitmqMessageMapper messageMapper;
+    private StatementCounter statementCounter;
+    private TransactionTemplate transactionTemplate;
+    private final UuidV7IdGenerator idGenerator = new UuidV7IdGenerator();
+    private long messages;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = MqTestDatabase.start();
+        messageService = context.getBean(IRabbitmqMessageService.class);
+        messageMapper = context.getBean(RabbitmqMessageMapper.class);
+        statementCounter = context.getBean(StatementCounter.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        statementCounter.reset();
+        messages = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(BenchmarkParams params) {
+        System.out.printf("%n%s: %.3f statements per message%n", params.getBenchmark(), (double) statementCounter.get() / messages);
+        context.close();
+    }
+
+    @Benchmark
+    public void baseline() {
+        for (String messageId : insert()) {
+            // 重试监听器close()
+            LambdaUpdateWrapper<RabbitmqMessage> sendSuccess = new LambdaUpdateWrapper<>();
+            sendSuccess.eq(RabbitmqMessage::getId, messageId);
+            sendSuccess.setSql("send_count=send_count+1");
+            sendSuccess.set(RabbitmqMessage::getSendLastTime, LocalDateTime.now());
+            messageMapper.update(null, sendSuccess);
+            // 确认回调
+            LambdaUpdateWrapper<RabbitmqMessage> confirmSuccess = new LambdaUpdateWrapper<>();
+            confirmSuccess.eq(RabbitmqMessage::getId, messageId);
+            confirmSuccess.set(RabbitmqMessage::getSendStatus, RabbitmqSendStatus.SUCCESS.getValue());
+            confirmSuccess.set(RabbitmqMessage::getConfirmLastTime, LocalDateTime.now());
+            confirmSuccess.set(RabbitmqMessage::getSendErrorMessage, null);
+            messageMapper.update(null, confirmSuccess);
+        }
+    }
+
+    @Benchmark
+    public void guarded() {
+        for (String messageId : insert()) {
+            messageService.updateSendConfirmSuccessById(messageId, 1);
+        }
+    }
+
+    @Benchmark
+    public void guardedBatch() {
+        messageService.updateSendConfirmSuccessByIds(insert(), 1);
+    }
+
+    /**
+     * 在一个事务中逐条落库（sendMessage的方式）
+     *
+     * @return 消息ID列表
+     */
+    private List<String> insert() {
+        List<String> messageIds = new ArrayList<>(size);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < size; i++) {
+                String messageId = idGenerator.generate();
+                messageService.createMessageBySender(messageId, null, "order.exchange", "order.created", BODY);
+                messageIds.add(messageId);
+            }
+        });
+        messages += size;
+        return messageIds;
+    }
+}
@@ -0,0 +1,28 @@
+package xyz.zhenliang.rabbitmq.codec.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Lz4RabbitmqCompressorTest {
+    private final Lz4RabbitmqCompressor compressor = new Lz4RabbitmqCompressor();
+
+    @Test
+    void roundTrip() {
+        byte[] body = "{\"orderNo\":\"SO1\",\"items\":[]}".repeat(5000).getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = compressor.compress(body);
+        assertThat(compressor.matches(compressed)).isTrue();
+        assertThat(compressed.length).isLessThan(body.length);
+        assertThat(compressor.decompress(compressed)).isEqualTo(body);
+    }
+
+    @Test
+    void usesSmallFrameBlocks() {
+        byte[] compressed = compressor.compress("{}".getBytes(StandardCharsets.UTF_8));
+        // 帧头：4字节魔数、FLG、BD，BD的第4~6位为最大块大小，4表示64KB
+        int blockMaxSize = (compressed[5] >> 4) & 0x07;
+        assertThat(blockMaxSize).isEqualTo(4);
+    }
+}
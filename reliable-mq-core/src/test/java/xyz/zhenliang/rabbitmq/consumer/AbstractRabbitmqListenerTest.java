@@ -0,0 +1,174 @@
+package xyz.zhenliang.rabbitmq.consumer;
+
+import com.rabbitmq.client.Channel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import xyz.zhenliang.rabbitmq.codec.RabbitmqCodecRegistry;
+import xyz.zhenliang.rabbitmq.constant.RabbitMQConstant;
+import xyz.zhenliang.rabbitmq.dto.ConsumeClaim;
+import xyz.zhenliang.rabbitmq.dto.RabbitmqMsgDTO;
+import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
+import xyz.zhenliang.rabbitmq.rescue.retry.RabbitmqDelayRetry;
+import xyz.zhenliang.rabbitmq.rescue.retry.RabbitmqRetryManager;
+import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
+import xyz.zhenliang.rabbitmq.service.impl.RabbitmqReminderService;
+import xyz.zhenliang.rabbitmq.utils.MqSpringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AbstractRabbitmqListenerTest {
+    private static final long DELIVERY_TAG = 7;
+
+    private final RabbitmqRetryManager retryManager = mock(RabbitmqRetryManager.class);
+    private final IRabbitmqMessageService messageService = mock(IRabbitmqMessageService.class);
+    private final RabbitmqDelayRetry delayRetry = mock(RabbitmqDelayRetry.class);
+    private final RabbitmqReminderService reminderService = mock(RabbitmqReminderService.class);
+    private final RabbitmqConsumeLease consumeLease = mock(RabbitmqConsumeLease.class);
+    private final Channel channel = mock(Channel.class);
+    private final CountingListener listener = new CountingListener();
+    private final RabbitmqOrderedDispatcher dispatcher = new RabbitmqOrderedDispatcher();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dispatcher, "lanes", 4);
+        dispatcher.init();
+        dispatcher.start();
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(RabbitmqOrderedDispatcher.class, () -> dispatcher);
+        context.registerBean(RabbitmqRetryManager.class, () -> retryManager);
+        context.registerBean(IRabbitmqMessageService.class, () -> messageService);
+        context.registerBean(RabbitmqDelayRetry.class, () -> delayRetry);
+        context.registerBean(RabbitmqReminderService.class, () -> reminderService);
+        context.registerBean(RabbitmqConsumeLease.class, () -> consumeLease);
+        context.registerBean(RabbitmqCodecRegistry.class, () -> mock(RabbitmqCodecRegistry.class));
+        context.registerBean(RabbitmqConsumedCache.class, RabbitmqConsumedCache::new);
+        context.registerBean(RabbitmqConsumeStats.class, RabbitmqConsumeStats::new);
+        context.registerBean(RabbitmqConsumeTransaction.class, () -> mock(RabbitmqConsumeTransaction.class));
+        context.refresh();
+        new MqSpringUtils().setApplicationContext(context);
+        when(delayRetry.isEnabled()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    void successInDelayModeIsAckedBeforeLastAttempt() throws Exception {
+        Message message = message("m-0");
+        // 延迟重试模式下首次投递不是最后一次消费
+        when(retryManager.isLastConsume(message)).thenReturn(false);
+        when(messageService.claimMessageConsume(any(RabbitmqMessage.class))).thenReturn(new ConsumeClaim("node#0", Set.of("m-0")));
+        when(messageService.updateConsumeSuccessById("m-0", "node#0")).thenReturn(true);
+
+        listener.consume(message, channel);
+
+        assertThat(listener.handled.get()).isEqualTo(1);
+        verify(messageService).updateConsumeSuccessById("m-0", "node#0");
+        verify(channel).basicAck(DELIVERY_TAG, false);
+        verify(delayRetry, never()).publish(any(), any());
+        verify(consumeLease).release("m-0", "node#0");
+    }
+
+    @Test
+    void claimFailureInDelayModeSchedulesRetryWithoutHandling() throws Exception {
+        Message message = message("m-1");
+        when(retryManager.isLastConsume(message)).thenReturn(false);
+        when(messageService.claimMessageConsume(any(RabbitmqMessage.class))).thenThrow(new IllegalStateException("db down"));
+
+        listener.consume(message, channel);
+
+        verify(delayRetry).publish(channel, message);
+        verify(channel).basicAck(DELIVERY_TAG, false);
+        assertThat(listener.handled.get()).isZero();
+        verify(consumeLease, never()).hold(anyString(), any());
+        verify(messageService, never()).updateConsumeSuccessById(anyString(), any());
+        verify(messageService, never()).updateConsumeFailById(anyString(), any(), any());
+    }
+
+    @Test
+    void claimFailureOnLastAttemptRejectsWithoutHandling() throws Exception {
+        Message message = message("m-2");
+        when(retryManager.isLastConsume(message)).thenReturn(true);
+        when(messageService.claimMessageConsume(any(RabbitmqMessage.class))).thenThrow(new IllegalStateException("db down"));
+
+        listener.consume(message, channel);
+
+        verify(channel).basicReject(DELIVERY_TAG, false);
+        verify(channel, never()).basicAck(DELIVERY_TAG, false);
+        verify(delayRetry, never()).publish(any(), any());
+        assertThat(listener.handled.get()).isZero();
+    }
+
+    @Test
+    void handlerFailureInDelayModeMarksFailedAndSchedulesRetry() throws Exception {
+        Message message = message("m-3");
+        when(retryManager.isLastConsume(message)).thenReturn(false);
+        when(messageService.claimMessageConsume(any(RabbitmqMessage.class))).thenReturn(new ConsumeClaim("node#3", Set.of("m-3")));
+        listener.fail = true;
+
+        listener.consume(message, channel);
+
+        assertThat(listener.handled.get()).isEqualTo(1);
+        verify(consumeLease).hold("m-3", "node#3");
+        verify(messageService).updateConsumeFailById("m-3", "node#3", "boom");
+        verify(consumeLease).release("m-3", "node#3");
+        verify(delayRetry).publish(channel, message);
+        verify(channel).basicAck(DELIVERY_TAG, false);
+    }
+
+    @Test
+    void orderedSuccessOnFirstOfSeveralAttemptsIsAcked() throws Exception {
+        // 拦截器重试模式，通道内按最多3次消费的重试模板执行，首次消费不是最后一次
+        when(delayRetry.isEnabled()).thenReturn(false);
+        when(retryManager.getConsumeRetryTemplate()).thenReturn(RetryTemplate.builder().maxAttempts(3).build());
+        Message message = message("m-4");
+        when(retryManager.isLastConsume(message)).thenReturn(false);
+        when(messageService.claimMessageConsume(any(RabbitmqMessage.class))).thenReturn(new ConsumeClaim("node#4", Set.of("m-4")));
+        when(messageService.updateConsumeSuccessById("m-4", "node#4")).thenReturn(true);
+
+        listener.consumeOrdered(message, channel);
+
+        verify(channel, timeout(2000)).basicAck(DELIVERY_TAG, false);
+        assertThat(listener.handled.get()).isEqualTo(1);
+    }
+
+    private static Message message(String messageId) {
+        MessageProperties properties = new MessageProperties();
+        properties.setMessageId(messageId);
+        properties.setDeliveryTag(DELIVERY_TAG);
+        properties.setConsumerQueue("order.queue");
+        properties.setHeader(RabbitMQConstant.EXCHANGE, "order.exchange");
+        properties.setHeader(RabbitMQConstant.ROUTING_KEY, "order.created");
+        return new Message("{}".getBytes(StandardCharsets.UTF_8), properties);
+    }
+
+    static class CountingListener extends AbstractRabbitmqListener<String> {
+        final AtomicInteger handled = new AtomicInteger();
+        volatile boolean fail;
+
+        @Override
+        public void handleData(RabbitmqMsgDTO<String> msgDTO) {
+            handled.incrementAndGet();
+            if (fail) throw new IllegalStateException("boom");
+        }
+    }
+}
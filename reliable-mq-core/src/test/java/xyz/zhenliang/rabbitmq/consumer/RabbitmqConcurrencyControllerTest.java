@@ -0,0 +1,90 @@
+package xyz.zhenliang.rabbitmq.consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RabbitmqConcurrencyControllerTest {
+
+    private final RabbitListenerEndpointRegistry endpointRegistry = mock(RabbitListenerEndpointRegistry.class);
+    private final AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+    private final SimpleMessageListenerContainer container = mock(SimpleMessageListenerContainer.class);
+    private final RabbitmqOrderedDispatcher orderedDispatcher = new RabbitmqOrderedDispatcher();
+    private final RabbitmqConcurrencyController controller = new RabbitmqConcurrencyController();
+
+    @BeforeEach
+    void setUp() {
+        when(endpointRegistry.getListenerContainers()).thenReturn(List.of(container));
+        when(container.isRunning()).thenReturn(true);
+        when(container.getQueueNames()).thenReturn(new String[]{"order.queue"});
+        when(container.getActiveConsumerCount()).thenReturn(1);
+        // 积压远大于在途容量，每个周期都会增加消费者
+        when(amqpAdmin.getQueueInfo("order.queue")).thenReturn(new QueueInformation("order.queue", 100000, 1));
+        ReflectionTestUtils.setField(controller, "endpointRegistry", endpointRegistry);
+        ReflectionTestUtils.setField(controller, "amqpAdmin", amqpAdmin);
+        ReflectionTestUtils.setField(controller, "rabbitProperties", new RabbitProperties());
+        ReflectionTestUtils.setField(controller, "consumeStats", new RabbitmqConsumeStats());
+        ReflectionTestUtils.setField(controller, "orderedDispatcher", orderedDispatcher);
+    }
+
+    @Test
+    void listedQueueIsScaledUnderBacklog() {
+        ReflectionTestUtils.setField(controller, "queues", new String[]{"order.queue"});
+
+        controller.adjust();
+        controller.adjust();
+
+        verify(container).setConcurrentConsumers(2);
+    }
+
+    @Test
+    void noContainerIsAdjustedWithoutExplicitQueues() {
+        controller.adjust();
+        controller.adjust();
+
+        verify(container, never()).setConcurrentConsumers(anyInt());
+        verify(container, never()).setPrefetchCount(anyInt());
+    }
+
+    @Test
+    void orderedQueueIsNeverScaledEvenWhenListed() {
+        ReflectionTestUtils.setField(controller, "queues", new String[]{"order.queue"});
+        orderedDispatcher.markOrderedQueue("order.queue");
+
+        controller.adjust();
+        controller.adjust();
+
+        verify(container, never()).setConcurrentConsumers(anyInt());
+    }
+
+    @Test
+    void scaledQueueIsRestoredToSingleConsumerOnceOrdered() {
+        ReflectionTestUtils.setField(controller, "queues", new String[]{"order.queue"});
+        controller.adjust();
+        controller.adjust();
+        verify(container).setConcurrentConsumers(2);
+
+        orderedDispatcher.markOrderedQueue("order.queue");
+        controller.adjust();
+
+        InOrder inOrder = inOrder(container);
+        inOrder.verify(container).setConcurrentConsumers(2);
+        inOrder.verify(container).setConcurrentConsumers(1);
+        inOrder.verify(container).setMaxConcurrentConsumers(1);
+    }
+}
@@ -0,0 +1,135 @@
+package xyz.zhenliang.rabbitmq.consumer;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class RabbitmqOrderedAckTrackerTest {
+    private static final int MESSAGES = 400;
+
+    private final Channel channel = mock(Channel.class);
+    private final RabbitmqOrderedDispatcher dispatcher = new RabbitmqOrderedDispatcher();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dispatcher, "lanes", 4);
+        dispatcher.init();
+        dispatcher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    void concurrentLanesUseTheChannelOneAtATimeAndAckInLaneOrder() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Map<Integer, List<Long>> acked = new ConcurrentHashMap<>();
+        Answer<Object> exclusive = invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(0, 200_000);
+            inFlight.decrementAndGet();
+            return null;
+        };
+        doAnswer(exclusive).when(channel).basicPublish(anyString(), anyString(), anyBoolean(), any(), any());
+        doAnswer(invocation -> {
+            long tag = invocation.getArgument(0);
+            acked.computeIfAbsent(dispatcher.laneOf(keyOf(tag)), k -> new ArrayList<>()).add(tag);
+            return exclusive.answer(invocation);
+        }).when(channel).basicAck(anyLong(), anyBoolean());
+
+        RabbitmqOrderedAckTracker tracker = dispatcher.trackerOf(channel);
+        CountDownLatch done = new CountDownLatch(MESSAGES);
+        for (long tag = 1; tag <= MESSAGES; tag++) {
+            long deliveryTag = tag;
+            String key = keyOf(deliveryTag);
+            tracker.dispatched(dispatcher.laneOf(key), deliveryTag);
+            dispatcher.dispatch(key, () -> {
+                try {
+                    // 与延迟重试相同：先发布到重试队列再确认原消息
+                    tracker.getChannel().basicPublish("retry.exchange", "order.queue", false, new AMQP.BasicProperties(), new byte[0]);
+                    tracker.getChannel().basicAck(deliveryTag, false);
+                    tracker.completed(deliveryTag);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxInFlight.get()).isEqualTo(1);
+        assertThat(acked.values().stream().mapToInt(List::size).sum()).isEqualTo(MESSAGES);
+        for (List<Long> tags : acked.values()) {
+            assertThat(tags).isSorted();
+        }
+        assertThat(tracker.getPendingCount()).isZero();
+    }
+
+    @Test
+    void ackIsHeldUntilEarlierTagsInTheLaneComplete() throws Exception {
+        RabbitmqOrderedAckTracker tracker = new RabbitmqOrderedAckTracker(channel);
+        tracker.dispatched(0, 1);
+        tracker.dispatched(0, 2);
+        tracker.dispatched(1, 3);
+
+        tracker.getChannel().basicAck(2, false);
+        tracker.getChannel().basicAck(3, false);
+        // 其他lane的消息不受影响
+        verify(channel).basicAck(3, false);
+        verify(channel, never()).basicAck(2, false);
+
+        tracker.getChannel().basicReject(1, false);
+        InOrder inOrder = inOrder(channel);
+        inOrder.verify(channel).basicReject(1, false);
+        inOrder.verify(channel).basicAck(2, false);
+        assertThat(tracker.getPendingCount()).isZero();
+    }
+
+    @Test
+    void unackedCompletionDoesNotBlockLaterTags() throws Exception {
+        RabbitmqOrderedAckTracker tracker = new RabbitmqOrderedAckTracker(channel);
+        tracker.dispatched(0, 1);
+        tracker.dispatched(0, 2);
+
+        tracker.getChannel().basicAck(2, false);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+
+        // 第一条处理结束但未确认（如确认失败），留给Broker重新投递
+        tracker.completed(1);
+        verify(channel).basicAck(2, false);
+        verify(channel, never()).basicAck(1, false);
+        assertThat(tracker.getPendingCount()).isZero();
+    }
+
+    private static String keyOf(long tag) {
+        return "order-" + (tag % 16);
+    }
+}
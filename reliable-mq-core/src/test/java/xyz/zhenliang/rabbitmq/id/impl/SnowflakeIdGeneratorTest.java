@@ -0,0 +1,29 @@
+package xyz.zhenliang.rabbitmq.id.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    void missingOrOutOfRangeNodeIdFailsFast() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(-1)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(1024)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void nodesWithDifferentNodeIdsNeverCollide() {
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(0);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(1023);
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            assertThat(ids.add(first.generate())).isTrue();
+            assertThat(ids.add(second.generate())).isTrue();
+        }
+    }
+}
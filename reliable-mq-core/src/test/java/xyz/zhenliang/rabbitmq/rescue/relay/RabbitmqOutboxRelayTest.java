@@ -0,0 +1,44 @@
+package xyz.zhenliang.rabbitmq.rescue.relay;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import xyz.zhenliang.rabbitmq.constant.RabbitmqSendStatus;
+import xyz.zhenliang.rabbitmq.sender.impl.RabbitmqSenderImpl;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RabbitmqOutboxRelayTest {
+
+    @Test
+    void relayRunsOnItsOwnSchedulerUntilStopped() {
+        RabbitmqSenderImpl sender = mock(RabbitmqSenderImpl.class);
+        when(sender.relayStaleMessages(anyInt(), any(), anyString(), anyInt(), anyInt())).thenReturn(List.of());
+        RabbitmqOutboxRelay relay = new RabbitmqOutboxRelay();
+        ReflectionTestUtils.setField(relay, "rabbitmqSender", sender);
+        ReflectionTestUtils.setField(relay, "intervalMillis", 20L);
+
+        // 不依赖应用的@EnableScheduling
+        relay.start();
+        assertThat(relay.isRunning()).isTrue();
+        verify(sender, timeout(2000).atLeast(2))
+                .relayStaleMessages(eq(RabbitmqSendStatus.SENDING.getValue()), any(), anyString(), anyInt(), anyInt());
+
+        relay.stop();
+        assertThat(relay.isRunning()).isFalse();
+        clearInvocations(sender);
+        verify(sender, after(200).never()).relayStaleMessages(anyInt(), any(), anyString(), anyInt(), anyInt());
+    }
+}
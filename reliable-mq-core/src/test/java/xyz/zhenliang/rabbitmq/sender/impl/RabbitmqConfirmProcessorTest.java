@@ -0,0 +1,23 @@
+package xyz.zhenliang.rabbitmq.sender.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RabbitmqConfirmProcessorTest {
+
+    @Test
+    void confirmArrivingAfterStopRunsOnCallbackThread() {
+        RabbitmqConfirmProcessor processor = new RabbitmqConfirmProcessor();
+        processor.init();
+        processor.start();
+        processor.stop();
+
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        processor.submit("m-1", () -> ranOn.set(Thread.currentThread()));
+
+        assertThat(ranOn.get()).isSameAs(Thread.currentThread());
+    }
+}
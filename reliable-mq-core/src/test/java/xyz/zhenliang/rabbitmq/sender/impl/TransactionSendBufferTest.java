@@ -0,0 +1,66 @@
+package xyz.zhenliang.rabbitmq.sender.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import xyz.zhenliang.rabbitmq.dto.RabbitmqPublishMsg;
+import xyz.zhenliang.rabbitmq.utils.MqSpringUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class TransactionSendBufferTest {
+    private final RabbitmqSenderImpl sender = mock(RabbitmqSenderImpl.class);
+
+    @BeforeEach
+    void setUp() {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(RabbitmqSenderImpl.class, () -> sender);
+        context.refresh();
+        new MqSpringUtils().setApplicationContext(context);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void enlistOutsideTransactionFails() {
+        assertThatThrownBy(() -> TransactionSendBuffer.enlist(List.of(msg("1"))))
+                .isInstanceOf(IllegalStateException.class);
+        verifyNoInteractions(sender);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void messagesOfOneTransactionArePublishedTogetherAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSendBuffer.enlist(List.of(msg("1")));
+        TransactionSendBuffer.enlist(List.of(msg("2"), msg("3")));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertThat(synchronizations).hasSize(1);
+        verifyNoInteractions(sender);
+
+        synchronizations.get(0).afterCommit();
+        ArgumentCaptor<List<RabbitmqPublishMsg>> captor = ArgumentCaptor.forClass(List.class);
+        verify(sender).send(captor.capture());
+        assertThat(captor.getValue()).extracting(RabbitmqPublishMsg::getMessageId).containsExactly("1", "2", "3");
+    }
+
+    private static RabbitmqPublishMsg msg(String messageId) {
+        return new RabbitmqPublishMsg("ex", "rk", messageId, null, new byte[]{'{', '}'});
+    }
+}
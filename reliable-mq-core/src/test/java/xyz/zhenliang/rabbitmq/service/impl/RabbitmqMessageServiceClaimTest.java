@@ -0,0 +1,279 @@
+package xyz.zhenliang.rabbitmq.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import xyz.zhenliang.rabbitmq.constant.RabbitmqConsumeStatus;
+import xyz.zhenliang.rabbitmq.dto.ConsumeClaim;
+import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
+import xyz.zhenliang.rabbitmq.service.IRabbitmqMessageService;
+import xyz.zhenliang.rabbitmq.support.MqTestDatabase;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 消费认领的并发测试，需要数据库，见MqTestDatabase
+ */
+class RabbitmqMessageServiceClaimTest {
+    private static final int THREADS = 8;
+    /**
+     * 租约时长需要大于一轮并发认领的耗时，否则认领过程中租约到期会被合法地再次认领
+     */
+    private static final long LEASE_MILLIS = 60000;
+
+    private static ConfigurableApplicationContext context;
+    private static IRabbitmqMessageService messageService;
+
+    @BeforeAll
+    static void startContext() {
+        MqTestDatabase.assumeAvailable();
+        context = MqTestDatabase.start("mq.maxConsumeTimeoutMillis=" + LEASE_MILLIS);
+        messageService = context.getBean(IRabbitmqMessageService.class);
+    }
+
+    @AfterAll
+    static void closeContext() {
+        if (context != null) context.close();
+    }
+
+    @BeforeEach
+    void resetSchema() {
+        MqTestDatabase.resetSchema(context.getBean(DataSource.class));
+    }
+
+    @Test
+    void concurrentClaimsHaveExactlyOneWinnerPerMessage() throws Exception {
+        List<String> messageIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String messageId = "claim-" + i;
+            messageIds.add(messageId);
+            // 一半消息由发送端落库（UPDATE认领），另一半不存在（INSERT IGNORE认领）
+            if (i % 2 == 0) messageService.createMessageBySender(messageId, null, "ex", "rk", body());
+        }
+
+        Map<String, AtomicInteger> winners = race(messageIds);
+
+        assertThat(winners).hasSize(messageIds.size());
+        assertThat(winners.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+        for (String messageId : messageIds) {
+            RabbitmqMessage message = messageService.getById(messageId);
+            assertThat(message.getConsumeStatus()).isEqualTo(RabbitmqConsumeStatus.CONSUMING.getValue());
+            assertThat(message.getConsumeCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void expiredLeaseIsReclaimedByExactlyOneConsumer() throws Exception {
+        List<String> messageIds = List.of("expire-1", "expire-2", "expire-3");
+        for (String messageId : messageIds) {
+            assertThat(claim(messageId)).isTrue();
+        }
+        // 租约未到期，不可认领
+        for (String messageId : messageIds) {
+            assertThat(claim(messageId)).isFalse();
+        }
+
+        // 模拟消费者崩溃、租约到期
+        messageService.update(new LambdaUpdateWrapper<RabbitmqMessage>()
+                .in(RabbitmqMessage::getId, messageIds)
+                .set(RabbitmqMessage::getConsumeLeaseUntil, LocalDateTime.now().minusSeconds(1)));
+        Map<String, AtomicInteger> winners = race(messageIds);
+
+        assertThat(winners).hasSize(messageIds.size());
+        assertThat(winners.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+        for (String messageId : messageIds) {
+            assertThat(messageService.getById(messageId).getConsumeCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void consumedMessageIsNotClaimedAgain() throws Exception {
+        String messageId = "consumed-1";
+        ConsumeClaim claim = messageService.claimMessageConsume(claimMessage(messageId));
+        assertThat(claim.getMessageIds()).containsExactly(messageId);
+        assertThat(messageService.updateConsumeSuccessById(messageId, claim.getOwner())).isTrue();
+
+        assertThat(race(List.of(messageId))).isEmpty();
+    }
+
+    @Test
+    void staleSingleClaimCannotUpdateMessageReclaimedByAnotherClaim() {
+        String messageId = "stale-single-1";
+        ConsumeClaim first = messageService.claimMessageConsume(claimMessage(messageId));
+        assertThat(first.getMessageIds()).containsExactly(messageId);
+        messageService.update(new LambdaUpdateWrapper<RabbitmqMessage>()
+                .eq(RabbitmqMessage::getId, messageId)
+                .set(RabbitmqMessage::getConsumeLeaseUntil, LocalDateTime.now().minusSeconds(1)));
+
+        // 同一节点上的另一个消费线程接管了到期的消息
+        ConsumeClaim second = messageService.claimMessageConsume(claimMessage(messageId));
+        assertThat(second.getOwner()).isNotEqualTo(first.getOwner());
+        assertThat(second.getMessageIds()).containsExactly(messageId);
+
+        assertThat(messageService.updateConsumeFailById(messageId, first.getOwner(), "late")).isFalse();
+        assertThat(messageService.updateConsumeSuccessById(messageId, first.getOwner())).isFalse();
+        assertThat(messageService.updateConsumeSuccessById(messageId, second.getOwner())).isTrue();
+        assertThat(messageService.getById(messageId).getConsumeStatus()).isEqualTo(RabbitmqConsumeStatus.SUCCESS.getValue());
+    }
+
+    @Test
+    void overlappingBatchClaimsHaveExactlyOneWinnerPerMessage() throws Exception {
+        List<String> messageIds = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String messageId = "batch-" + i;
+            messageIds.add(messageId);
+            if (i % 2 == 0) messageService.createMessageBySender(messageId, null, "ex", "rk", body());
+        }
+        // 每个线程按不同顺序认领一组相互重叠的批次（窗口20条，步长10）
+        List<List<String>> windows = new ArrayList<>();
+        for (int from = 0; from + 20 <= messageIds.size(); from += 10) windows.add(messageIds.subList(from, from + 20));
+
+        Map<String, String> winners = new ConcurrentHashMap<>();
+        AtomicInteger duplicates = new AtomicInteger();
+        runConcurrently(() -> {
+            List<List<String>> order = new ArrayList<>(windows);
+            Collections.shuffle(order);
+            for (List<String> window : order) {
+                List<RabbitmqMessage> claimMessages = new ArrayList<>();
+                for (String messageId : window) claimMessages.add(claimMessage(messageId));
+                ConsumeClaim claim = messageService.claimMessageConsumeBatch(claimMessages);
+                for (String messageId : claim.getMessageIds()) {
+                    if (winners.putIfAbsent(messageId, claim.getOwner()) != null) duplicates.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(duplicates.get()).isZero();
+        assertThat(winners).hasSize(messageIds.size());
+        for (String messageId : messageIds) {
+            RabbitmqMessage message = messageService.getById(messageId);
+            assertThat(message.getConsumeCount()).isEqualTo(1);
+            assertThat(message.getConsumeOwner()).isEqualTo(winners.get(messageId));
+        }
+    }
+
+    @Test
+    void staleClaimCannotUpdateMessagesReclaimedByAnotherClaim() {
+        List<RabbitmqMessage> claimMessages = List.of(claimMessage("stale-1"), claimMessage("stale-2"));
+        ConsumeClaim first = messageService.claimMessageConsumeBatch(claimMessages);
+        assertThat(first.getMessageIds()).containsExactlyInAnyOrder("stale-1", "stale-2");
+        messageService.update(new LambdaUpdateWrapper<RabbitmqMessage>()
+                .in(RabbitmqMessage::getId, first.getMessageIds())
+                .set(RabbitmqMessage::getConsumeLeaseUntil, LocalDateTime.now().minusSeconds(1)));
+
+        // 同一节点上的另一次认领接管了到期的消息
+        ConsumeClaim second = messageService.claimMessageConsumeBatch(claimMessages);
+        assertThat(second.getOwner()).isNotEqualTo(first.getOwner());
+        assertThat(second.getMessageIds()).containsExactlyInAnyOrder("stale-1", "stale-2");
+
+        assertThat(messageService.renewConsumeLease(List.of(first))).isZero();
+        assertThat(messageService.updateConsumeFailByIds(first.getMessageIds(), first.getOwner(), "late")).isZero();
+        assertThat(messageService.updateConsumeSuccessByIds(first.getMessageIds(), first.getOwner())).isZero();
+        assertThat(messageService.updateConsumeSuccessByIds(second.getMessageIds(), second.getOwner())).isEqualTo(2);
+    }
+
+    @Test
+    void renewMatchesEachMessageOnlyWithItsOwnClaim() {
+        ConsumeClaim first = messageService.claimMessageConsumeBatch(List.of(claimMessage("pair-1"), claimMessage("pair-2")));
+        messageService.update(new LambdaUpdateWrapper<RabbitmqMessage>()
+                .eq(RabbitmqMessage::getId, "pair-1")
+                .set(RabbitmqMessage::getConsumeLeaseUntil, LocalDateTime.now().minusSeconds(1)));
+        // 另一次认领只接管了pair-1，pair-2仍归第一次认领
+        ConsumeClaim second = messageService.claimMessageConsumeBatch(List.of(claimMessage("pair-1")));
+        assertThat(second.getMessageIds()).containsExactly("pair-1");
+
+        assertThat(messageService.renewConsumeLease(List.of(first))).isEqualTo(1);
+        assertThat(messageService.renewConsumeLease(List.of(
+                new ConsumeClaim(first.getOwner(), Set.of("pair-2")), second))).isEqualTo(2);
+        // 认领标识与消息交叉时不能续约
+        assertThat(messageService.renewConsumeLease(List.of(
+                new ConsumeClaim(first.getOwner(), Set.of("pair-1")),
+                new ConsumeClaim(second.getOwner(), Set.of("pair-2"))))).isZero();
+    }
+
+    /**
+     * 多个线程同时认领同一组消息，每个线程以不同的顺序认领全部消息
+     *
+     * @param messageIds 消息ID列表
+     * @return 每条消息认领成功的次数
+     */
+    private static Map<String, AtomicInteger> race(List<String> messageIds) throws Exception {
+        Map<String, AtomicInteger> winners = new ConcurrentHashMap<>();
+        runConcurrently(() -> {
+            List<String> order = new ArrayList<>(messageIds);
+            Collections.shuffle(order);
+            for (String messageId : order) {
+                if (claim(messageId)) {
+                    winners.computeIfAbsent(messageId, k -> new AtomicInteger()).incrementAndGet();
+                }
+            }
+        });
+        return winners;
+    }
+
+    /**
+     * 认领单条消息
+     *
+     * @param messageId 消息ID
+     * @return 是否认领成功
+     */
+    private static boolean claim(String messageId) {
+        return !messageService.claimMessageConsume(claimMessage(messageId)).getMessageIds().isEmpty();
+    }
+
+    /**
+     * 在THREADS个线程中同时开始执行同一任务，等待全部完成，任一线程的异常使测试失败
+     *
+     * @param task 任务
+     */
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static RabbitmqMessage claimMessage(String messageId) {
+        RabbitmqMessage message = new RabbitmqMessage();
+        message.setId(messageId);
+        message.setExchange("ex");
+        message.setRoutingKey("rk");
+        message.setMessageBody(body());
+        return message;
+    }
+
+    private static byte[] body() {
+        return "{\"data\":1}".getBytes(StandardCharsets.UTF_8);
+    }
+}
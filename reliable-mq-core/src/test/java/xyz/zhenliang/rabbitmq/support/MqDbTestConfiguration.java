@@ -0,0 +1,34 @@
+package xyz.zhenliang.rabbitmq.support;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusAutoConfiguration;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import xyz.zhenliang.rabbitmq.codec.RabbitmqCodecRegistry;
+import xyz.zhenliang.rabbitmq.codec.impl.GzipRabbitmqCompressor;
+import xyz.zhenliang.rabbitmq.codec.impl.JsonRabbitmqCodec;
+import xyz.zhenliang.rabbitmq.service.impl.RabbitmqLockService;
+import xyz.zhenliang.rabbitmq.service.impl.RabbitmqMessageServiceImpl;
+
+/**
+ * 数据库集成测试的Spring配置
+ * 只包含数据源、事务、MyBatis-Plus和消息服务，不连接RabbitMQ
+ */
+@Configuration
+@ImportAutoConfiguration({DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+        TransactionAutoConfiguration.class, MybatisPlusAutoConfiguration.class})
+@MapperScan("xyz.zhenliang.rabbitmq.mapper")
+@Import({RabbitmqMessageServiceImpl.class, RabbitmqLockService.class, RabbitmqCodecRegistry.class,
+        JsonRabbitmqCodec.class, GzipRabbitmqCompressor.class})
+public class MqDbTestConfiguration {
+
+    @Bean
+    public StatementCounter statementCounter() {
+        return new StatementCounter();
+    }
+}
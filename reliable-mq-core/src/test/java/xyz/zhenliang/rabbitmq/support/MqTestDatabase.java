@@ -0,0 +1,127 @@
+package xyz.zhenliang.rabbitmq.support;
+
+import org.junit.jupiter.api.Assumptions;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MySQLContainer;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 数据库集成测试和基准测试使用的MySQL
+ * 优先使用-Dmq.test.jdbc-url指定的数据库（同时可指定-Dmq.test.username、-Dmq.test.password），
+ * 未指定时在有Docker的环境中通过Testcontainers启动MySQL，都不可用时跳过数据库测试
+ */
+public final class MqTestDatabase {
+    public static final String JDBC_URL_PROPERTY = "mq.test.jdbc-url";
+    public static final String USERNAME_PROPERTY = "mq.test.username";
+    public static final String PASSWORD_PROPERTY = "mq.test.password";
+
+    /**
+     * 建表脚本，相对于reliable-mq-core模块目录
+     */
+    private static final String INIT_SCRIPT = "../sql/mysql_init.sql";
+
+    private static MySQLContainer<?> container;
+
+    private MqTestDatabase() {
+    }
+
+    /**
+     * 数据库是否可用
+     *
+     * @return 指定了数据库地址或有Docker时返回true
+     */
+    public static boolean isAvailable() {
+        if (!isBlank(System.getProperty(JDBC_URL_PROPERTY))) return true;
+        try {
+            return DockerClientFactory.instance().isDockerAvailable();
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * 数据库不可用时跳过当前测试
+     */
+    public static void assumeAvailable() {
+        Assumptions.assumeTrue(isAvailable(), "No database: set -D" + JDBC_URL_PROPERTY + " or start Docker");
+    }
+
+    /**
+     * 重建消息表，并启动只包含消息服务和持久层的Spring上下文
+     *
+     * @param properties 额外的配置项，格式为key=value
+     * @return Spring上下文
+     */
+    public static ConfigurableApplicationContext start(String... properties) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("No database: set -D" + JDBC_URL_PROPERTY + " or start Docker");
+        }
+        List<String> props = new ArrayList<>();
+        props.add("spring.datasource.url=" + jdbcUrl());
+        props.add("spring.datasource.username=" + username());
+        props.add("spring.datasource.password=" + password());
+        props.add("spring.datasource.hikari.maximum-pool-size=32");
+        props.addAll(List.of(properties));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(MqDbTestConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(props.toArray(new String[0]))
+                .run();
+        resetSchema(context.getBean(DataSource.class));
+        return context;
+    }
+
+    /**
+     * 执行建表脚本，删除并重建全部表
+     *
+     * @param dataSource 数据源
+     */
+    public static void resetSchema(DataSource dataSource) {
+        Path script = Path.of(INIT_SCRIPT);
+        if (!Files.exists(script)) script = Path.of("sql/mysql_init.sql");
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new EncodedResource(new FileSystemResource(script), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to init schema from " + script.toAbsolutePath(), e);
+        }
+    }
+
+    private static synchronized String jdbcUrl() {
+        String url = System.getProperty(JDBC_URL_PROPERTY);
+        if (!isBlank(url)) return url;
+        if (container == null) {
+            container = new MySQLContainer<>("mysql:8.0");
+            container.start();
+        }
+        return container.getJdbcUrl();
+    }
+
+    private static String username() {
+        if (container != null) return container.getUsername();
+        return System.getProperty(USERNAME_PROPERTY, "root");
+    }
+
+    private static String password() {
+        if (container != null) return container.getPassword();
+        return System.getProperty(PASSWORD_PROPERTY, "");
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+}
@@ -0,0 +1,40 @@
+package xyz.zhenliang.rabbitmq.support;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 统计MyBatis执行的SQL语句数量，用于对比各实现每条消息的数据库往返次数
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class StatementCounter implements Interceptor {
+    private final AtomicLong count = new AtomicLong();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        count.incrementAndGet();
+        return invocation.proceed();
+    }
+
+    public long get() {
+        return count.get();
+    }
+
+    public void reset() {
+        count.set(0);
+    }
+}
@@ -10,9 +10,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import xyz.zhenliang.rabbitmq.dto.QueueProcessResult;
 import xyz.zhenliang.rabbitmq.dto.RabbitmqMsgDTO;
+import xyz.zhenliang.rabbitmq.dto.RescueJobStatus;
+import xyz.zhenliang.rabbitmq.dto.ResendFilter;
 import xyz.zhenliang.rabbitmq.entity.RabbitmqMessage;
 import xyz.zhenliang.rabbitmq.rescue.IRabbitmqRescue;
 
+import java.util.List;
+
 /**
  * 消息Demo控制器
  * 提供消息发送和重发接口
@@ -49,6 +53,13 @@ public class DemoController {
         return Result.ok();
     }
 
+    @Operation(summary = "批量重发消息", description = "按筛选条件（创建时间范围、发送/消费状态、交换机、业务ID前缀）批量重发消息")
+    @PostMapping("/resendMessages")
+    public Result<Integer> resendMessages(@RequestBody ResendFilter filter,
+                                          @RequestParam(defaultValue = "0") double ratePerSecond) {
+        return Result.ok(rabbitmqRescue.resendMessages(filter, ratePerSecond));
+    }
+
     @Operation(summary = "获取队列消息数量", description = "根据消息队列名称获取消息数量")
     @GetMapping("/getDeadLetterCount")
     public Result<Long> getDeadLetterCount(@RequestParam String queueName) {
@@ -63,6 +74,32 @@ public class DemoController {
         return Result.ok(qpr);
     }
 
+    @Operation(summary = "死信队列消息重放到原交换机", description = "根据消息队列名称将死信消息直接重新发布到原交换机和路由键，不经过消息表")
+    @GetMapping("/replayDeadLetterQueue")
+    public Result<QueueProcessResult> replayDeadLetterQueue(@RequestParam String queueName,
+                                                            @RequestParam(defaultValue = "0") double ratePerSecond) {
+        return Result.ok(rabbitmqRescue.replayDeadLetterQueue(queueName, ratePerSecond));
+    }
+
+    @Operation(summary = "启动死信队列救援任务", description = "异步并行将多个死信队列的消息转入消息表，返回任务ID")
+    @PostMapping("/startDeadLetterRescueJob")
+    public Result<String> startDeadLetterRescueJob(@RequestParam List<String> queueNames,
+                                                   @RequestParam(defaultValue = "0") double ratePerSecond) {
+        return Result.ok(rabbitmqRescue.startDeadLetterRescueJob(queueNames, ratePerSecond));
+    }
+
+    @Operation(summary = "查询死信队列救援任务", description = "根据任务ID查询任务状态及各队列处理进度")
+    @GetMapping("/getRescueJob")
+    public Result<RescueJobStatus> getRescueJob(@RequestParam String jobId) {
+        return Result.ok(rabbitmqRescue.getRescueJob(jobId));
+    }
+
+    @Operation(summary = "取消死信队列救援任务", description = "根据任务ID取消任务，未确认的消息重新入队")
+    @GetMapping("/cancelRescueJob")
+    public Result<Boolean> cancelRescueJob(@RequestParam String jobId) {
+        return Result.ok(rabbitmqRescue.cancelRescueJob(jobId));
+    }
+
     @Operation(summary = "清除队列消息", description = "根据消息队列名称清除队列消息")
     @GetMapping("/purgeQueue")
     public Result<String> purgeQueue(@RequestParam String queueName) {
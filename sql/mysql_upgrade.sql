@@ -0,0 +1,18 @@
+-- 从1.0.0升级：已有rabbitmq_message表的库执行本脚本，新库直接执行mysql_init.sql
+-- 消息体改为保存序列化后的字节，RabbitmqMessage.messageBody相应由String改为byte[]
+ALTER TABLE `rabbitmq_message` MODIFY `message_body` mediumblob NOT NULL COMMENT '消息内容（序列化后的消息体字节）';
+
+ALTER TABLE `rabbitmq_message`
+    ADD COLUMN `send_next_time` datetime(3) DEFAULT NULL COMMENT '下次自动重发时间（发送失败后按指数退避加随机抖动计算）' AFTER `send_error_message`,
+    ADD COLUMN `consume_owner` varchar(64) DEFAULT NULL COMMENT '消费者节点标识（认领消费权的节点）' AFTER `consume_error_message`,
+    ADD COLUMN `consume_lease_until` datetime(3) DEFAULT NULL COMMENT '消费租约到期时间，消费中节点定时续约' AFTER `consume_owner`;
+
+ALTER TABLE `rabbitmq_message` ADD INDEX `ix_rabbitmq_message_4`(`send_status`,`id`);
+ALTER TABLE `rabbitmq_message` ADD INDEX `ix_rabbitmq_message_5`(`send_status`,`send_next_time`);
+
+CREATE TABLE IF NOT EXISTS `rabbitmq_lock` (
+    `name` varchar(64) NOT NULL COMMENT '锁名称',
+    `owner` varchar(64) DEFAULT NULL COMMENT '持有锁的节点标识',
+    `lease_until` datetime(3) DEFAULT NULL COMMENT '租约到期时间，到期前其他节点不可获取',
+    PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='rabbitmq调度任务锁表（多节点选主）';